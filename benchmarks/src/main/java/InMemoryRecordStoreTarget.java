@@ -0,0 +1,69 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Class: InMemoryRecordStoreTarget
+ *
+ * Description: Runs the benchmarks against an InMemoryRecordStore instead of the database, chosen with
+ * -Dfishing.benchmarkTarget=InMemoryRecordStoreTarget. The seeded databases are still built and copied as SQLite
+ * files, shared with LocalDatabaseTarget, and the benchmark user's records are copied into a new store when one is
+ * opened or seeded, so they're numbered the same and sampled the same in both.
+ *
+ * Date: 17/10/2026
+ */
+public class InMemoryRecordStoreTarget extends LocalDatabaseTarget {
+
+    @Override
+    public void open(Path folder) throws Exception {
+        super.open(folder);
+        load();
+    }
+
+    @Override
+    public void seed(int catches, int sells, long seed) throws Exception {
+        super.seed(catches, sells, seed);
+        load();
+    }
+
+    //a new store holding a copy of the benchmark user's records, in the order they were added
+    private void load() throws Exception {
+        if (store != db) {
+            store.close();
+        }
+        RecordStore memory = newStore();
+        memory.addUser(USERNAME, EMAIL, PASSWORD);
+        memory.changeUser(USERNAME, PASSWORD);
+        ArrayList<LocalDatabase.Record> records = db.getAllRecords(false);
+        records.sort((a, b) -> Integer.compare(a.record_id, b.record_id));
+        if (!records.isEmpty() && records.get(records.size() - 1).record_id != records.size()) {
+            throw new IllegalStateException("The seeded records aren't numbered from 1 without gaps");
+        }
+        memory.inputRecordBatch(records);
+        store = memory;
+    }
+
+    //an empty store for the records to be copied into
+    protected RecordStore newStore() throws Exception {
+        return new InMemoryRecordStore();
+    }
+
+    @Override
+    public Path exportData(Path folder) throws Exception {
+        Path file = folder.resolve("exportData.txt");
+        new CatchLogExporter(store).exportTo(file, false);
+        return file;
+    }
+
+    @Override
+    public long importData(Path file) throws Exception {
+        return new CatchLogImporter(store).importFile(file, null).getImported();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (store != null && store != db) {
+            store.close();
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,166 @@
+import benchmarks.DatabaseTarget;
+import benchmarks.SampleRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Class: LocalDatabaseTarget
+ *
+ * Description: The benchmarks' way into a LocalDatabase, see benchmarks.DatabaseTarget. Everything the benchmarks
+ * do is done as one user, created the first time a database is opened.
+ *
+ * Date: 17/10/2026
+ */
+public class LocalDatabaseTarget implements DatabaseTarget {
+
+    static final String USERNAME = "benchmark";
+    static final String PASSWORD = "benchmark";
+    static final String EMAIL = "benchmark@example.com";
+    //seeded records are about this far apart, starting here, and their catches are around this many grounds
+    private static final LocalDateTime SEED_START = LocalDateTime.of(2015, 1, 1, 0, 0);
+    private static final int SEED_STEP_SECONDS = 97;
+    private static final int SEED_GROUNDS = 20;
+    private static final double SEED_SPREAD_KM = 15;
+
+    protected LocalDatabase db;
+    //what the benchmarks are run against, the database itself unless a subclass says otherwise
+    protected RecordStore store;
+
+    @Override
+    public String fingerprint() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (Class<?> type : new Class<?>[] {LocalDatabase.class, SchemaMigrations.class, BulkLoader.class, DatasetGenerator.class, LocalDatabaseTarget.class}) {
+            try (InputStream in = type.getResourceAsStream("/" + type.getName() + ".class")) {
+                if (in == null) {
+                    throw new IOException("Can't read the class file of " + type.getName());
+                }
+                digest.update(in.readAllBytes());
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.substring(0, 16);
+    }
+
+    @Override
+    public void open(Path folder) throws Exception {
+        db = new LocalDatabase(folder);
+        try {
+            db.changeUser(USERNAME, PASSWORD);
+        } catch (LocalDatabase.UserNotFoundException e) {
+            db.addUser(USERNAME, EMAIL, PASSWORD);
+            db.changeUser(USERNAME, PASSWORD);
+        }
+        store = db;
+    }
+
+    @Override
+    public void seed(int catches, int sells, long seed) throws Exception {
+        int total = catches + sells;
+        LocalDateTime end = SEED_START.plusSeconds((long) total * SEED_STEP_SECONDS);
+        DatasetGenerator generator = new DatasetGenerator(seed, 1, total, (double) sells / total, SEED_GROUNDS, SEED_SPREAD_KM, SEED_START, end);
+        if (generator.getSellsPerUser() != sells) {
+            throw new IllegalArgumentException("Can't seed more selling records than catch records");
+        }
+        generator.writeTo(db, new int[] {db.currentUser.getUser_id()});
+    }
+
+    @Override
+    public SampleRecord[] sample(int count, long seed) throws Exception {
+        int records = store.countCatchRecords() + store.countSellRecords();
+        if (records == 0) {
+            return new SampleRecord[0];
+        }
+        Random random = new Random(seed);
+        SampleRecord[] samples = new SampleRecord[count];
+        //a seeded database's records are numbered from 1, with gaps only where records have been deleted
+        int found = 0;
+        for (int attempt = 0; found < count && attempt < count * 100; attempt++) {
+            LocalDatabase.Record record = store.getRecordById(1 + random.nextInt(records));
+            if (record instanceof LocalDatabase.CatchRecord) {
+                LocalDatabase.CatchRecord catchRecord = (LocalDatabase.CatchRecord) record;
+                samples[found++] = new SampleRecord(catchRecord.record_id, catchRecord.date, catchRecord.weight, catchRecord.latitude, catchRecord.longitude, Double.NaN);
+            } else if (record instanceof LocalDatabase.SellRecord) {
+                LocalDatabase.SellRecord sellRecord = (LocalDatabase.SellRecord) record;
+                samples[found++] = new SampleRecord(sellRecord.record_id, sellRecord.date, sellRecord.weight, Double.NaN, Double.NaN, sellRecord.revenue);
+            }
+        }
+        db.getRecordCache().clear();
+        if (found < count) {
+            throw new IllegalStateException("Only found " + found + " of " + count + " sample records");
+        }
+        return samples;
+    }
+
+    @Override
+    public void inputCatchData(LocalDateTime dateTime, double weight, double latitude, double longitude) throws Exception {
+        store.inputCatchData(dateTime, weight, latitude, longitude);
+    }
+
+    @Override
+    public void inputSellData(LocalDateTime dateTime, double weight, double revenue) throws Exception {
+        store.inputSellData(dateTime, weight, revenue);
+    }
+
+    @Override
+    public Object getAllCatchRecords() throws Exception {
+        return store.getAllCatchRecords();
+    }
+
+    @Override
+    public Object getAllSellRecords() throws Exception {
+        return store.getAllSellRecords();
+    }
+
+    @Override
+    public Object getRecordById(int record_id) throws Exception {
+        return store.getRecordById(record_id);
+    }
+
+    @Override
+    public Object getRecordsByDate(LocalDateTime dateTime) throws Exception {
+        return store.getRecordsByDate(dateTime);
+    }
+
+    @Override
+    public Object getRecordsByWeight(double weight) throws Exception {
+        return store.getRecordsByWeight(weight);
+    }
+
+    @Override
+    public Object getRecordsByRevenue(double revenue) throws Exception {
+        return store.getRecordsByRevenue(revenue);
+    }
+
+    @Override
+    public Object getRecordsByLocation(double latitude, double longitude) throws Exception {
+        return store.getRecordsByLocation(latitude, longitude);
+    }
+
+    @Override
+    public Path exportData(Path folder) throws Exception {
+        db.exportData(folder.toString());
+        return folder.resolve("exportData.txt");
+    }
+
+    @Override
+    public long importData(Path file) throws Exception {
+        return db.importData(file.toString()).getImported();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (db != null) {
+            db.close();
+            db = null;
+            store = null;
+        }
+    }
+}
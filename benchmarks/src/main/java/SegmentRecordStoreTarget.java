@@ -0,0 +1,32 @@
+import benchmarks.SeededDatabases;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Class: SegmentRecordStoreTarget
+ *
+ * Description: Runs the benchmarks against a SegmentRecordStore, chosen with
+ * -Dfishing.benchmarkTarget=SegmentRecordStoreTarget. The seeded records are copied into a new store in a
+ * temporary folder of its own, which is deleted again when the target is closed.
+ *
+ * Date: 17/10/2026
+ */
+public class SegmentRecordStoreTarget extends InMemoryRecordStoreTarget {
+
+    private Path segments;
+
+    @Override
+    protected RecordStore newStore() throws Exception {
+        SeededDatabases.delete(segments);
+        segments = Files.createTempDirectory("fishing-segments-");
+        return new SegmentRecordStore(segments);
+    }
+
+    @Override
+    public void close() throws Exception {
+        super.close();
+        SeededDatabases.delete(segments);
+        segments = null;
+    }
+}
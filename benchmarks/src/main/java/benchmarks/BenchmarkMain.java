@@ -0,0 +1,32 @@
+package benchmarks;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class: BenchmarkMain
+ *
+ * Description: Runs the benchmarks with JMH's usual command line options, except that the results are written as
+ * JSON to jmh-result-<date time>.json unless a result format (-rf) or file (-rff) is given, so every run leaves a
+ * file that can be compared with runs at other commits.
+ *
+ * Date: 17/10/2026
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.add("-rf");
+            options.add("json");
+        }
+        if (!options.contains("-rff")) {
+            options.add("-rff");
+            options.add("jmh-result-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
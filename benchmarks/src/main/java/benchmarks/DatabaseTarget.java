@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Interface: DatabaseTarget
+ *
+ * Description: The LocalDatabase operations the benchmarks measure. The app's classes are all in the default
+ * package, which code in a named package (as JMH requires benchmarks to be) can't refer to, so they're reached
+ * through this interface instead. It's implemented by LocalDatabaseTarget in the default package, or whichever
+ * class the fishing.benchmarkTarget system property names (InMemoryRecordStoreTarget runs them against an
+ * InMemoryRecordStore). That's loaded by name once per trial, after which every call is an ordinary interface
+ * call. Query results are returned as Objects for the benchmarks to hand to a Blackhole.
+ *
+ * Date: 17/10/2026
+ */
+public interface DatabaseTarget extends AutoCloseable {
+
+    static DatabaseTarget create() throws ReflectiveOperationException {
+        return (DatabaseTarget) Class.forName(System.getProperty("fishing.benchmarkTarget", "LocalDatabaseTarget")).getDeclaredConstructor().newInstance();
+    }
+
+    //changes whenever the database code or the seeded data would, so seeded databases are only reused when they match
+    String fingerprint() throws Exception;
+
+    //opens or builds the database in the given folder, and signs in as the benchmark user
+    void open(Path folder) throws Exception;
+
+    //adds the given numbers of catch and selling records for the benchmark user, the same ones for the same seed
+    void seed(int catches, int sells, long seed) throws Exception;
+
+    //a sample of the records in the database, chosen by the seed
+    SampleRecord[] sample(int count, long seed) throws Exception;
+
+    void inputCatchData(LocalDateTime dateTime, double weight, double latitude, double longitude) throws Exception;
+
+    void inputSellData(LocalDateTime dateTime, double weight, double revenue) throws Exception;
+
+    Object getAllCatchRecords() throws Exception;
+
+    Object getAllSellRecords() throws Exception;
+
+    Object getRecordById(int record_id) throws Exception;
+
+    Object getRecordsByDate(LocalDateTime dateTime) throws Exception;
+
+    Object getRecordsByWeight(double weight) throws Exception;
+
+    Object getRecordsByRevenue(double revenue) throws Exception;
+
+    Object getRecordsByLocation(double latitude, double longitude) throws Exception;
+
+    //exports every record to the given folder and returns the file it was written to
+    Path exportData(Path folder) throws Exception;
+
+    //imports a file written by exportData() and returns how many records were imported
+    long importData(Path file) throws Exception;
+
+    @Override
+    void close() throws Exception;
+}
@@ -0,0 +1,93 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class: ImportExportBenchmark
+ *
+ * Description: How long exportData() takes to write out rows catch records and rows selling records, and how
+ * long importData() takes to read the same file back into an empty database. Divide 2 * rows by the time taken
+ * for the number of records a second.
+ *
+ * Date: 17/10/2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ImportExportBenchmark {
+
+    //a seeded database, along with a file it's been exported to
+    @State(Scope.Benchmark)
+    public static class Seeded {
+        @Param({"10000", "100000"})
+        public int rows;
+
+        private DatabaseTarget target;
+        private Path folder;
+        private Path exportFolder;
+        private Path exported;
+
+        @Setup(Level.Trial)
+        public void open() throws Exception {
+            target = DatabaseTarget.create();
+            folder = SeededDatabases.seeded(target, rows, rows);
+            target.open(folder);
+            exportFolder = SeededDatabases.empty();
+            exported = target.exportData(exportFolder);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws Exception {
+            target.close();
+            SeededDatabases.delete(folder);
+            SeededDatabases.delete(exportFolder);
+        }
+    }
+
+    //a new empty database for every import
+    @State(Scope.Thread)
+    public static class Empty {
+        private DatabaseTarget target;
+        private Path folder;
+
+        @Setup(Level.Invocation)
+        public void open() throws Exception {
+            target = DatabaseTarget.create();
+            folder = SeededDatabases.empty();
+            target.open(folder);
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() throws Exception {
+            target.close();
+            SeededDatabases.delete(folder);
+        }
+    }
+
+    @Benchmark
+    public Path exportData(Seeded seeded) throws Exception {
+        return seeded.target.exportData(seeded.exportFolder);
+    }
+
+    @Benchmark
+    public long importData(Seeded seeded, Empty empty) throws Exception {
+        return empty.target.importData(seeded.exported);
+    }
+}
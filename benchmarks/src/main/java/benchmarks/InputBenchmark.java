@@ -0,0 +1,68 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class: InputBenchmark
+ *
+ * Description: How many records a second inputCatchData() and inputSellData() can add, one at a time, to a
+ * database that starts empty.
+ *
+ * Date: 17/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InputBenchmark {
+
+    private DatabaseTarget target;
+    private Path folder;
+    private Random random;
+    private LocalDateTime dateTime;
+
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        target = DatabaseTarget.create();
+        folder = SeededDatabases.empty();
+        target.open(folder);
+        random = new Random(SeededDatabases.SEED);
+        dateTime = LocalDateTime.of(2021, 1, 1, 0, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws Exception {
+        target.close();
+        SeededDatabases.delete(folder);
+    }
+
+    @Benchmark
+    public void inputCatchData() throws Exception {
+        dateTime = dateTime.plusMinutes(1);
+        target.inputCatchData(dateTime, (1 + random.nextInt(300)) / 10.0, 52 + random.nextGaussian(), 1 + random.nextGaussian());
+    }
+
+    @Benchmark
+    public void inputSellData() throws Exception {
+        dateTime = dateTime.plusMinutes(1);
+        target.inputSellData(dateTime, (1 + random.nextInt(300)) / 10.0, random.nextInt(20000) / 100.0);
+    }
+}
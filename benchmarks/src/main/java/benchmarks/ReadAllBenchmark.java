@@ -0,0 +1,64 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class: ReadAllBenchmark
+ *
+ * Description: How long getAllCatchRecords() and getAllSellRecords() take to read a user's whole history, with
+ * rows catch records and rows selling records in the database.
+ *
+ * Date: 17/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadAllBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private DatabaseTarget target;
+    private Path folder;
+
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        target = DatabaseTarget.create();
+        folder = SeededDatabases.seeded(target, rows, rows);
+        target.open(folder);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws Exception {
+        target.close();
+        SeededDatabases.delete(folder);
+    }
+
+    @Benchmark
+    public Object getAllCatchRecords() throws Exception {
+        return target.getAllCatchRecords();
+    }
+
+    @Benchmark
+    public Object getAllSellRecords() throws Exception {
+        return target.getAllSellRecords();
+    }
+}
@@ -0,0 +1,33 @@
+package benchmarks;
+
+import java.time.LocalDateTime;
+
+/**
+ * Class: SampleRecord
+ *
+ * Description: A record known to be in a seeded database, so the searches the benchmarks make find something.
+ * The latitude and longitude are NaN for a sale, and the revenue NaN for a catch.
+ *
+ * Date: 17/10/2026
+ */
+public final class SampleRecord {
+    public final int record_id;
+    public final LocalDateTime dateTime;
+    public final double weight;
+    public final double latitude;
+    public final double longitude;
+    public final double revenue;
+
+    public SampleRecord(int record_id, LocalDateTime dateTime, double weight, double latitude, double longitude, double revenue) {
+        this.record_id = record_id;
+        this.dateTime = dateTime;
+        this.weight = weight;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.revenue = revenue;
+    }
+
+    public boolean isCatch() {
+        return !Double.isNaN(latitude);
+    }
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class: SearchBenchmark
+ *
+ * Description: How long getRecordById() and the getRecordsBy* searches take, with rows catch records and rows
+ * selling records in the database. Each call searches for the next of a fixed sample of the records, so every
+ * search finds something and the same searches are made on every run. getRecordById() goes through the record
+ * cache, which the sample is far bigger than, so it mostly measures reading a record from the database.
+ *
+ * Date: 17/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int SAMPLE_SIZE = 8192;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private DatabaseTarget target;
+    private Path folder;
+    private SampleRecord[] records;
+    private SampleRecord[] catches;
+    private SampleRecord[] sells;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        target = DatabaseTarget.create();
+        folder = SeededDatabases.seeded(target, rows, rows);
+        target.open(folder);
+        records = target.sample(SAMPLE_SIZE, SeededDatabases.SEED);
+        List<SampleRecord> catchList = new ArrayList<>();
+        List<SampleRecord> sellList = new ArrayList<>();
+        for (SampleRecord record : records) {
+            (record.isCatch() ? catchList : sellList).add(record);
+        }
+        catches = catchList.toArray(new SampleRecord[0]);
+        sells = sellList.toArray(new SampleRecord[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws Exception {
+        target.close();
+        SeededDatabases.delete(folder);
+    }
+
+    private SampleRecord next(SampleRecord[] sample) {
+        next = next + 1 == Integer.MAX_VALUE ? 0 : next + 1;
+        return sample[next % sample.length];
+    }
+
+    @Benchmark
+    public Object getRecordById() throws Exception {
+        return target.getRecordById(next(records).record_id);
+    }
+
+    @Benchmark
+    public Object getRecordsByDate() throws Exception {
+        return target.getRecordsByDate(next(records).dateTime);
+    }
+
+    @Benchmark
+    public Object getRecordsByWeight() throws Exception {
+        return target.getRecordsByWeight(next(records).weight);
+    }
+
+    @Benchmark
+    public Object getRecordsByRevenue() throws Exception {
+        return target.getRecordsByRevenue(next(sells).revenue);
+    }
+
+    @Benchmark
+    public Object getRecordsByLocation() throws Exception {
+        SampleRecord record = next(catches);
+        return target.getRecordsByLocation(record.latitude, record.longitude);
+    }
+}
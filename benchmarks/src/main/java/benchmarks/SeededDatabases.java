@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Class: SeededDatabases
+ *
+ * Description: Makes the databases the benchmarks run against, each in its own temporary folder rather than in
+ * %APPDATA%. Even in bulk, seeding a million records takes a while, so a seeded database is built once, as a
+ * template under the fishing.benchmarkDir system property (java.io.tmpdir/fishing-benchmarks by default), and
+ * copied for every trial that wants one. Templates are named after the target's fingerprint, so a change to the database code
+ * builds new ones instead of reusing databases it might not have built the same way.
+ *
+ * Date: 17/10/2026
+ */
+public final class SeededDatabases {
+
+    //the same records are seeded for every run, so results can be compared across commits
+    public static final long SEED = 17102026L;
+
+    private SeededDatabases() {
+    }
+
+    public static Path root() {
+        return Paths.get(System.getProperty("fishing.benchmarkDir", Paths.get(System.getProperty("java.io.tmpdir"), "fishing-benchmarks").toString()));
+    }
+
+    /**
+     * Method: seeded(DatabaseTarget target, int catches, int sells)
+     *
+     * Description: Returns a new temporary folder holding a copy of a database seeded with the given numbers of
+     * catch and selling records, building the template first if it hasn't been built yet. The target is left
+     * closed.
+     * Throws an Exception if the template can't be built or copied.
+     *
+     * Date: 17/10/2026
+     */
+    public static Path seeded(DatabaseTarget target, int catches, int sells) throws Exception {
+        Path template = root().resolve(String.format("%s-%dc-%ds", target.fingerprint(), catches, sells));
+        if (Files.notExists(template)) {
+            Files.createDirectories(root());
+            Path building = Files.createTempDirectory(root(), template.getFileName() + ".building-");
+            try {
+                target.open(building);
+                target.seed(catches, sells, SEED);
+            } finally {
+                target.close();
+            }
+            try {
+                Files.move(building, template, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                //another run built the same template at the same time
+                delete(building);
+            }
+        }
+
+        Path copy = empty();
+        try (Stream<Path> files = Files.list(template)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, copy.resolve(file.getFileName()));
+            }
+        }
+        return copy;
+    }
+
+    //a new temporary folder for a database that hasn't been built yet
+    public static Path empty() throws IOException {
+        return Files.createTempDirectory("fishing-benchmark-");
+    }
+
+    public static void delete(Path folder) throws IOException {
+        if (folder == null || Files.notExists(folder)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(folder)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Class: AsyncDatabase
+ *
+ * Description: Runs calls to a RecordStore in the background and returns CompletableFutures, so the JavaFX
+ * application thread never waits on the database. Reads run concurrently on a shared executor, which uses virtual
+ * threads when the Java runtime has them and a small pool of daemon threads otherwise. Writes run on the same
+ * executor but strictly one after another in the order they were submitted, since SQLite only allows one writer
+ * at a time and an edit must never overtake an earlier edit to the same record. onFxThread() hands a result back
+ * to the application thread, and busyProperty() is true while any call made through this object is running, for
+ * binding a busy indicator to. Records read through submit() are given any edits still waiting in the database's
+ * EditQueue as they're read, but searches, counts and totals are worked out by SQLite, so those go through
+ * submitCommitted(), which writes the waiting edits first.
+ *
+ * Date: 17/10/2026
+ */
+public class AsyncDatabase {
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+    private static final Object WRITE_LOCK = new Object();
+    //the most recently submitted write, which the next write waits for
+    private static CompletableFuture<?> lastWrite = CompletableFuture.completedFuture(null);
+
+    private final RecordStore db;
+    private final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(false);
+    //only changed on the application thread
+    private int running = 0;
+
+    public AsyncDatabase(RecordStore db) {
+        this.db = db;
+    }
+
+    public RecordStore getDatabase() {
+        return db;
+    }
+
+    /**
+     * Method: submit(DatabaseCall<T> call)
+     *
+     * Description: Runs a read in the background, alongside any other reads, and returns its result.
+     *
+     * Date: 17/10/2026
+     */
+    public <T> CompletableFuture<T> submit(DatabaseCall<T> call) {
+        return track(run(() -> call.call(db)));
+    }
+
+    /**
+     * Method: submitCommitted(DatabaseCall<T> call)
+     *
+     * Description: Runs a read in the background once any edits still waiting in the EditQueue have been written,
+     * for reads that SQLite works out from the records rather than returning them, such as searches and totals.
+     *
+     * Date: 17/10/2026
+     */
+    public <T> CompletableFuture<T> submitCommitted(DatabaseCall<T> call) {
+        return track(run(() -> {
+            db.getEditQueue().flush();
+            return call.call(db);
+        }));
+    }
+
+    /**
+     * Method: submitWrite(DatabaseCall<T> call)
+     *
+     * Description: Runs a write in the background once every write submitted before it has finished, and returns
+     * its result. A write that fails doesn't stop the writes after it.
+     *
+     * Date: 17/10/2026
+     */
+    public <T> CompletableFuture<T> submitWrite(DatabaseCall<T> call) {
+        CompletableFuture<T> future;
+        synchronized (WRITE_LOCK) {
+            future = lastWrite.handle((result, error) -> null).thenApplyAsync(ignored -> {
+                try {
+                    return call.call(db);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, EXECUTOR);
+            lastWrite = future;
+        }
+        return track(future);
+    }
+
+    public CompletableFuture<Void> write(DatabaseAction action) {
+        return submitWrite(db -> {
+            action.run(db);
+            return null;
+        });
+    }
+
+    //writes any queued edits now rather than waiting, for when the user leaves the page they were made on
+    public CompletableFuture<Integer> flushEdits() {
+        return submitWrite(db -> db.getEditQueue().flush());
+    }
+
+    /**
+     * Method: close()
+     *
+     * Description: Closes the database once the writes already submitted have finished.
+     *
+     * Date: 17/10/2026
+     */
+    public CompletableFuture<Void> close() {
+        return write(RecordStore::close);
+    }
+
+    public ReadOnlyBooleanProperty busyProperty() {
+        return busy.getReadOnlyProperty();
+    }
+
+    /**
+     * Method: supply(Callable<T> call)
+     *
+     * Description: Runs any slow call in the background on the database executor, for work that doesn't have a
+     * RecordStore yet, such as opening one. It waits for the writes already submitted to finish first, so a store
+     * being closed on logging out has let go of its files before it's opened again.
+     *
+     * Date: 17/10/2026
+     */
+    public static <T> CompletableFuture<T> supply(Callable<T> call) {
+        CompletableFuture<?> writes;
+        synchronized (WRITE_LOCK) {
+            writes = lastWrite;
+        }
+        return writes.handle((result, error) -> null).thenApplyAsync(ignored -> {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    private static <T> CompletableFuture<T> run(Callable<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * Method: onFxThread(CompletableFuture<T> future, Consumer<? super T> onSuccess, Consumer<? super Throwable> onFailure)
+     *
+     * Description: Passes the result of a background call to onSuccess, or the exception it threw to onFailure,
+     * on the JavaFX application thread once it has finished, so either may update the UI.
+     *
+     * Date: 17/10/2026
+     */
+    public static <T> void onFxThread(CompletableFuture<T> future, Consumer<? super T> onSuccess, Consumer<? super Throwable> onFailure) {
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                onFailure.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        }));
+    }
+
+    private <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        runOnFxThread(() -> busy.set(++running > 0));
+        future.whenComplete((result, error) -> runOnFxThread(() -> busy.set(--running > 0)));
+        return future;
+    }
+
+    private static void runOnFxThread(Runnable runnable) {
+        if (Platform.isFxApplicationThread()) {
+            runnable.run();
+        } else {
+            Platform.runLater(runnable);
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            //Executors.newVirtualThreadPerTaskExecutor() only exists on newer versions of Java
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            AtomicInteger threads = new AtomicInteger();
+            //there's no point running more queries at once than there are pooled connections
+            return Executors.newFixedThreadPool(ConnectionPool.DEFAULT_POOL_SIZE, runnable -> {
+                Thread thread = new Thread(runnable, "database-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Class: DatabaseCall
+     *
+     * Description: A call to make against the database in the background, which returns a result.
+     *
+     * Date: 17/10/2026
+     */
+    public interface DatabaseCall<T> {
+        T call(RecordStore db) throws Exception;
+    }
+
+    public interface DatabaseAction {
+        void run(RecordStore db) throws Exception;
+    }
+}
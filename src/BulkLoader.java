@@ -0,0 +1,331 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class: BulkLoader
+ *
+ * Description: Writes very large numbers of catch and selling records into a LocalDatabase, for any users, in a
+ * single transaction. It's several times faster than inputRecordBatch() because it doesn't do any of the per row
+ * work that keeps the derived data up to date:
+ *
+ * - record_ids are handed out here rather than generated by SQLite, so the records rows go in as JDBC batches
+ *   instead of one at a time,
+ * - the location, price and stock triggers are dropped for the length of the load, and the catches_location,
+ *   revenue_per_kg and user_stock rows they would have written are calculated once for the whole load instead,
+ * - foreign keys aren't checked (every user is checked once when it's first seen), and the connection is given a
+ *   larger page cache so index inserts don't keep spilling to disk,
+ * - when the database has no records to begin with, as when a test database is being built, the indexes on
+ *   records, catches and sells are dropped too and built again once everything has been added.
+ *
+ * The triggers are recreated in the same transaction, so other connections never see the database without them.
+ * The loader holds the database's write lock from when it's opened until it's committed or closed, so users must
+ * be added beforehand, and nothing else can write in the meantime. Closing a loader that hasn't been committed
+ * rolls everything back.
+ *
+ * Date: 17/10/2026
+ */
+public class BulkLoader implements AutoCloseable {
+
+    public static final int BATCH_SIZE = 10000;
+    //in KiB, as a negative cache_size means
+    private static final int CACHE_SIZE = 256 * 1024;
+
+    private final LocalDatabase db;
+    private final ConnectionPool.PooledConnection connection;
+    private final Connection jdbc;
+    private final Map<Integer, Totals> totals = new HashMap<>();
+    private final Set<Integer> users = new HashSet<>();
+    //the indexes dropped for the load, to be recreated from these CREATE INDEX statements
+    private final List<String> droppedIndexes = new ArrayList<>();
+    //SQLite's default, in case the load fails before the connection's own setting is read
+    private long previousCacheSize = -2000;
+    private int firstRecordId;
+    private int nextRecordId;
+    private int pending = 0;
+    private boolean open = true;
+
+    private PreparedStatement recordStatement;
+    private PreparedStatement catchStatement;
+    private PreparedStatement sellStatement;
+
+    public BulkLoader(LocalDatabase db) throws SQLException {
+        this.db = db;
+        this.connection = db.getConnectionPool().acquire();
+        this.jdbc = connection.getConnection();
+        try {
+            begin();
+        } catch (SQLException | RuntimeException e) {
+            finish(false);
+            throw e;
+        }
+    }
+
+    private void begin() throws SQLException {
+        //neither pragma has any effect inside a transaction
+        try (Statement statement = jdbc.createStatement()) {
+            try (ResultSet results = statement.executeQuery("PRAGMA cache_size;")) {
+                if (results.next()) {
+                    previousCacheSize = results.getLong(1);
+                }
+            }
+            statement.execute("PRAGMA cache_size = -" + CACHE_SIZE + ";");
+            statement.execute("PRAGMA foreign_keys = OFF;");
+        }
+        jdbc.setAutoCommit(false);
+
+        try (Statement statement = jdbc.createStatement()) {
+            for (String trigger : SchemaMigrations.MAINTENANCE_TRIGGERS) {
+                statement.executeUpdate("DROP TRIGGER IF EXISTS " + trigger + ";");
+            }
+            //dropping the triggers took the write lock, so no one else can use these ids before the load commits.
+            //records is AUTOINCREMENT, so ids of deleted records aren't reused either
+            try (ResultSet results = statement.executeQuery(
+                    "SELECT MAX(COALESCE((SELECT seq FROM sqlite_sequence WHERE name = 'records'), 0), " +
+                            "COALESCE((SELECT MAX(record_id) FROM records), 0));")) {
+                results.next();
+                firstRecordId = results.getInt(1) + 1;
+            }
+
+            //building an index from scratch is a sort, which is much quicker than inserting the rows into it one
+            //at a time, but only worth it if the load is most of what's going to be in it
+            boolean empty;
+            try (ResultSet results = statement.executeQuery("SELECT NOT EXISTS (SELECT 1 FROM records);")) {
+                empty = results.next() && results.getBoolean(1);
+            }
+            if (empty) {
+                List<String> names = new ArrayList<>();
+                try (ResultSet results = statement.executeQuery(
+                        "SELECT name, sql FROM sqlite_master WHERE type = 'index' AND sql IS NOT NULL AND tbl_name IN ('records', 'catches', 'sells');")) {
+                    while (results.next()) {
+                        names.add(results.getString(1));
+                        droppedIndexes.add(results.getString(2));
+                    }
+                }
+                for (String name : names) {
+                    statement.executeUpdate("DROP INDEX " + name + ";");
+                }
+            }
+        }
+        nextRecordId = firstRecordId;
+
+        recordStatement = connection.prepare("INSERT INTO records (record_id, user_id, weight, datetime) VALUES (?, ?, ?, ?);");
+        catchStatement = connection.prepare("INSERT INTO catches (record_id, latitude, longitude) VALUES (?, ?, ?);");
+        sellStatement = connection.prepare("INSERT INTO sells (record_id, revenue, revenue_per_kg) VALUES (?, ?, ?);");
+    }
+
+    /**
+     * Method: addCatch(int user_id, LocalDateTime dateTime, double weight, double latitude, double longitude)
+     *
+     * Description: Adds a catch record for the given user, and returns the record_id it will have once the load
+     * is committed.
+     * Throws an SQLException if the user doesn't exist or the record can't be written.
+     *
+     * Date: 17/10/2026
+     */
+    public int addCatch(int user_id, LocalDateTime dateTime, double weight, double latitude, double longitude) throws SQLException {
+        int record_id = addRecord(user_id, dateTime, weight);
+        catchStatement.setInt(1, record_id);
+        catchStatement.setDouble(2, latitude);
+        catchStatement.setDouble(3, longitude);
+        catchStatement.addBatch();
+
+        Totals userTotals = totals.get(user_id);
+        userTotals.caught += weight;
+        userTotals.catchCount++;
+        flushIfFull();
+        return record_id;
+    }
+
+    /**
+     * Method: addSell(int user_id, LocalDateTime dateTime, double weight, double revenue)
+     *
+     * Description: Adds a selling record for the given user, and returns the record_id it will have once the load
+     * is committed.
+     * Throws an SQLException if the user doesn't exist or the record can't be written.
+     *
+     * Date: 17/10/2026
+     */
+    public int addSell(int user_id, LocalDateTime dateTime, double weight, double revenue) throws SQLException {
+        int record_id = addRecord(user_id, dateTime, weight);
+        sellStatement.setInt(1, record_id);
+        sellStatement.setDouble(2, revenue);
+        //as sells_price_insert would, where SQLite gives NULL for a division by zero
+        if (weight == 0) {
+            sellStatement.setNull(3, Types.REAL);
+        } else {
+            sellStatement.setDouble(3, revenue / weight);
+        }
+        sellStatement.addBatch();
+
+        Totals userTotals = totals.get(user_id);
+        userTotals.sold += weight;
+        userTotals.sellCount++;
+        flushIfFull();
+        return record_id;
+    }
+
+    private int addRecord(int user_id, LocalDateTime dateTime, double weight) throws SQLException {
+        if (!open) {
+            throw new IllegalStateException("The bulk load has already been committed or closed");
+        }
+        if (!users.contains(user_id)) {
+            checkUser(user_id);
+        }
+        int record_id = nextRecordId++;
+        recordStatement.setInt(1, record_id);
+        recordStatement.setInt(2, user_id);
+        recordStatement.setDouble(3, weight);
+        recordStatement.setLong(4, LocalDatabase.toEpoch(dateTime));
+        recordStatement.addBatch();
+        return record_id;
+    }
+
+    //foreign keys are off, so this is the only thing stopping records being added for a user that doesn't exist
+    private void checkUser(int user_id) throws SQLException {
+        PreparedStatement statement = connection.prepare("SELECT 1 FROM users WHERE user_id = ?;");
+        statement.setInt(1, user_id);
+        try (ResultSet results = statement.executeQuery()) {
+            if (!results.next()) {
+                throw new SQLException("There's no user with user_id " + user_id);
+            }
+        }
+        users.add(user_id);
+        totals.put(user_id, new Totals());
+    }
+
+    private void flushIfFull() throws SQLException {
+        if (++pending == BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() throws SQLException {
+        recordStatement.executeBatch();
+        catchStatement.executeBatch();
+        sellStatement.executeBatch();
+        pending = 0;
+    }
+
+    /**
+     * Method: getRecordCount()
+     *
+     * Description: Returns the number of records added so far.
+     *
+     * Date: 17/10/2026
+     */
+    public int getRecordCount() {
+        return nextRecordId - firstRecordId;
+    }
+
+    /**
+     * Method: commit()
+     *
+     * Description: Rebuilds any indexes that were dropped, writes the catches_location rows and stock totals for everything that's been added, puts the
+     * triggers back and commits, and returns the number of records added. The loader can't be used afterwards.
+     * Throws an SQLException if the load couldn't be committed, in which case nothing is written.
+     *
+     * Date: 17/10/2026
+     */
+    public int commit() throws SQLException {
+        if (!open) {
+            throw new IllegalStateException("The bulk load has already been committed or closed");
+        }
+        boolean committed = false;
+        try {
+            flush();
+
+            try (Statement indexes = jdbc.createStatement()) {
+                for (String sql : droppedIndexes) {
+                    indexes.executeUpdate(sql);
+                }
+            }
+
+            PreparedStatement statement = connection.prepare(
+                    "INSERT OR REPLACE INTO catches_location SELECT record_id, latitude, latitude, longitude, longitude FROM catches WHERE record_id >= ?;");
+            statement.setInt(1, firstRecordId);
+            statement.executeUpdate();
+
+            statement = connection.prepare(
+                    "INSERT INTO user_stock (user_id, caught, sold, catch_count, sell_count) VALUES (?, ?, ?, ?, ?) " +
+                            "ON CONFLICT (user_id) DO UPDATE SET caught = caught + excluded.caught, sold = sold + excluded.sold, " +
+                            "catch_count = catch_count + excluded.catch_count, sell_count = sell_count + excluded.sell_count;");
+            for (Map.Entry<Integer, Totals> entry : totals.entrySet()) {
+                Totals userTotals = entry.getValue();
+                statement.setInt(1, entry.getKey());
+                statement.setDouble(2, userTotals.caught);
+                statement.setDouble(3, userTotals.sold);
+                statement.setInt(4, userTotals.catchCount);
+                statement.setInt(5, userTotals.sellCount);
+                statement.executeUpdate();
+            }
+
+            try (Statement triggers = jdbc.createStatement()) {
+                SchemaMigrations.createCatchLocationTriggers(triggers);
+                SchemaMigrations.createSellPriceTriggers(triggers);
+                SchemaMigrations.createStockTriggers(triggers);
+            }
+            jdbc.commit();
+            committed = true;
+            db.getHeatmapCache().invalidate();
+            return getRecordCount();
+        } finally {
+            finish(committed);
+        }
+    }
+
+    /**
+     * Method: close()
+     *
+     * Description: Rolls back everything that's been added if the load hasn't been committed, and hands the
+     * connection back to the pool.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public void close() throws SQLException {
+        if (open) {
+            finish(false);
+        }
+    }
+
+    //puts the connection back the way it was found, rolling back unless the load was committed
+    private void finish(boolean committed) throws SQLException {
+        open = false;
+        try {
+            if (!committed && !jdbc.getAutoCommit()) {
+                if (recordStatement != null) {
+                    recordStatement.clearBatch();
+                    catchStatement.clearBatch();
+                    sellStatement.clearBatch();
+                }
+                jdbc.rollback();
+            }
+            jdbc.setAutoCommit(true);
+            try (Statement statement = jdbc.createStatement()) {
+                statement.execute("PRAGMA foreign_keys = ON;");
+                statement.execute("PRAGMA cache_size = " + previousCacheSize + ";");
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    //the weight and number of records added for one user
+    private static class Totals {
+        private double caught = 0;
+        private double sold = 0;
+        private int catchCount = 0;
+        private int sellCount = 0;
+    }
+}
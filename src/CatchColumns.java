@@ -0,0 +1,82 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Class: CatchColumns
+ *
+ * Description: A snapshot of a user's catch records as parallel arrays, returned by
+ * LocalDatabase.getCatchColumns(). Adds the latitude and longitude of each catch to the columns every snapshot has.
+ *
+ * Date: 17/10/2026
+ */
+public class CatchColumns extends RecordColumns {
+
+    private double[] latitude;
+    private double[] longitude;
+
+    CatchColumns(int capacity) {
+        super(capacity);
+        latitude = new double[capacity];
+        longitude = new double[capacity];
+    }
+
+    @Override
+    void readColumns(ResultSet results, int index) throws SQLException {
+        latitude[index] = results.getDouble(4);
+        longitude[index] = results.getDouble(5);
+    }
+
+    //adds a catch after the last one, for snapshots that aren't read from the database
+    void add(int record_id, long epoch, double weight, double latitude, double longitude) {
+        int index = append(record_id, epoch, weight);
+        this.latitude[index] = latitude;
+        this.longitude[index] = longitude;
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        super.resize(capacity);
+        latitude = Arrays.copyOf(latitude, capacity);
+        longitude = Arrays.copyOf(longitude, capacity);
+    }
+
+    public double[] getLatitudes() {
+        return latitude;
+    }
+
+    public double[] getLongitudes() {
+        return longitude;
+    }
+
+    /**
+     * Method: countInArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude)
+     *
+     * Description: Returns how many catches were made inside the given latitudes and longitudes inclusive, scanning
+     * the columns in parallel when there are enough of them.
+     *
+     * Date: 17/10/2026
+     */
+    public long countInArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        return indexes(0, size).filter(inArea(minLatitude, maxLatitude, minLongitude, maxLongitude)).count();
+    }
+
+    /**
+     * Method: getTotalWeightInArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude)
+     *
+     * Description: Returns the total weight of the catches made inside the given latitudes and longitudes
+     * inclusive, scanning the columns in parallel when there are enough of them.
+     *
+     * Date: 17/10/2026
+     */
+    public double getTotalWeightInArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        return indexes(0, size).filter(inArea(minLatitude, maxLatitude, minLongitude, maxLongitude)).mapToDouble(i -> weight[i]).sum();
+    }
+
+    private IntPredicate inArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        double[] latitude = this.latitude;
+        double[] longitude = this.longitude;
+        return i -> latitude[i] >= minLatitude && latitude[i] <= maxLatitude && longitude[i] >= minLongitude && longitude[i] <= maxLongitude;
+    }
+}
@@ -0,0 +1,250 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class: CatchHeatmap
+ *
+ * Description: How much weight was caught in each cell of a grid laid over the world, for showing where a user's
+ * catches come from. At zoom level z the world is split into 2^z rows of latitude by 2^z columns of longitude, so
+ * each step in zoom halves the size of a cell; only cells with catches in are kept. Cells are numbered
+ * row * 2^z + column, counting from the south west corner.
+ *
+ * A heatmap is built from a CatchColumns snapshot by a fork/join reduction: the catches are split in halves until
+ * each part is small enough to bin into a hash table of cells on its own, and the tables are added together as
+ * the parts finish.
+ *
+ * Date: 17/10/2026
+ */
+public class CatchHeatmap {
+
+    public static final int MAX_ZOOM = 16;
+    //each fork/join task bins at most this many catches itself rather than splitting them
+    static final int LEAF_SIZE = 1 << 14;
+
+    private final int zoom;
+    private final long[] cells;
+    private final double[] weight;
+    private final int[] count;
+    private final double maxWeight;
+
+    private CatchHeatmap(int zoom, CellTable table) {
+        this.zoom = zoom;
+        this.cells = new long[table.size];
+        this.weight = new double[table.size];
+        this.count = new int[table.size];
+        int n = 0;
+        double max = 0;
+        for (int slot = 0; slot < table.keys.length; slot++) {
+            if (table.keys[slot] != CellTable.EMPTY) {
+                cells[n] = table.keys[slot];
+                weight[n] = table.weights[slot];
+                count[n] = table.counts[slot];
+                max = Math.max(max, weight[n]);
+                n++;
+            }
+        }
+        this.maxWeight = max;
+    }
+
+    /**
+     * Method: build(CatchColumns catches, int zoom)
+     *
+     * Description: Bins every catch in the snapshot into the grid for the given zoom level, weighted by how much
+     * was caught, on the common fork/join pool.
+     * Throws an IllegalArgumentException if the zoom level isn't between 0 and MAX_ZOOM.
+     *
+     * Date: 17/10/2026
+     */
+    public static CatchHeatmap build(CatchColumns catches, int zoom) {
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("The zoom level must be between 0 and " + MAX_ZOOM);
+        }
+        CellTable table = ForkJoinPool.commonPool().invoke(new BinTask(catches.getLatitudes(), catches.getLongitudes(), catches.getWeights(), zoom, 0, catches.size()));
+        return new CatchHeatmap(zoom, table);
+    }
+
+    /**
+     * Method: cellOf(double latitude, double longitude, int zoom)
+     *
+     * Description: Returns the number of the cell a point falls in at the given zoom level. Points on or beyond
+     * the edge of the world are put in the nearest cell.
+     *
+     * Date: 17/10/2026
+     */
+    public static long cellOf(double latitude, double longitude, int zoom) {
+        int side = 1 << zoom;
+        int row = (int) Math.min(side - 1, Math.max(0, Math.floor((latitude + 90) / 180 * side)));
+        int column = (int) Math.min(side - 1, Math.max(0, Math.floor((longitude + 180) / 360 * side)));
+        return (long) row * side + column;
+    }
+
+    public int getZoom() {
+        return zoom;
+    }
+
+    //how many cells have catches in
+    public int size() {
+        return cells.length;
+    }
+
+    public long getCell(int index) {
+        return cells[index];
+    }
+
+    public double getWeight(int index) {
+        return weight[index];
+    }
+
+    public int getCount(int index) {
+        return count[index];
+    }
+
+    public double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public double getTotalWeight() {
+        return Arrays.stream(weight).sum();
+    }
+
+    //the height of a cell in degrees of latitude
+    public double getCellHeight() {
+        return 180.0 / (1 << zoom);
+    }
+
+    //the width of a cell in degrees of longitude
+    public double getCellWidth() {
+        return 360.0 / (1 << zoom);
+    }
+
+    //the southern edge of a cell
+    public double getMinLatitude(int index) {
+        return -90 + (cells[index] >> zoom) * getCellHeight();
+    }
+
+    //the western edge of a cell
+    public double getMinLongitude(int index) {
+        return -180 + (cells[index] & ((1L << zoom) - 1)) * getCellWidth();
+    }
+
+    public String toString() {
+        return String.format("zoom %d heatmap of %d cells, heaviest %skg", zoom, cells.length, maxWeight);
+    }
+
+    /**
+     * Class: BinTask
+     *
+     * Description: Bins one range of the catches, by splitting it in two and adding up the halves' tables once
+     * they're done, or binning it directly once it's no bigger than LEAF_SIZE.
+     *
+     * Date: 17/10/2026
+     */
+    private static class BinTask extends RecursiveTask<CellTable> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] latitude;
+        private final double[] longitude;
+        private final double[] weight;
+        private final int zoom;
+        private final int from;
+        private final int to;
+
+        private BinTask(double[] latitude, double[] longitude, double[] weight, int zoom, int from, int to) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.weight = weight;
+            this.zoom = zoom;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CellTable compute() {
+            if (to - from <= LEAF_SIZE) {
+                CellTable table = new CellTable(64);
+                for (int i = from; i < to; i++) {
+                    table.add(cellOf(latitude[i], longitude[i], zoom), weight[i], 1);
+                }
+                return table;
+            }
+            int middle = (from + to) >>> 1;
+            BinTask left = new BinTask(latitude, longitude, weight, zoom, from, middle);
+            left.fork();
+            CellTable right = new BinTask(latitude, longitude, weight, zoom, middle, to).compute();
+            return CellTable.merge(left.join(), right);
+        }
+    }
+
+    /**
+     * Class: CellTable
+     *
+     * Description: A hash table from cell number to the weight and number of catches in that cell, held in
+     * primitive arrays (open addressing with linear probing) so binning a catch never allocates.
+     *
+     * Date: 17/10/2026
+     */
+    private static class CellTable {
+        private static final long EMPTY = -1;
+
+        private long[] keys;
+        private double[] weights;
+        private int[] counts;
+        private int size = 0;
+
+        private CellTable(int capacity) {
+            allocate(Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            weights = new double[capacity];
+            counts = new int[capacity];
+        }
+
+        private void add(long key, double weight, int count) {
+            int mask = keys.length - 1;
+            //a cheap mix of the bits, since neighbouring cells have consecutive numbers
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            weights[slot] += weight;
+            counts[slot] += count;
+            //kept at most half full
+            if (size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            double[] oldWeights = weights;
+            int[] oldCounts = counts;
+            allocate(capacity);
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY) {
+                    add(oldKeys[slot], oldWeights[slot], oldCounts[slot]);
+                }
+            }
+        }
+
+        //adds the smaller table into the larger one and returns it
+        private static CellTable merge(CellTable a, CellTable b) {
+            CellTable into = a.size >= b.size ? a : b;
+            CellTable from = into == a ? b : a;
+            for (int slot = 0; slot < from.keys.length; slot++) {
+                if (from.keys[slot] != EMPTY) {
+                    into.add(from.keys[slot], from.weights[slot], from.counts[slot]);
+                }
+            }
+            return into;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Class: CatchLogExporter
+ *
+ * Description: Writes the current user's records out as a catch log text file that CatchLogImporter can read back
+ * in. Rows are streamed straight from a forward only ResultSet into a large buffered writer, so no records are
+ * built up in memory, and numbers are formatted into a single reused StringBuilder rather than through
+ * String.format. The output can optionally be gzip compressed. Stores other than a LocalDatabase are written
+ * from their records instead, in the same format.
+ *
+ * Date: 17/10/2026
+ */
+public class CatchLogExporter {
+
+    public static final int FETCH_SIZE = 2000;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000};
+
+    private final RecordStore db;
+
+    public CatchLogExporter(RecordStore db) {
+        this.db = db;
+    }
+
+    /**
+     * Method: exportTo(Path file, boolean compress)
+     *
+     * Description: Writes every catch record and then every selling record belonging to the database's current
+     * user to the given file, gzip compressing it if asked to. Returns the number of records written.
+     * Throws an IOException if the file can't be written, or an SQLException if the records can't be read.
+     *
+     * Date: 17/10/2026
+     */
+    public long exportTo(Path file, boolean compress) throws IOException, SQLException {
+        OutputStream stream = Files.newOutputStream(file);
+        if (compress) {
+            stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+        }
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            if (db instanceof LocalDatabase) {
+                return exportRows((LocalDatabase) db, writer);
+            }
+            return exportRecords(writer);
+        }
+    }
+
+    //streams the rows straight from the database
+    private long exportRows(LocalDatabase db, Writer writer) throws IOException, SQLException {
+        String catchSql = "SELECT datetime, weight, latitude, longitude FROM records INNER JOIN catches ON records.record_id = catches.record_id WHERE user_id = ?;";
+        String sellSql = "SELECT datetime, weight, revenue FROM records INNER JOIN sells ON records.record_id = sells.record_id WHERE user_id = ?;";
+        long written = 0;
+        try (ConnectionPool.PooledConnection connection = db.getConnectionPool().acquire()) {
+            StringBuilder line = new StringBuilder(96);
+
+            PreparedStatement statement = connection.prepare(catchSql);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setInt(1, db.currentUser.getUser_id());
+            try (ResultSet results = statement.executeQuery()) {
+                while (results.next()) {
+                    appendCatch(line, results.getLong(1), results.getDouble(2), results.getDouble(3), results.getDouble(4));
+                    writer.append(line);
+                    written++;
+                }
+            }
+
+            statement = connection.prepare(sellSql);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setInt(1, db.currentUser.getUser_id());
+            try (ResultSet results = statement.executeQuery()) {
+                while (results.next()) {
+                    appendSell(line, results.getLong(1), results.getDouble(2), results.getDouble(3));
+                    writer.append(line);
+                    written++;
+                }
+            }
+        }
+        return written;
+    }
+
+    //any other store already holds its records in memory, so they're written from there
+    private long exportRecords(Writer writer) throws IOException, SQLException {
+        long written = 0;
+        StringBuilder line = new StringBuilder(96);
+        for (LocalDatabase.CatchRecord record : db.getAllCatchRecords()) {
+            appendCatch(line, LocalDatabase.toEpoch(record.date), record.weight, record.latitude, record.longitude);
+            writer.append(line);
+            written++;
+        }
+        for (LocalDatabase.SellRecord record : db.getAllSellRecords()) {
+            appendSell(line, LocalDatabase.toEpoch(record.date), record.weight, record.revenue);
+            writer.append(line);
+            written++;
+        }
+        return written;
+    }
+
+    //the line written for a catch, in place of whatever the builder held
+    private static void appendCatch(StringBuilder line, long epoch, double weight, double latitude, double longitude) {
+        line.setLength(0);
+        line.append(LocalDatabase.fromEpoch(epoch)).append(", ");
+        appendFixed(line, weight).append(", ");
+        appendFixed(line, latitude).append(", ");
+        appendFixed(line, longitude).append('\n');
+    }
+
+    private static void appendSell(StringBuilder line, long epoch, double weight, double revenue) {
+        line.setLength(0);
+        line.append(LocalDatabase.fromEpoch(epoch)).append(", ");
+        appendFixed(line, weight).append(", ");
+        appendFixed(line, revenue).append('\n');
+    }
+
+    /**
+     * Method: appendFixed(StringBuilder builder, double value)
+     *
+     * Description: Appends a number with six decimal places, the same as "%f", without allocating a Formatter.
+     * Numbers too large to fit in a long, and the rare numbers that sit right on a rounding boundary, fall back to
+     * String.format so the output always matches it exactly.
+     *
+     * Date: 17/10/2026
+     */
+    static StringBuilder appendFixed(StringBuilder builder, double value) {
+        double magnitude = Math.abs(value);
+        if (Double.isNaN(value) || Double.isInfinite(value) || magnitude >= 1e15) {
+            return builder.append(String.format(Locale.ROOT, "%f", value));
+        }
+
+        long whole = (long) magnitude;
+        double scaledFraction = (magnitude - whole) * 1e6;
+        double remainder = scaledFraction - Math.floor(scaledFraction);
+        //"%f" rounds the shortest decimal form of the number, which can land either side of a boundary that's
+        //within one ulp of the binary value
+        if (Math.abs(remainder - 0.5) <= Math.ulp(magnitude) * 2e6) {
+            return builder.append(String.format(Locale.ROOT, "%f", value));
+        }
+
+        long fraction = Math.round(scaledFraction);
+        if (fraction == 1000000) {
+            whole++;
+            fraction = 0;
+        }
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            builder.append('-');
+        }
+        builder.append(whole).append('.');
+        //pad the fraction out to six digits
+        for (int digits = 5; digits > 0 && fraction < POWERS_OF_TEN[digits]; digits--) {
+            builder.append('0');
+        }
+        return builder.append(fraction);
+    }
+}
@@ -0,0 +1,314 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class: CatchLogImporter
+ *
+ * Description: Imports a catch log text file into a RecordStore as a two stage pipeline. A parser thread reads
+ * and parses the file into batches which it hands over through a small bounded queue, while the calling thread
+ * writes each batch in its own transaction. Only a handful of batches are ever held in memory at once, so memory
+ * use doesn't grow with the size of the file. Lines that can't be parsed or written are rejected and reported
+ * with their line numbers instead of aborting the rest of the import.
+ *
+ * Each line is either a catch, "datetime, weight, latitude, longitude", or a sale, "datetime, weight, revenue".
+ * Files ending in .gz are decompressed as they are read.
+ *
+ * Date: 17/10/2026
+ */
+public class CatchLogImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+    //only this many rejected lines are kept in the result, the rest are just counted
+    public static final int MAX_REJECTIONS_KEPT = 1000;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final Batch END_OF_FILE = new Batch(0);
+
+    private final RecordStore db;
+    private final int batchSize;
+
+    public CatchLogImporter(RecordStore db) {
+        this(db, DEFAULT_BATCH_SIZE);
+    }
+
+    public CatchLogImporter(RecordStore db, int batchSize) {
+        this.db = db;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Method: importFile(Path file, ProgressListener listener)
+     *
+     * Description: Imports every line in the given file for the database's current user, and returns an
+     * ImportResult describing how many records were imported and which lines were rejected. The listener may be
+     * null, otherwise it's called from the calling thread after every batch is written.
+     * Throws an IOException if the file can't be read.
+     *
+     * Date: 17/10/2026
+     */
+    public ImportResult importFile(Path file, ProgressListener listener) throws IOException {
+        long fileSize = Math.max(1, Files.size(file));
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        ImportResult result = new ImportResult();
+        Parser parser = new Parser(file, queue, result);
+
+        Thread parserThread = new Thread(parser, "catch-log-parser");
+        parserThread.setDaemon(true);
+        parserThread.start();
+
+        try {
+            Batch batch;
+            while ((batch = queue.take()) != END_OF_FILE) {
+                write(batch, result);
+                if (listener != null) {
+                    listener.progress(batch.lastLineNumber, result.imported, result.getRejectedCount(),
+                            Math.min(1.0, (double) batch.charsRead / fileSize));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The import was interrupted", e);
+        } finally {
+            parser.cancelled = true;
+            queue.clear();
+        }
+
+        if (parser.failure != null) {
+            throw parser.failure;
+        }
+        return result;
+    }
+
+    private void write(Batch batch, ImportResult result) {
+        if (batch.records.isEmpty()) {
+            return;
+        }
+        try {
+            db.inputRecordBatch(batch.records);
+            result.imported += batch.records.size();
+        } catch (SQLException | RuntimeException batchError) {
+            //one bad row rolls back the whole batch, so retry the rows one at a time to find it
+            for (int i = 0; i < batch.records.size(); i++) {
+                try {
+                    db.inputRecordBatch(Collections.singletonList(batch.records.get(i)));
+                    result.imported++;
+                } catch (SQLException | RuntimeException e) {
+                    result.reject(batch.lineNumbers[i], batch.lines.get(i), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private LocalDatabase.Record parse(String line) {
+        int first = line.indexOf(',');
+        int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+        if (second < 0) {
+            throw new IllegalArgumentException("expected 3 or 4 comma separated values");
+        }
+        int third = line.indexOf(',', second + 1);
+        if (third >= 0 && line.indexOf(',', third + 1) >= 0) {
+            throw new IllegalArgumentException("expected 3 or 4 comma separated values");
+        }
+
+        LocalDateTime dateTime = LocalDateTime.parse(line.substring(0, first).trim());
+        double weight = Double.parseDouble(line.substring(first + 1, second));
+        if (third < 0) {
+            double revenue = Double.parseDouble(line.substring(second + 1));
+            return new LocalDatabase.SellRecord(dateTime, weight, revenue);
+        }
+        double latitude = Double.parseDouble(line.substring(second + 1, third));
+        double longitude = Double.parseDouble(line.substring(third + 1));
+        return new LocalDatabase.CatchRecord(dateTime, weight, latitude, longitude);
+    }
+
+    /**
+     * Class: ProgressListener
+     *
+     * Description: Receives progress updates from an import. The fraction is an estimate of how much of the file
+     * has been processed, between 0 and 1.
+     *
+     * Date: 17/10/2026
+     */
+    public interface ProgressListener {
+        void progress(long linesRead, long imported, long rejected, double fraction);
+    }
+
+    /**
+     * Class: ImportResult
+     *
+     * Description: The outcome of an import; how many records were imported, how many lines were rejected, and
+     * the first MAX_REJECTIONS_KEPT rejected lines with their line numbers and the reason they were rejected.
+     *
+     * Date: 17/10/2026
+     */
+    public static class ImportResult {
+        private long imported = 0;
+        private long rejectedCount = 0;
+        private final ArrayList<RejectedLine> rejections = new ArrayList<>();
+
+        private synchronized void reject(long lineNumber, String line, String reason) {
+            rejectedCount++;
+            if (rejections.size() < MAX_REJECTIONS_KEPT) {
+                rejections.add(new RejectedLine(lineNumber, line, reason));
+            }
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public synchronized long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        public synchronized List<RejectedLine> getRejections() {
+            return new ArrayList<>(rejections);
+        }
+
+        public String toString() {
+            return String.format("Imported %d records, rejected %d lines", imported, getRejectedCount());
+        }
+    }
+
+    public static class RejectedLine {
+        private final long lineNumber;
+        private final String line;
+        private final String reason;
+
+        public RejectedLine(long lineNumber, String line, String reason) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.reason = reason;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public String toString() {
+            return String.format("Line %d: %s (%s)", lineNumber, reason, line);
+        }
+    }
+
+    private static class Batch {
+        private final ArrayList<LocalDatabase.Record> records;
+        private final ArrayList<String> lines;
+        private final long[] lineNumbers;
+        private long lastLineNumber;
+        private long charsRead;
+
+        private Batch(int size) {
+            records = new ArrayList<>(size);
+            lines = new ArrayList<>(size);
+            lineNumbers = new long[size];
+        }
+
+        private void add(LocalDatabase.Record record, String line, long lineNumber) {
+            lineNumbers[records.size()] = lineNumber;
+            records.add(record);
+            lines.add(line);
+        }
+
+        private boolean isFull() {
+            return records.size() == lineNumbers.length;
+        }
+    }
+
+    private class Parser implements Runnable {
+        private final Path file;
+        private final BlockingQueue<Batch> queue;
+        private final ImportResult result;
+        private volatile boolean cancelled = false;
+        private volatile IOException failure = null;
+
+        private Parser(Path file, BlockingQueue<Batch> queue, ImportResult result) {
+            this.file = file;
+            this.queue = queue;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(file), StandardCharsets.UTF_8), 1 << 16)) {
+                Batch batch = new Batch(batchSize);
+                long lineNumber = 0;
+                long charsRead = 0;
+                String line;
+
+                while ((line = reader.readLine()) != null && !cancelled) {
+                    lineNumber++;
+                    charsRead += line.length() + 1;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        batch.add(parse(line), line, lineNumber);
+                    } catch (DateTimeParseException e) {
+                        result.reject(lineNumber, line, "invalid date time");
+                    } catch (IllegalArgumentException e) {
+                        //NumberFormatException is an IllegalArgumentException too
+                        result.reject(lineNumber, line, e.getMessage());
+                    }
+
+                    if (batch.isFull()) {
+                        batch.lastLineNumber = lineNumber;
+                        batch.charsRead = charsRead;
+                        hand(batch);
+                        batch = new Batch(batchSize);
+                    }
+                }
+                batch.lastLineNumber = lineNumber;
+                batch.charsRead = charsRead;
+                hand(batch);
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                hand(END_OF_FILE);
+            } catch (InterruptedException ignored) {}
+        }
+
+        //logs written by exportData(path, true) are gzip compressed
+        private InputStream open(Path file) throws IOException {
+            InputStream stream = Files.newInputStream(file);
+            if (file.getFileName().toString().endsWith(".gz")) {
+                return new GZIPInputStream(stream, 1 << 16);
+            }
+            return stream;
+        }
+
+        //waits for room in the queue, giving up if the writer has stopped
+        private void hand(Batch batch) throws InterruptedException {
+            while (!cancelled) {
+                if (queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class: ConnectionPool
+ *
+ * Description: A small pool of long-lived SQLite connections owned by a LocalDatabase. Each pooled connection
+ * keeps a cache of prepared statements keyed by their SQL text, so the database file is only opened once per
+ * connection and each statement is only parsed once per connection. Connections are borrowed with acquire()
+ * and handed back by closing the returned PooledConnection, which is intended to be used in a
+ * try-with-resources block.
+ *
+ * Date: 17/10/2026
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    public static final int DEFAULT_POOL_SIZE = 4;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private final String connectionString;
+    private final int statementCacheSize;
+    private final BlockingQueue<PooledConnection> idle;
+    private final ArrayList<PooledConnection> all = new ArrayList<>();
+    private final int maxConnections;
+    private volatile boolean closed = false;
+
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+
+    public ConnectionPool(String connectionString) {
+        this(connectionString, DEFAULT_POOL_SIZE, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    public ConnectionPool(String connectionString, int maxConnections, int statementCacheSize) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("A connection pool needs at least one connection");
+        }
+        this.connectionString = connectionString;
+        this.maxConnections = maxConnections;
+        this.statementCacheSize = statementCacheSize;
+        this.idle = new ArrayBlockingQueue<>(maxConnections);
+    }
+
+    /**
+     * Method: acquire()
+     *
+     * Description: Borrows a connection from the pool, opening a new one if the pool has not reached its maximum
+     * size yet, or waiting for another thread to hand one back otherwise. The connection is returned to the pool
+     * when the PooledConnection is closed.
+     * Throws a generic SQLException if a connection couldn't be opened or the pool has been closed.
+     *
+     * Date: 17/10/2026
+     */
+    public PooledConnection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool has been closed");
+        }
+        acquisitions.incrementAndGet();
+
+        PooledConnection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+
+        synchronized (all) {
+            if (all.size() < maxConnections) {
+                connection = new PooledConnection(DriverManager.getConnection(connectionString));
+                all.add(connection);
+                opened.incrementAndGet();
+                return connection;
+            }
+        }
+
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private void release(PooledConnection connection) {
+        if (closed) {
+            connection.closeQuietly();
+            return;
+        }
+        try {
+            //never hand out a connection that is half way through somebody else's transaction
+            if (!connection.connection.getAutoCommit()) {
+                connection.connection.rollback();
+                connection.connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            synchronized (all) {
+                all.remove(connection);
+            }
+            connection.closeQuietly();
+            return;
+        }
+        idle.offer(connection);
+    }
+
+    public int getConnectionsOpened() {
+        return opened.get();
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    public long getStatementCacheHits() {
+        return statementHits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementMisses.get();
+    }
+
+    public double getStatementCacheHitRatio() {
+        long hits = statementHits.get();
+        long total = hits + statementMisses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public String toString() {
+        return String.format("%d connections opened, %d acquisitions, %d statement cache hits, %d misses (%.1f%% hit ratio)",
+                getConnectionsOpened(), getAcquisitions(), getStatementCacheHits(), getStatementCacheMisses(),
+                getStatementCacheHitRatio() * 100);
+    }
+
+    /**
+     * Method: close()
+     *
+     * Description: Closes every connection in the pool along with their cached statements. Connections that are
+     * still borrowed are closed when they are handed back.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.closeQuietly();
+        }
+    }
+
+    /**
+     * Class: PooledConnection
+     *
+     * Description: A borrowed connection. Statements returned by prepare() belong to the cache and must not be
+     * closed by the caller; their ResultSets should still be closed. Closing the PooledConnection hands it back
+     * to the pool.
+     *
+     * Date: 17/10/2026
+     */
+    public class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final LinkedHashMap<String, PreparedStatement> statements;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            //access ordered, so the least recently used statement is dropped once the cache is full
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > statementCacheSize) {
+                        try {
+                            eldest.getValue().close();
+                        } catch (SQLException ignored) {}
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        public PreparedStatement prepare(String sql) throws SQLException {
+            return prepare(sql, Statement.NO_GENERATED_KEYS);
+        }
+
+        public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+            String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+            PreparedStatement statement = statements.get(key);
+            if (statement != null && !statement.isClosed()) {
+                statementHits.incrementAndGet();
+                statement.clearParameters();
+                return statement;
+            }
+            statementMisses.incrementAndGet();
+            statement = connection.prepareStatement(sql, autoGeneratedKeys);
+            statements.put(key, statement);
+            return statement;
+        }
+
+        /**
+         * Method: getConnection()
+         *
+         * Description: Returns the underlying JDBC connection, for transaction control and one-off statements.
+         * The connection must not be closed directly.
+         *
+         * Date: 17/10/2026
+         */
+        public Connection getConnection() {
+            return connection;
+        }
+
+        private void closeQuietly() {
+            for (PreparedStatement statement : statements.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {}
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException ignored) {}
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Class: DatasetGenerator
+ *
+ * Description: Makes up realistic looking records for load and stress testing: a number of users, each with the
+ * same number of records spread over a span of time, whose catches are clustered around a few favourite fishing
+ * grounds and whose sales sell off some of what they've caught so far. Everything comes from the seed, so the
+ * same settings always give exactly the same records, and each user's records only depend on the seed and the
+ * user's number, not on how many other users there are.
+ *
+ * The records can be written straight into a LocalDatabase through a BulkLoader, or to one catch log file per
+ * user in the format importData() reads.
+ *
+ * Date: 17/10/2026
+ */
+public class DatasetGenerator {
+
+    //generated users are called user1, user2 and so on, all with this password
+    public static final String USERNAME_PREFIX = "user";
+    public static final String PASSWORD = "password";
+    //the fishing grounds are scattered over the seas around the British Isles
+    private static final double MIN_LATITUDE = 49.5;
+    private static final double MAX_LATITUDE = 61.0;
+    private static final double MIN_LONGITUDE = -8.0;
+    private static final double MAX_LONGITUDE = 8.0;
+    private static final double KM_PER_DEGREE = 111.32;
+    //how many of the grounds each user fishes at
+    private static final int GROUNDS_PER_USER = 3;
+    //catches are log-normally distributed around this many kg, and sold for around this much a kg
+    private static final double MEDIAN_CATCH_KG = 6.0;
+    private static final double MEAN_PRICE_PER_KG = 4.5;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final long seed;
+    private final int users;
+    private final int rowsPerUser;
+    private final int sellsPerUser;
+    private final double spreadKm;
+    private final long startEpoch;
+    private final long spanNanos;
+    private final double[] groundLatitude;
+    private final double[] groundLongitude;
+
+    /**
+     * Method: DatasetGenerator(long seed, int users, int rowsPerUser, double sellFraction, int grounds, double spreadKm, LocalDateTime start, LocalDateTime end)
+     *
+     * Description: Each of the users gets rowsPerUser records between start and end, of which sellFraction (at most
+     * half, so there's always been a catch to sell since the last sale) are sales. Catches are normally
+     * distributed, with a standard deviation of spreadKm, around the grounds fishing grounds.
+     * Throws an IllegalArgumentException if any of the settings are out of range.
+     *
+     * Date: 17/10/2026
+     */
+    public DatasetGenerator(long seed, int users, int rowsPerUser, double sellFraction, int grounds, double spreadKm, LocalDateTime start, LocalDateTime end) {
+        if (users < 1 || rowsPerUser < 1) {
+            throw new IllegalArgumentException("There must be at least one user with at least one record");
+        }
+        if (!(sellFraction >= 0 && sellFraction <= 0.5)) {
+            throw new IllegalArgumentException("The fraction of records that are sales must be between 0 and 0.5");
+        }
+        if (grounds < 1 || !(spreadKm >= 0)) {
+            throw new IllegalArgumentException("There must be at least one fishing ground, with a spread of 0 km or more");
+        }
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("The time span must end after it starts");
+        }
+        this.seed = seed;
+        this.users = users;
+        this.rowsPerUser = rowsPerUser;
+        this.sellsPerUser = (int) Math.min(rowsPerUser / 2, Math.round(rowsPerUser * sellFraction));
+        this.spreadKm = spreadKm;
+        this.startEpoch = LocalDatabase.toEpoch(start);
+        this.spanNanos = Math.subtractExact(LocalDatabase.toEpoch(end), startEpoch);
+
+        Random random = new Random(seed);
+        groundLatitude = new double[grounds];
+        groundLongitude = new double[grounds];
+        for (int i = 0; i < grounds; i++) {
+            groundLatitude[i] = MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE);
+            groundLongitude[i] = MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE);
+        }
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getRowsPerUser() {
+        return rowsPerUser;
+    }
+
+    public int getSellsPerUser() {
+        return sellsPerUser;
+    }
+
+    /**
+     * Method: addUsers(LocalDatabase db)
+     *
+     * Description: Makes sure the database has a user for every generated user, adding any that are missing, and
+     * returns their user_ids in order.
+     * Throws a generic SQLException if there's an error.
+     *
+     * Date: 17/10/2026
+     */
+    public int[] addUsers(LocalDatabase db) throws SQLException {
+        int[] user_ids = new int[users];
+        for (int i = 0; i < users; i++) {
+            String username = USERNAME_PREFIX + (i + 1);
+            try {
+                user_ids[i] = db.searchForUser(username).getUser_id();
+            } catch (LocalDatabase.UserNotFoundException e) {
+                db.addUser(username, username + "@example.com", PASSWORD);
+                try {
+                    user_ids[i] = db.searchForUser(username).getUser_id();
+                } catch (LocalDatabase.UserNotFoundException impossible) {
+                    throw new SQLException("The user " + username + " wasn't added");
+                }
+            }
+        }
+        return user_ids;
+    }
+
+    /**
+     * Method: writeTo(LocalDatabase db)
+     *
+     * Description: Adds the generated users to the database if they aren't there already, and then all of their
+     * records in one bulk load. Returns the number of records written.
+     * Throws a generic SQLException if there's an error, in which case no records are written.
+     *
+     * Date: 17/10/2026
+     */
+    public long writeTo(LocalDatabase db) throws SQLException {
+        return writeTo(db, addUsers(db));
+    }
+
+    /**
+     * Method: writeTo(LocalDatabase db, int[] user_ids)
+     *
+     * Description: Writes the records of the n-th generated user for the user with the n-th of the given user_ids,
+     * which must already exist, in one bulk load. Returns the number of records written.
+     * Throws a generic SQLException if there's an error, in which case no records are written.
+     *
+     * Date: 17/10/2026
+     */
+    public long writeTo(LocalDatabase db, int[] user_ids) throws SQLException {
+        if (user_ids.length != users) {
+            throw new IllegalArgumentException("Expected " + users + " user_ids, got " + user_ids.length);
+        }
+        try (BulkLoader loader = new BulkLoader(db)) {
+            for (int i = 0; i < users; i++) {
+                int user_id = user_ids[i];
+                generate(i, new Rows() {
+                    @Override
+                    public void catchRecord(LocalDateTime dateTime, double weight, double latitude, double longitude) throws SQLException {
+                        loader.addCatch(user_id, dateTime, weight, latitude, longitude);
+                    }
+
+                    @Override
+                    public void sellRecord(LocalDateTime dateTime, double weight, double revenue) throws SQLException {
+                        loader.addSell(user_id, dateTime, weight, revenue);
+                    }
+                });
+            }
+            return loader.commit();
+        } catch (IOException e) {
+            //only writing files throws these
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Method: writeFiles(Path folder)
+     *
+     * Description: Writes each generated user's records to user1.txt, user2.txt and so on in the given folder, in
+     * the format read by importData(), and returns the number of records written. Importing a file as a user gives
+     * them the same records as writeTo() would.
+     * Throws an IOException if a file can't be written.
+     *
+     * Date: 17/10/2026
+     */
+    public long writeFiles(Path folder) throws IOException {
+        Files.createDirectories(folder);
+        StringBuilder line = new StringBuilder(96);
+        long written = 0;
+        for (int i = 0; i < users; i++) {
+            Path file = folder.resolve(USERNAME_PREFIX + (i + 1) + ".txt");
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                generate(i, new Rows() {
+                    @Override
+                    public void catchRecord(LocalDateTime dateTime, double weight, double latitude, double longitude) throws IOException {
+                        line.setLength(0);
+                        line.append(dateTime).append(", ");
+                        CatchLogExporter.appendFixed(line, weight).append(", ");
+                        CatchLogExporter.appendFixed(line, latitude).append(", ");
+                        CatchLogExporter.appendFixed(line, longitude).append('\n');
+                        writer.append(line);
+                    }
+
+                    @Override
+                    public void sellRecord(LocalDateTime dateTime, double weight, double revenue) throws IOException {
+                        line.setLength(0);
+                        line.append(dateTime).append(", ");
+                        CatchLogExporter.appendFixed(line, weight).append(", ");
+                        CatchLogExporter.appendFixed(line, revenue).append('\n');
+                        writer.append(line);
+                    }
+                });
+            } catch (SQLException e) {
+                //only writing to a database throws these
+                throw new IllegalStateException(e);
+            }
+            written += rowsPerUser;
+        }
+        return written;
+    }
+
+    /**
+     * Method: generate(int user, Rows rows)
+     *
+     * Description: Makes up the records of the user-th user (counting from 0) in time order and hands them to
+     * rows. Weights are whole tenths of a kg, prices whole pennies and positions whole millionths of a degree, so
+     * they come back exactly the same from a catch log file. Each sale is between a fifth and four fifths of the
+     * user's stock at the time, so the stock is drawn down but never goes below zero.
+     *
+     * Date: 17/10/2026
+     */
+    private void generate(int user, Rows rows) throws SQLException, IOException {
+        //mixing the user's number into the seed keeps users independent of each other
+        Random random = new Random(seed ^ (user + 1) * 0x9E3779B97F4A7C15L);
+
+        int grounds = Math.min(GROUNDS_PER_USER, groundLatitude.length);
+        int[] favourites = new int[grounds];
+        for (int i = 0; i < grounds; i++) {
+            favourites[i] = random.nextInt(groundLatitude.length);
+        }
+        double pricePerKg = Math.max(0.5, MEAN_PRICE_PER_KG + random.nextGaussian());
+
+        long step = Math.max(1, spanNanos / rowsPerUser);
+        long stockTenths = 0;
+        int catches = rowsPerUser - sellsPerUser;
+        int catchesLeft = catches;
+        for (int i = 0; i < rowsPerUser; i++) {
+            LocalDateTime dateTime = LocalDatabase.fromEpoch(startEpoch + i * step + (long) (random.nextDouble() * step));
+
+            //catches and sales are spread evenly through time, in proportion to how many of each there are
+            if (catchesLeft > 0 && (long) catchesLeft * rowsPerUser > (long) catches * (rowsPerUser - i - 1)) {
+                long weightTenths = Math.max(1, Math.round(10 * MEDIAN_CATCH_KG * Math.exp(0.7 * random.nextGaussian())));
+                //the first favourite ground is fished most, then the second, and so on
+                int ground = favourites[Math.min(grounds - 1, (int) (-Math.log(1 - random.nextDouble()) * 0.8))];
+                double latitude = groundLatitude[ground] + random.nextGaussian() * spreadKm / KM_PER_DEGREE;
+                double longitude = groundLongitude[ground] + random.nextGaussian() * spreadKm / (KM_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+                rows.catchRecord(dateTime, weightTenths / 10.0, Math.round(latitude * 1e6) / 1e6, Math.round(longitude * 1e6) / 1e6);
+                stockTenths += weightTenths;
+                catchesLeft--;
+            } else {
+                long weightTenths = Math.min(stockTenths, Math.max(1, (long) (stockTenths * (0.2 + 0.6 * random.nextDouble()))));
+                double weight = weightTenths / 10.0;
+                double revenue = Math.round(weight * pricePerKg * (0.85 + 0.3 * random.nextDouble()) * 100) / 100.0;
+                rows.sellRecord(dateTime, weight, revenue);
+                stockTenths -= weightTenths;
+            }
+        }
+    }
+
+    //where generate() puts the records it makes up
+    private interface Rows {
+        void catchRecord(LocalDateTime dateTime, double weight, double latitude, double longitude) throws SQLException, IOException;
+
+        void sellRecord(LocalDateTime dateTime, double weight, double revenue) throws SQLException, IOException;
+    }
+
+    /**
+     * Method: main(String[] args)
+     *
+     * Description: Generates a dataset from the command line, either into the database in a folder or as catch
+     * log files in a folder:
+     *
+     *     java DatasetGenerator database|files <folder> <users> <rows per user> [seed]
+     *
+     * Half the records of each user are sales, spread over the last five years, with catches around 20 grounds.
+     *
+     * Date: 17/10/2026
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4 || !(args[0].equals("database") || args[0].equals("files"))) {
+            System.err.println("Usage: DatasetGenerator database|files <folder> <users> <rows per user> [seed]");
+            System.exit(2);
+        }
+        Path folder = Paths.get(args[1]);
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        LocalDateTime end = LocalDateTime.of(2026, 1, 1, 0, 0);
+        DatasetGenerator generator = new DatasetGenerator(seed, Integer.parseInt(args[2]), Integer.parseInt(args[3]), 0.5, 20, 15, end.minusYears(5), end);
+
+        long started = System.nanoTime();
+        long written;
+        if (args[0].equals("database")) {
+            try (LocalDatabase db = new LocalDatabase(folder)) {
+                written = generator.writeTo(db);
+            }
+        } else {
+            written = generator.writeFiles(folder);
+        }
+        System.out.printf("Wrote %d records in %.1fs%n", written, (System.nanoTime() - started) / 1e9);
+    }
+}
@@ -0,0 +1,590 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class: EditQueue
+ *
+ * Description: Holds back edits made to records (for example in a table cell) and writes them to the database
+ * together a short time after the first of them, in one transaction. Repeated edits to the same value of the same
+ * record before then are coalesced, so only the last one is written. An edit changes the Record object, and the
+ * record cache, straight away, so the UI shows it immediately.
+ *
+ * Every edit is also appended to a small journal file next to the database before it's accepted, and forced to disk
+ * in the background on the queue's own thread, so the caller only waits for the operating system to take the line,
+ * not for the disk. The journal is cleared once the edits in it have been committed, and any edits left in it
+ * (because the app stopped before they were written) are replayed when the database is next opened. Edits set values rather than changing them, so replaying an edit that had already
+ * been written does no harm. If a flush fails the edits are tried again later, waiting twice as long after each
+ * failure in a row.
+ *
+ * Date: 17/10/2026
+ */
+public class EditQueue implements RecordEditor, AutoCloseable {
+
+    public static final long DEFAULT_DELAY_MILLIS = 500;
+    public static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+
+    private static final String DATETIME_SQL = "UPDATE records SET datetime = ? WHERE record_id = ?;";
+    private static final String WEIGHT_SQL = "UPDATE records SET weight = ? WHERE record_id = ?;";
+    private static final String LOCATION_SQL = "UPDATE catches SET latitude = ?, longitude = ? WHERE record_id = ?;";
+    private static final String REVENUE_SQL = "UPDATE sells SET revenue = ? WHERE record_id = ?;";
+
+    private final ConnectionPool pool;
+    private final RecordCache recordCache;
+    private final HeatmapCache heatmapCache;
+    private final Path journalPath;
+    private final long delayMillis;
+    //runs the scheduled flushes and forces the journal to disk
+    private final ScheduledExecutorService timer;
+    //only one flush writes to the database at a time
+    private final Object flushLock = new Object();
+    //held while the journal is written to, and taken before this object's monitor when both are needed
+    private final Object journalLock = new Object();
+
+    //the edits waiting to be written, by record_id
+    private LinkedHashMap<Integer, PendingEdit> pending = new LinkedHashMap<>();
+    //the edits a flush is writing, until it has finished
+    private Map<Integer, PendingEdit> writing = Map.of();
+    //the edits the last flush wrote, for records that were read while it committed them
+    private Map<Integer, PendingEdit> written = Map.of();
+    //completed by the flush that writes the edits currently pending, null when nothing is pending
+    private CompletableFuture<Integer> nextFlush = null;
+    private boolean flushScheduled = false;
+    //how many flushes in a row have failed, which sets how long to wait before the next try
+    private int failedFlushes = 0;
+    //only opened while holding journalLock
+    private volatile FileChannel journal = null;
+    private boolean forceScheduled = false;
+
+    private long editsQueued = 0;
+    private long editsCoalesced = 0;
+    private long flushes = 0;
+
+    public EditQueue(ConnectionPool pool, RecordCache recordCache, HeatmapCache heatmapCache, Path journalPath, long delayMillis) {
+        this.pool = pool;
+        this.recordCache = recordCache;
+        this.heatmapCache = heatmapCache;
+        this.journalPath = journalPath;
+        this.delayMillis = delayMillis;
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "edit-queue");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //close() writes the edits itself, but the journal writes already asked for still have to happen
+        timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.timer = timer;
+    }
+
+    /**
+     * Method: editDate(LocalDatabase.Record record, LocalDateTime newDate)
+     *
+     * Description: Queues a change to a record's date time. Returns a future that completes, with the number of
+     * records written, once the change has been committed.
+     * Throws an IOException if the change couldn't be written to the journal, in which case it isn't made.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public CompletableFuture<Integer> editDate(LocalDatabase.Record record, LocalDateTime newDate) throws IOException {
+        CompletableFuture<Integer> flushed = queue(record.record_id + " datetime " + LocalDatabase.toEpoch(newDate));
+        record.date = newDate;
+        recordCache.updated(record);
+        return flushed;
+    }
+
+    @Override
+    public CompletableFuture<Integer> editWeight(LocalDatabase.Record record, double newWeight) throws IOException {
+        CompletableFuture<Integer> flushed = queue(record.record_id + " weight " + newWeight);
+        record.weight = newWeight;
+        recordCache.updated(record);
+        return flushed;
+    }
+
+    @Override
+    public CompletableFuture<Integer> editLocation(LocalDatabase.CatchRecord record, double latitude, double longitude) throws IOException {
+        CompletableFuture<Integer> flushed = queue(record.record_id + " location " + latitude + " " + longitude);
+        record.latitude = latitude;
+        record.longitude = longitude;
+        recordCache.updated(record);
+        return flushed;
+    }
+
+    @Override
+    public CompletableFuture<Integer> editRevenue(LocalDatabase.SellRecord record, double newRevenue) throws IOException {
+        CompletableFuture<Integer> flushed = queue(record.record_id + " revenue " + newRevenue);
+        record.revenue = newRevenue;
+        recordCache.updated(record);
+        return flushed;
+    }
+
+    //drops any edits waiting to be written to a record that's being deleted
+    public synchronized void discard(int record_id) {
+        pending.remove(record_id);
+    }
+
+    /**
+     * Method: flush()
+     *
+     * Description: Writes every pending edit to the database in one transaction, and returns how many records
+     * were written. If the transaction fails the edits stay pending (behind any made in the meantime) and in the
+     * journal, to be tried again by the next flush.
+     * Throws an SQLException if the edits couldn't be written.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public int flush() throws SQLException {
+        synchronized (flushLock) {
+            LinkedHashMap<Integer, PendingEdit> edits;
+            CompletableFuture<Integer> flushed;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    //the edits it was waiting for were discarded
+                    if (nextFlush != null) {
+                        nextFlush.complete(0);
+                        nextFlush = null;
+                    }
+                    return 0;
+                }
+                edits = pending;
+                writing = edits;
+                flushed = nextFlush;
+                pending = new LinkedHashMap<>();
+                nextFlush = null;
+            }
+
+            try {
+                write(edits);
+            } catch (SQLException | RuntimeException e) {
+                synchronized (this) {
+                    writing = Map.of();
+                    for (PendingEdit edit : edits.values()) {
+                        PendingEdit newer = pending.get(edit.record_id);
+                        if (newer == null) {
+                            pending.put(edit.record_id, edit);
+                        } else {
+                            newer.fillFrom(edit);
+                        }
+                    }
+                    if (nextFlush == null) {
+                        nextFlush = new CompletableFuture<>();
+                    }
+                    failedFlushes++;
+                    scheduleFlush();
+                }
+                flushed.completeExceptionally(e);
+                throw e;
+            }
+
+            //the weights and locations the heatmaps were built from may have just changed
+            heatmapCache.invalidate();
+            synchronized (this) {
+                written = edits;
+                writing = Map.of();
+                flushes++;
+                failedFlushes = 0;
+            }
+            try {
+                rewriteJournal();
+            } catch (IOException e) {
+                //the edits are committed, a journal that wasn't cleared only means they're written again later
+                System.err.println("Couldn't clear the edit journal: " + e);
+            }
+            flushed.complete(edits.size());
+            return edits.size();
+        }
+    }
+
+    /**
+     * Method: replay()
+     *
+     * Description: Writes any edits left in the journal by a previous run that stopped before they were committed,
+     * and returns how many records were written. A last line that was only partly written is ignored.
+     * Throws an IOException if the journal can't be read, or an SQLException if the edits couldn't be written.
+     *
+     * Date: 17/10/2026
+     */
+    public int replay() throws IOException, SQLException {
+        if (Files.notExists(journalPath)) {
+            return 0;
+        }
+        List<String> lines = Files.readAllLines(journalPath, StandardCharsets.UTF_8);
+        synchronized (this) {
+            for (String line : lines) {
+                try {
+                    apply(line);
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping an unreadable edit in the journal: " + line);
+                }
+            }
+            if (!pending.isEmpty() && nextFlush == null) {
+                nextFlush = new CompletableFuture<>();
+            }
+        }
+        return flush();
+    }
+
+    /**
+     * Method: close()
+     *
+     * Description: Writes any pending edits and stops the flush timer. Edits that can't be written stay in the
+     * journal for next time, which is forced to disk before it's closed.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        timer.shutdown();
+        try {
+            timer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (journalLock) {
+            if (journal != null) {
+                try {
+                    journal.force(false);
+                    journal.close();
+                } catch (IOException ignored) {}
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * Method: read(int user_id, Collection<? extends LocalDatabase.Record> records, long flushesBefore)
+     *
+     * Description: Called with records just read from the database, and the flush count from before they were read.
+     * Gives them the values of any edits to them that haven't been committed yet, so reads don't have to flush the
+     * queue to see its edits, and puts the ones without any in the record cache. If more than one flush committed
+     * while they were being read their values can't be trusted, so none of them are cached. This is done while
+     * holding the queue's monitor, so an edit can't be queued between checking a record and caching it.
+     *
+     * Date: 17/10/2026
+     */
+    public synchronized void read(int user_id, Collection<? extends LocalDatabase.Record> records, long flushesBefore) {
+        boolean cache = flushes - flushesBefore <= 1;
+        for (LocalDatabase.Record record : records) {
+            PendingEdit committed = flushes - flushesBefore == 1 ? written.get(record.record_id) : null;
+            PendingEdit inFlight = writing.get(record.record_id);
+            PendingEdit queued = pending.get(record.record_id);
+            if (committed == null && inFlight == null && queued == null) {
+                if (cache) {
+                    recordCache.put(user_id, record);
+                }
+                continue;
+            }
+            for (PendingEdit edit : new PendingEdit[] {committed, inFlight, queued}) {
+                if (edit != null) {
+                    edit.applyTo(record);
+                }
+            }
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized long getEditsQueued() {
+        return editsQueued;
+    }
+
+    public synchronized long getEditsCoalesced() {
+        return editsCoalesced;
+    }
+
+    public synchronized long getFlushes() {
+        return flushes;
+    }
+
+    public synchronized String toString() {
+        return String.format("%d records pending, %d edits queued, %d coalesced, %d flushes",
+                pending.size(), editsQueued, editsCoalesced, flushes);
+    }
+
+    //journals an edit, adds it to the pending edits and makes sure a flush and a force of the journal are scheduled
+    private CompletableFuture<Integer> queue(String line) throws IOException {
+        synchronized (journalLock) {
+            ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+            FileChannel channel = journal();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            synchronized (this) {
+                if (apply(line)) {
+                    editsCoalesced++;
+                }
+                editsQueued++;
+                if (nextFlush == null) {
+                    nextFlush = new CompletableFuture<>();
+                }
+                scheduleFlush();
+                scheduleForce();
+                return nextFlush;
+            }
+        }
+    }
+
+    //starts the flush timer unless it's already running, waiting longer the more flushes in a row have failed
+    private synchronized void scheduleFlush() {
+        if (flushScheduled || timer.isShutdown()) {
+            return;
+        }
+        long delay = delayMillis;
+        if (failedFlushes > 0) {
+            //doubles after each failure, so a database that stays locked or full isn't tried over and over
+            delay = Math.min(Math.max(delayMillis, DEFAULT_DELAY_MILLIS) << Math.min(failedFlushes, 16), MAX_RETRY_DELAY_MILLIS);
+        }
+        flushScheduled = true;
+        try {
+            timer.schedule(() -> {
+                synchronized (this) {
+                    flushScheduled = false;
+                }
+                try {
+                    flush();
+                } catch (SQLException | RuntimeException ignored) {
+                    //reported through the future the edits were given
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            //closed in the meantime, the edits stay in the journal
+            flushScheduled = false;
+        }
+    }
+
+    //forces the journal to disk soon, once for however many edits are appended before then
+    private synchronized void scheduleForce() {
+        if (forceScheduled || timer.isShutdown()) {
+            return;
+        }
+        forceScheduled = true;
+        try {
+            timer.execute(() -> {
+                synchronized (this) {
+                    forceScheduled = false;
+                }
+                forceJournal();
+            });
+        } catch (RejectedExecutionException e) {
+            forceScheduled = false;
+        }
+    }
+
+    //not done while holding journalLock, so edits can still be appended while the disk catches up
+    private void forceJournal() {
+        FileChannel channel = journal;
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            System.err.println("Couldn't force the edit journal to disk: " + e);
+        }
+    }
+
+    //adds a journal line to the pending edits, and returns whether it replaced a value that hadn't been written yet
+    private boolean apply(String line) {
+        String[] parts = line.trim().split(" ");
+        int record_id = Integer.parseInt(parts[0]);
+        PendingEdit edit = pending.get(record_id);
+        if (edit == null) {
+            edit = new PendingEdit(record_id);
+        }
+        boolean replaced;
+        switch (parts[1]) {
+            case "datetime":
+                replaced = edit.datetime != null;
+                edit.datetime = Long.parseLong(parts[2]);
+                break;
+            case "weight":
+                replaced = edit.weight != null;
+                edit.weight = Double.parseDouble(parts[2]);
+                break;
+            case "location":
+                replaced = edit.latitude != null;
+                double latitude = Double.parseDouble(parts[2]);
+                edit.longitude = Double.parseDouble(parts[3]);
+                edit.latitude = latitude;
+                break;
+            case "revenue":
+                replaced = edit.revenue != null;
+                edit.revenue = Double.parseDouble(parts[2]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown edit " + parts[1]);
+        }
+        pending.put(record_id, edit);
+        return replaced;
+    }
+
+    private void write(Map<Integer, PendingEdit> edits) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            Connection jdbc = connection.getConnection();
+            jdbc.setAutoCommit(false);
+            try {
+                PreparedStatement datetimes = connection.prepare(DATETIME_SQL);
+                PreparedStatement weights = connection.prepare(WEIGHT_SQL);
+                PreparedStatement locations = connection.prepare(LOCATION_SQL);
+                PreparedStatement revenues = connection.prepare(REVENUE_SQL);
+
+                for (PendingEdit edit : edits.values()) {
+                    if (edit.datetime != null) {
+                        datetimes.setLong(1, edit.datetime);
+                        datetimes.setInt(2, edit.record_id);
+                        datetimes.addBatch();
+                    }
+                    if (edit.weight != null) {
+                        weights.setDouble(1, edit.weight);
+                        weights.setInt(2, edit.record_id);
+                        weights.addBatch();
+                    }
+                    if (edit.latitude != null) {
+                        locations.setDouble(1, edit.latitude);
+                        locations.setDouble(2, edit.longitude);
+                        locations.setInt(3, edit.record_id);
+                        locations.addBatch();
+                    }
+                    if (edit.revenue != null) {
+                        revenues.setDouble(1, edit.revenue);
+                        revenues.setInt(2, edit.record_id);
+                        revenues.addBatch();
+                    }
+                }
+
+                datetimes.executeBatch();
+                weights.executeBatch();
+                locations.executeBatch();
+                revenues.executeBatch();
+                jdbc.commit();
+            } catch (SQLException | RuntimeException e) {
+                jdbc.rollback();
+                throw e;
+            } finally {
+                jdbc.setAutoCommit(true);
+            }
+        }
+    }
+
+    //replaces the journal with just the edits still pending, which is usually none
+    private void rewriteJournal() throws IOException {
+        FileChannel channel;
+        synchronized (journalLock) {
+            StringBuilder lines = new StringBuilder();
+            synchronized (this) {
+                for (PendingEdit edit : pending.values()) {
+                    edit.appendTo(lines);
+                }
+            }
+            channel = journal();
+            channel.truncate(0);
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        channel.force(false);
+    }
+
+    private FileChannel journal() throws IOException {
+        if (journal == null) {
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return journal;
+    }
+
+    /**
+     * Class: PendingEdit
+     *
+     * Description: The values of one record that have been edited but not written yet. A value that hasn't been
+     * edited is null.
+     *
+     * Date: 17/10/2026
+     */
+    private static class PendingEdit {
+        private final int record_id;
+        private Long datetime;
+        private Double weight;
+        private Double latitude;
+        private Double longitude;
+        private Double revenue;
+
+        private PendingEdit(int record_id) {
+            this.record_id = record_id;
+        }
+
+        //takes the values of an older edit to the same record that this one didn't change
+        private void fillFrom(PendingEdit older) {
+            if (datetime == null) {
+                datetime = older.datetime;
+            }
+            if (weight == null) {
+                weight = older.weight;
+            }
+            if (latitude == null) {
+                latitude = older.latitude;
+                longitude = older.longitude;
+            }
+            if (revenue == null) {
+                revenue = older.revenue;
+            }
+        }
+
+        private void applyTo(LocalDatabase.Record record) {
+            if (datetime != null) {
+                record.date = LocalDatabase.fromEpoch(datetime);
+            }
+            if (weight != null) {
+                record.weight = weight;
+            }
+            if (latitude != null && record instanceof LocalDatabase.CatchRecord) {
+                ((LocalDatabase.CatchRecord) record).latitude = latitude;
+                ((LocalDatabase.CatchRecord) record).longitude = longitude;
+            }
+            if (revenue != null && record instanceof LocalDatabase.SellRecord) {
+                ((LocalDatabase.SellRecord) record).revenue = revenue;
+            }
+        }
+
+        private void appendTo(StringBuilder lines) {
+            if (datetime != null) {
+                lines.append(record_id).append(" datetime ").append(datetime).append('\n');
+            }
+            if (weight != null) {
+                lines.append(record_id).append(" weight ").append(weight).append('\n');
+            }
+            if (latitude != null) {
+                lines.append(record_id).append(" location ").append(latitude).append(' ').append(longitude).append('\n');
+            }
+            if (revenue != null) {
+                lines.append(record_id).append(" revenue ").append(revenue).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.HashMap;
+
+/**
+ * Class: HeatmapCache
+ *
+ * Description: The catch heatmaps a LocalDatabase has already built for one user, by zoom level, along with the
+ * CatchColumns snapshot they were built from so another zoom level doesn't have to read the catches again. Anything
+ * that changes a catch's weight or location, adds one or deletes one calls invalidate(). Each invalidation moves the
+ * cache on a version, and a heatmap is only kept if nothing was invalidated while it was being built, so one built
+ * from catches that changed part way through is never handed out later.
+ *
+ * Date: 17/10/2026
+ */
+public class HeatmapCache {
+
+    private final HashMap<Integer, CatchHeatmap> heatmaps = new HashMap<>();
+    private CatchColumns catches = null;
+    private int user_id = -1;
+    private long version = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long invalidations = 0;
+
+    /**
+     * Method: get(int user_id, int zoom)
+     *
+     * Description: Returns the given user's heatmap at the given zoom level, or null if it isn't cached, counting
+     * a hit or a miss.
+     *
+     * Date: 17/10/2026
+     */
+    public synchronized CatchHeatmap get(int user_id, int zoom) {
+        CatchHeatmap heatmap = this.user_id == user_id ? heatmaps.get(zoom) : null;
+        if (heatmap != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return heatmap;
+    }
+
+    //the catches the user's cached heatmaps were built from, or null if there aren't any
+    public synchronized CatchColumns getCatches(int user_id) {
+        return this.user_id == user_id ? catches : null;
+    }
+
+    //read before building a heatmap and given back to put() with it
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Method: put(int user_id, long version, CatchColumns catches, CatchHeatmap heatmap)
+     *
+     * Description: Caches a heatmap and the catches it was built from, unless the cache has been invalidated since
+     * the given version was read, and returns whether it was cached. A different user's heatmaps are dropped.
+     *
+     * Date: 17/10/2026
+     */
+    public synchronized boolean put(int user_id, long version, CatchColumns catches, CatchHeatmap heatmap) {
+        if (version != this.version) {
+            return false;
+        }
+        if (this.user_id != user_id) {
+            heatmaps.clear();
+            this.user_id = user_id;
+        }
+        this.catches = catches;
+        heatmaps.put(heatmap.getZoom(), heatmap);
+        return true;
+    }
+
+    public synchronized void invalidate() {
+        version++;
+        invalidations++;
+        heatmaps.clear();
+        catches = null;
+    }
+
+    public synchronized int size() {
+        return heatmaps.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    public synchronized String toString() {
+        return String.format("%d heatmaps cached, %d hits, %d misses, %d invalidations", heatmaps.size(), hits, misses, invalidations);
+    }
+}
@@ -0,0 +1,944 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Class: InMemoryRecordStore
+ *
+ * Description: A RecordStore that keeps everything in memory and nothing on disk, for tests, benchmarks and
+ * sessions such as demos where nothing needs to be kept once the store is closed. It answers every query the same
+ * way LocalDatabase does, in the same order, without SQL.
+ *
+ * Each record is held once, as a row of primitives, in a map keyed by the int record_id (open addressing, so there
+ * are no boxed keys or entry objects). Each user's rows are also kept in sorted indexes that mirror the database's:
+ * by time, by weight, by latitude for catches, and by revenue and revenue per kg for sales. A range query is a
+ * walk along one index from its first match, and a page carries on from its cursor, so neither depends on how
+ * many records there are. The stock totals are kept up to date as records change, as the database's triggers do.
+ * Record objects are only made for the records a query returns.
+ *
+ * Reads can run at the same time as each other, writes one at a time. Consumers passed to the stream methods are
+ * called once the store has been read, so they can call back into it. A subclass can keep the store on disk as
+ * well by writing each change down as it's told of it, as SegmentRecordStore does.
+ *
+ * Date: 17/10/2026
+ */
+public class InMemoryRecordStore implements RecordStore {
+
+    //the orders of the indexes, each ending with the record_id so no two rows are equal
+    private static final Comparator<Row> BY_TIME = Comparator.<Row>comparingLong(row -> row.epoch).thenComparingInt(row -> row.record_id);
+    private static final Comparator<Row> BY_WEIGHT = Comparator.<Row>comparingDouble(row -> row.weight).thenComparingInt(row -> row.record_id);
+    private static final Comparator<Row> BY_LATITUDE = Comparator.<Row>comparingDouble(row -> row.latitude).thenComparingInt(row -> row.record_id);
+    private static final Comparator<Row> BY_REVENUE = Comparator.<Row>comparingDouble(row -> row.revenue).thenComparingInt(row -> row.record_id);
+    private static final Comparator<Row> BY_REVENUE_PER_KG = Comparator.<Row>comparingDouble(row -> row.revenuePerKg).thenComparingInt(row -> row.record_id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, LocalDatabase.FishingUser> users = new HashMap<>();
+    private final IntMap<Row> rows = new IntMap<>();
+    private final IntMap<UserRecords> userRecords = new IntMap<>();
+    private final HeatmapCache heatmapCache = new HeatmapCache();
+    private int nextUserId = 1;
+    private int nextRecordId = 1;
+    private volatile LocalDatabase.FishingUser currentUser = null;
+
+    @Override
+    public LocalDatabase.FishingUser getCurrentUser() {
+        return currentUser;
+    }
+
+    public HeatmapCache getHeatmapCache() {
+        return heatmapCache;
+    }
+
+    @Override
+    public void addUser(String username, String email, String plainPassword) throws SQLException {
+        if (username == null || email == null) {
+            throw new SQLException("A user needs a username and an email address");
+        }
+        lock.writeLock().lock();
+        try {
+            //usernames are unique, as the users_username index makes them in the database
+            if (users.containsKey(username)) {
+                throw new SQLException("There's already a user called " + username);
+            }
+            LocalDatabase.FishingUser user = new LocalDatabase.FishingUser(username, email, nextUserId, plainPassword);
+            try {
+                beforeAddUser(user);
+            } catch (IOException e) {
+                throw new SQLException("Couldn't save the user " + username, e);
+            }
+            users.put(username, user);
+            nextUserId++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public LocalDatabase.FishingUser changeUser(String username, String plainPassword) throws LocalDatabase.UserNotFoundException, LocalDatabase.IncorrectPasswordException {
+        LocalDatabase.FishingUser user = searchForUser(username);
+        if (user.getPasswordHash().equals(LocalDatabase.FishingUser.hashPassword(plainPassword))) {
+            currentUser = user;
+            return user;
+        }
+        throw new LocalDatabase.IncorrectPasswordException("The incorrect password was provided for the specified user");
+    }
+
+    @Override
+    public LocalDatabase.FishingUser searchForUser(String username) throws LocalDatabase.UserNotFoundException {
+        lock.readLock().lock();
+        try {
+            LocalDatabase.FishingUser user = users.get(username);
+            if (user == null) {
+                throw new LocalDatabase.UserNotFoundException("A user with the specified username was not found in the database.");
+            }
+            return user;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void inputCatchData(LocalDateTime dateTime, double weight, double latitude, double longitude) {
+        inputRecordBatch(Collections.singletonList(new LocalDatabase.CatchRecord(dateTime, weight, latitude, longitude)));
+    }
+
+    @Override
+    public void inputSellData(LocalDateTime dateTime, double weight, double revenue) {
+        inputRecordBatch(Collections.singletonList(new LocalDatabase.SellRecord(dateTime, weight, revenue)));
+    }
+
+    @Override
+    public void inputCatchBatch(List<LocalDatabase.CatchRecord> catches) {
+        inputRecordBatch(catches);
+    }
+
+    @Override
+    public void inputSellBatch(List<LocalDatabase.SellRecord> sells) {
+        inputRecordBatch(sells);
+    }
+
+    /**
+     * Method: inputRecordBatch(List<? extends LocalDatabase.Record> batch)
+     *
+     * Description: Adds a mixture of catch and selling records for the current user, giving each one its new
+     * record_id. Every record is checked before any are added, so either they all are or, if one of them can't
+     * be, none are.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public void inputRecordBatch(List<? extends LocalDatabase.Record> batch) {
+        long[] epochs = new long[batch.size()];
+        for (int i = 0; i < epochs.length; i++) {
+            LocalDatabase.Record record = batch.get(i);
+            if (!(record instanceof LocalDatabase.CatchRecord) && !(record instanceof LocalDatabase.SellRecord)) {
+                throw new IllegalArgumentException("Not a catch or a selling record: " + record);
+            }
+            //throws if the date time is missing or can't be stored, as it would in the database
+            epochs[i] = LocalDatabase.toEpoch(record.date);
+        }
+        int user_id = currentUserId();
+        lock.writeLock().lock();
+        try {
+            ArrayList<Row> added = new ArrayList<>(epochs.length);
+            for (int i = 0; i < epochs.length; i++) {
+                LocalDatabase.Record record = batch.get(i);
+                if (record instanceof LocalDatabase.CatchRecord) {
+                    LocalDatabase.CatchRecord catchRecord = (LocalDatabase.CatchRecord) record;
+                    added.add(new Row(nextRecordId + i, user_id, true, epochs[i], record.weight, catchRecord.latitude, catchRecord.longitude, Double.NaN));
+                } else {
+                    added.add(new Row(nextRecordId + i, user_id, false, epochs[i], record.weight, Double.NaN, Double.NaN, ((LocalDatabase.SellRecord) record).revenue));
+                }
+            }
+            written(added);
+            nextRecordId += added.size();
+
+            UserRecords records = userRecords.get(user_id);
+            if (records == null) {
+                records = new UserRecords();
+                userRecords.put(user_id, records);
+            }
+            for (int i = 0; i < added.size(); i++) {
+                Row row = added.get(i);
+                rows.put(row.record_id, row);
+                records.add(row);
+                batch.get(i).record_id = row.record_id;
+                batch.get(i).store = this;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!batch.isEmpty()) {
+            heatmapCache.invalidate();
+        }
+    }
+
+    @Override
+    public ArrayList<LocalDatabase.CatchRecord> getAllCatchRecords() {
+        return read(records -> toRecords(records.catchesByTime.iterator(), Long.MAX_VALUE, Integer.MAX_VALUE, null));
+    }
+
+    @Override
+    public ArrayList<LocalDatabase.SellRecord> getAllSellRecords() {
+        return read(records -> toRecords(records.sellsByTime.iterator(), Long.MAX_VALUE, Integer.MAX_VALUE, null));
+    }
+
+    //every catch and then every sale, each in time order as LocalDatabase sorts them, unless they're wanted all in time order
+    @Override
+    public ArrayList<LocalDatabase.Record> getAllRecords(boolean inTimeOrder) {
+        return read(records -> {
+            Iterator<Row> all = inTimeOrder
+                    ? merged(records.catchesByTime.iterator(), records.sellsByTime.iterator(), BY_TIME)
+                    : concatenated(records.catchesByTime.iterator(), records.sellsByTime.iterator());
+            return toRecords(all, Long.MAX_VALUE, Integer.MAX_VALUE, null);
+        });
+    }
+
+    @Override
+    public CatchColumns getCatchColumns() {
+        return read(records -> {
+            CatchColumns columns = new CatchColumns(records.catchesByTime.size());
+            for (Row row : records.catchesByTime) {
+                columns.add(row.record_id, row.epoch, row.weight, row.latitude, row.longitude);
+            }
+            return columns;
+        });
+    }
+
+    @Override
+    public SellColumns getSellColumns() {
+        return read(records -> {
+            SellColumns columns = new SellColumns(records.sellsByTime.size());
+            for (Row row : records.sellsByTime) {
+                columns.add(row.record_id, row.epoch, row.weight, row.revenue);
+            }
+            return columns;
+        });
+    }
+
+    //cached in the same way as LocalDatabase.getCatchHeatmap()
+    @Override
+    public CatchHeatmap getCatchHeatmap(int zoom) {
+        int user_id = currentUserId();
+        CatchHeatmap heatmap = heatmapCache.get(user_id, zoom);
+        if (heatmap != null) {
+            return heatmap;
+        }
+        long version = heatmapCache.getVersion();
+        CatchColumns catches = heatmapCache.getCatches(user_id);
+        if (catches == null) {
+            catches = getCatchColumns();
+        }
+        heatmap = CatchHeatmap.build(catches, zoom);
+        heatmapCache.put(user_id, version, catches, heatmap);
+        return heatmap;
+    }
+
+    @Override
+    public LocalDatabase.Record getRecordById(int record_id) {
+        int user_id = currentUserId();
+        lock.readLock().lock();
+        try {
+            Row row = rows.get(record_id);
+            return row == null || row.user_id != user_id ? null : toRecord(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //in record_id order, which is time order among records made at the same moment
+    @Override
+    public ArrayList<LocalDatabase.Record> getRecordsByDate(LocalDateTime dateTime) {
+        long epoch = LocalDatabase.toEpoch(dateTime);
+        return read(records -> toRecords(merged(
+                records.catchesByTime.subSet(probe(epoch, 0, Integer.MIN_VALUE), true, probe(epoch, 0, Integer.MAX_VALUE), true).iterator(),
+                records.sellsByTime.subSet(probe(epoch, 0, Integer.MIN_VALUE), true, probe(epoch, 0, Integer.MAX_VALUE), true).iterator(),
+                BY_TIME), Long.MAX_VALUE, Integer.MAX_VALUE, null));
+    }
+
+    @Override
+    public RecordPage<LocalDatabase.CatchRecord> getCatchRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor) {
+        return read(records -> page(startAt(records.catchesByTime, from, cursor).iterator(), to, limit, null));
+    }
+
+    @Override
+    public RecordPage<LocalDatabase.SellRecord> getSellRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor) {
+        return read(records -> page(startAt(records.sellsByTime, from, cursor).iterator(), to, limit, null));
+    }
+
+    @Override
+    public RecordPage<LocalDatabase.Record> getRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor) {
+        return read(records -> page(merged(startAt(records.catchesByTime, from, cursor).iterator(), startAt(records.sellsByTime, from, cursor).iterator(), BY_TIME), to, limit, null));
+    }
+
+    @Override
+    public RecordPage.Cursor getCatchRecordCursorAt(RecordPage.Cursor from, int offset) {
+        return read(records -> cursorAt(records.catchesByTime, from, offset));
+    }
+
+    @Override
+    public RecordPage.Cursor getSellRecordCursorAt(RecordPage.Cursor from, int offset) {
+        return read(records -> cursorAt(records.sellsByTime, from, offset));
+    }
+
+    //walks the user's catches in time order from the cursor, checking each against the query, until the page is full
+    @Override
+    public RecordPage<LocalDatabase.CatchRecord> searchCatchRecords(RecordQuery query, int limit, RecordPage.Cursor cursor) {
+        if (query.getKind() != RecordQuery.Kind.CATCHES) {
+            throw new IllegalArgumentException("Not a search of catches: " + query);
+        }
+        return read(records -> page(startAt(records.catchesByTime, null, cursor).iterator(), null, limit,
+                row -> query.matches(row.epoch, row.weight, row.latitude, row.longitude, row.revenue)));
+    }
+
+    @Override
+    public RecordPage<LocalDatabase.SellRecord> searchSellRecords(RecordQuery query, int limit, RecordPage.Cursor cursor) {
+        if (query.getKind() != RecordQuery.Kind.SELLS) {
+            throw new IllegalArgumentException("Not a search of sales: " + query);
+        }
+        return read(records -> page(startAt(records.sellsByTime, null, cursor).iterator(), null, limit,
+                row -> query.matches(row.epoch, row.weight, row.latitude, row.longitude, row.revenue)));
+    }
+
+    @Override
+    public int countCatchRecords() {
+        return read(records -> records.catchesByTime.size());
+    }
+
+    @Override
+    public int countSellRecords() {
+        return read(records -> records.sellsByTime.size());
+    }
+
+    @Override
+    public StockTotals getStockTotals() {
+        return read(records -> new StockTotals(records.caught, records.sold, records.catchesByTime.size(), records.sellsByTime.size()));
+    }
+
+    @Override
+    public ArrayList<PeriodTotals> getTotalsByPeriod(PeriodTotals.Period period, LocalDateTime from, LocalDateTime to) {
+        return read(records -> {
+            ArrayList<PeriodTotals> totals = new ArrayList<>();
+            long end = to == null ? Long.MAX_VALUE : LocalDatabase.toEpoch(to);
+            Iterator<Row> all = merged(startAt(records.catchesByTime, from, null).iterator(), startAt(records.sellsByTime, from, null).iterator(), BY_TIME);
+            PeriodTotals current = null;
+            while (all.hasNext()) {
+                Row row = all.next();
+                if (row.epoch >= end) {
+                    break;
+                }
+                LocalDate start = period.startOf(LocalDate.ofEpochDay(Math.floorDiv(row.epoch, LocalDatabase.NANOS_PER_DAY)));
+                if (current == null || !current.getStart().equals(start)) {
+                    current = new PeriodTotals(period, start);
+                    totals.add(current);
+                }
+                if (row.isCatch) {
+                    current.add(row.weight, 1, 0, 0, 0);
+                } else {
+                    current.add(0, 0, row.weight, row.revenue, 1);
+                }
+            }
+            return totals;
+        });
+    }
+
+    @Override
+    public ArrayList<LocalDatabase.Record> getRecordsByWeight(double minWeight, double maxWeight, boolean inTimeOrder) {
+        return read(records -> {
+            Iterator<Row> matching = merged(range(records.catchesByWeight, minWeight, maxWeight), range(records.sellsByWeight, minWeight, maxWeight), BY_WEIGHT);
+            ArrayList<LocalDatabase.Record> found = toRecords(matching, Long.MAX_VALUE, Integer.MAX_VALUE, null);
+            if (inTimeOrder) {
+                found.sort(Comparator.<LocalDatabase.Record, LocalDateTime>comparing(record -> record.date).thenComparingInt(record -> record.record_id));
+            }
+            return found;
+        });
+    }
+
+    @Override
+    public int streamCatchRecordsByWeight(double minWeight, double maxWeight, Consumer<? super LocalDatabase.CatchRecord> consumer) {
+        ArrayList<LocalDatabase.CatchRecord> found = read(records -> toRecords(range(records.catchesByWeight, minWeight, maxWeight), Long.MAX_VALUE, Integer.MAX_VALUE, null));
+        found.forEach(consumer);
+        return found.size();
+    }
+
+    @Override
+    public int streamSellRecordsByWeight(double minWeight, double maxWeight, Consumer<? super LocalDatabase.SellRecord> consumer) {
+        ArrayList<LocalDatabase.SellRecord> found = read(records -> toRecords(range(records.sellsByWeight, minWeight, maxWeight), Long.MAX_VALUE, Integer.MAX_VALUE, null));
+        found.forEach(consumer);
+        return found.size();
+    }
+
+    @Override
+    public int streamSellRecordsByRevenue(double minRevenue, double maxRevenue, Consumer<? super LocalDatabase.SellRecord> consumer) {
+        ArrayList<LocalDatabase.SellRecord> found = read(records -> toRecords(range(records.sellsByRevenue, minRevenue, maxRevenue), Long.MAX_VALUE, Integer.MAX_VALUE, null));
+        found.forEach(consumer);
+        return found.size();
+    }
+
+    //sales with no weight have no price per kg, so they aren't in the index and are never matched
+    @Override
+    public int streamSellRecordsByRevenuePerKg(double minPrice, double maxPrice, Consumer<? super LocalDatabase.SellRecord> consumer) {
+        ArrayList<LocalDatabase.SellRecord> found = read(records -> toRecords(range(records.sellsByRevenuePerKg, minPrice, maxPrice), Long.MAX_VALUE, Integer.MAX_VALUE, null));
+        found.forEach(consumer);
+        return found.size();
+    }
+
+    /**
+     * Method: getCatchRecordsInArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude)
+     *
+     * Description: Returns the current user's catches inside a bounding box, edges included, in time order. The
+     * band of latitudes is read from the latitude index and each catch in it has its longitude checked. A box that
+     * crosses the 180th meridian can be given with minLongitude greater than maxLongitude.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public ArrayList<LocalDatabase.CatchRecord> getCatchRecordsInArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        if (minLongitude > maxLongitude) {
+            ArrayList<LocalDatabase.CatchRecord> found = getCatchRecordsInArea(minLatitude, maxLatitude, minLongitude, 180);
+            found.addAll(getCatchRecordsInArea(minLatitude, maxLatitude, -180, maxLongitude));
+            found.sort(Comparator.<LocalDatabase.CatchRecord, LocalDateTime>comparing(record -> record.date).thenComparingInt(record -> record.record_id));
+            return found;
+        }
+        return read(records -> {
+            ArrayList<Row> inArea = new ArrayList<>();
+            Iterator<Row> band = range(records.catchesByLatitude, minLatitude, maxLatitude);
+            while (band.hasNext()) {
+                Row row = band.next();
+                if (row.longitude >= minLongitude && row.longitude <= maxLongitude) {
+                    inArea.add(row);
+                }
+            }
+            inArea.sort(BY_TIME);
+            return toRecords(inArea.iterator(), Long.MAX_VALUE, Integer.MAX_VALUE, null);
+        });
+    }
+
+    @Override
+    public ArrayList<LocalDatabase.CatchRecord> getCatchRecordsNear(double latitude, double longitude, double radiusKm) {
+        double[] box = LocalDatabase.boxAround(latitude, longitude, radiusKm);
+        ArrayList<LocalDatabase.CatchRecord> found = getCatchRecordsInArea(box[0], box[1], box[2], box[3]);
+        found.removeIf(record -> LocalDatabase.distanceKm(latitude, longitude, record.latitude, record.longitude) > radiusKm);
+        return found;
+    }
+
+    @Override
+    public void editDate(LocalDatabase.Record record, LocalDateTime newDate) {
+        long epoch = LocalDatabase.toEpoch(newDate);
+        edit(record.record_id, row -> true, row -> row.epoch = epoch);
+        record.date = newDate;
+    }
+
+    @Override
+    public void editWeight(LocalDatabase.Record record, double newWeight) {
+        edit(record.record_id, row -> true, row -> row.weight = newWeight);
+        record.weight = newWeight;
+        heatmapCache.invalidate();
+    }
+
+    //the store's copy is only changed if it's a catch, as the database only has a location for catches
+    @Override
+    public void editLocation(LocalDatabase.CatchRecord record, double latitude, double longitude) {
+        edit(record.record_id, row -> row.isCatch, row -> {
+            row.latitude = latitude;
+            row.longitude = longitude;
+        });
+        record.latitude = latitude;
+        record.longitude = longitude;
+        heatmapCache.invalidate();
+    }
+
+    @Override
+    public void editRevenue(LocalDatabase.SellRecord record, double newRevenue) {
+        edit(record.record_id, row -> !row.isCatch, row -> row.revenue = newRevenue);
+        record.revenue = newRevenue;
+    }
+
+    @Override
+    public int deleteRecords(Collection<Integer> record_ids) {
+        int user_id = currentUserId();
+        int deleted = 0;
+        lock.writeLock().lock();
+        try {
+            //an id given twice is only deleted once
+            Set<Row> removed = new LinkedHashSet<>();
+            for (int record_id : record_ids) {
+                Row row = rows.get(record_id);
+                if (row != null && row.user_id == user_id) {
+                    removed.add(row);
+                }
+            }
+            if (!removed.isEmpty()) {
+                try {
+                    beforeDelete(removed);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            UserRecords records = userRecords.get(user_id);
+            for (Row row : removed) {
+                rows.remove(row.record_id);
+                records.remove(row);
+            }
+            deleted = removed.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (deleted > 0) {
+            heatmapCache.invalidate();
+        }
+        return deleted;
+    }
+
+    /**
+     * Method: close()
+     *
+     * Description: Throws away every user and record, leaving an empty store.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            users.clear();
+            rows.clear();
+            userRecords.clear();
+            currentUser = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        heatmapCache.invalidate();
+    }
+
+    /**
+     * Method: restore(Collection<LocalDatabase.FishingUser> restoredUsers, Collection<Row> restoredRows, int lastRecordId)
+     *
+     * Description: Fills an empty store with users and rows that were kept somewhere else, with the ids they were
+     * given then. Record ids handed out afterwards carry on after lastRecordId (which may belong to a record since
+     * deleted) or the highest restored, whichever is higher. Nothing is written.
+     *
+     * Date: 17/10/2026
+     */
+    void restore(Collection<LocalDatabase.FishingUser> restoredUsers, Collection<Row> restoredRows, int lastRecordId) {
+        lock.writeLock().lock();
+        try {
+            for (LocalDatabase.FishingUser user : restoredUsers) {
+                users.put(user.getUsername(), user);
+                nextUserId = Math.max(nextUserId, user.getUser_id() + 1);
+            }
+            for (Row row : restoredRows) {
+                UserRecords records = userRecords.get(row.user_id);
+                if (records == null) {
+                    records = new UserRecords();
+                    userRecords.put(row.user_id, records);
+                }
+                rows.put(row.record_id, row);
+                records.add(row);
+                nextRecordId = Math.max(nextRecordId, row.record_id + 1);
+            }
+            nextRecordId = Math.max(nextRecordId, lastRecordId + 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        heatmapCache.invalidate();
+    }
+
+    //told of every change just before it's made, under the write lock, by a subclass that keeps the store
+    //somewhere as well; if one throws, the change isn't made
+    void beforeAddUser(LocalDatabase.FishingUser user) throws IOException {
+    }
+
+    //rows about to be added, or the new copies of rows about to be changed
+    void beforeWrite(List<Row> changed) throws IOException {
+    }
+
+    void beforeDelete(Collection<Row> removed) throws IOException {
+    }
+
+    private void written(List<Row> changed) {
+        try {
+            beforeWrite(changed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int currentUserId() {
+        LocalDatabase.FishingUser user = currentUser;
+        if (user == null) {
+            throw new IllegalStateException("No user has signed in");
+        }
+        return user.getUser_id();
+    }
+
+    //runs a read of the current user's records under the read lock, with no records at all for a new user
+    private <T> T read(Read<T> read) {
+        int user_id = currentUserId();
+        lock.readLock().lock();
+        try {
+            UserRecords records = userRecords.get(user_id);
+            return read.apply(records == null ? UserRecords.EMPTY : records);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //changes a row if it's the kind the edit applies to, taking it out of its user's indexes while it changes so they stay in order
+    private void edit(int record_id, Predicate<Row> applies, Consumer<Row> change) {
+        lock.writeLock().lock();
+        try {
+            Row row = rows.get(record_id);
+            if (row == null || !applies.test(row)) {
+                return;
+            }
+            //the change is made to a copy, which replaces the row once it's been written
+            Row changed = row.copy();
+            change.accept(changed);
+            changed.revenuePerKg = changed.isCatch || changed.weight == 0 ? Double.NaN : changed.revenue / changed.weight;
+            written(Collections.singletonList(changed));
+            UserRecords records = userRecords.get(row.user_id);
+            records.remove(row);
+            rows.put(record_id, changed);
+            records.add(changed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //the rows from the start of a date range, or just after a page's cursor if that's further in
+    private static NavigableSet<Row> startAt(NavigableSet<Row> byTime, LocalDateTime from, RecordPage.Cursor cursor) {
+        Row start = probe(from == null ? Long.MIN_VALUE : LocalDatabase.toEpoch(from), 0, Integer.MIN_VALUE);
+        if (cursor != null) {
+            Row after = probe(cursor.getEpoch(), 0, cursor.getRecord_id());
+            if (BY_TIME.compare(after, start) >= 0) {
+                return byTime.tailSet(after, false);
+            }
+        }
+        return byTime.tailSet(start, true);
+    }
+
+    //the rows of an index whose value is between min and max inclusive, none if min is more than max
+    private static Iterator<Row> range(NavigableSet<Row> index, double min, double max) {
+        if (!(min <= max)) {
+            return Collections.emptyIterator();
+        }
+        return index.subSet(probe(0, min, Integer.MIN_VALUE), true, probe(0, max, Integer.MAX_VALUE), true).iterator();
+    }
+
+    private static RecordPage.Cursor cursorAt(NavigableSet<Row> byTime, RecordPage.Cursor from, int offset) {
+        if (offset <= 0) {
+            return from;
+        }
+        //the cursor is the position of the record just before the offset
+        Iterator<Row> rows = startAt(byTime, null, from).iterator();
+        for (int i = 0; rows.hasNext(); i++) {
+            Row row = rows.next();
+            if (i == offset - 1) {
+                return new RecordPage.Cursor(row.epoch, row.record_id);
+            }
+        }
+        return new RecordPage.Cursor(Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    //up to limit records from the rows given, in time order, which match the filter (if there is one) and were made before to
+    private <T extends LocalDatabase.Record> RecordPage<T> page(Iterator<Row> rows, LocalDateTime to, int limit, Predicate<Row> filter) {
+        ArrayList<T> records = toRecords(rows, to == null ? Long.MAX_VALUE : LocalDatabase.toEpoch(to), limit + 1, filter);
+        if (records.size() <= limit) {
+            return new RecordPage<>(records, null);
+        }
+        records.remove(limit);
+        T last = records.get(limit - 1);
+        return new RecordPage<>(records, new RecordPage.Cursor(LocalDatabase.toEpoch(last.date), last.record_id));
+    }
+
+    //makes records from the rows given, stopping at the first one made at or after end or once there are limit of them
+    @SuppressWarnings("unchecked")
+    private <T extends LocalDatabase.Record> ArrayList<T> toRecords(Iterator<Row> rows, long end, int limit, Predicate<Row> filter) {
+        ArrayList<T> records = new ArrayList<>();
+        while (records.size() < limit && rows.hasNext()) {
+            Row row = rows.next();
+            if (end != Long.MAX_VALUE && row.epoch >= end) {
+                break;
+            }
+            if (filter == null || filter.test(row)) {
+                records.add((T) toRecord(row));
+            }
+        }
+        return records;
+    }
+
+    private LocalDatabase.Record toRecord(Row row) {
+        if (row.isCatch) {
+            return new LocalDatabase.CatchRecord(this, row.record_id, LocalDatabase.fromEpoch(row.epoch), row.weight, row.latitude, row.longitude);
+        }
+        return new LocalDatabase.SellRecord(this, row.record_id, LocalDatabase.fromEpoch(row.epoch), row.weight, row.revenue);
+    }
+
+    //a row to find a place in an index by, with the given time, value (whichever the index is ordered by) and record_id
+    private static Row probe(long epoch, double value, int record_id) {
+        Row row = new Row(record_id, 0, false, epoch, value, value, value, value);
+        row.revenuePerKg = value;
+        return row;
+    }
+
+    //the rows of two iterators in the same order, merged into that order
+    private static Iterator<Row> merged(Iterator<Row> first, Iterator<Row> second, Comparator<Row> order) {
+        return new Iterator<Row>() {
+            private Row nextFirst = first.hasNext() ? first.next() : null;
+            private Row nextSecond = second.hasNext() ? second.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextFirst != null || nextSecond != null;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Row row;
+                if (nextSecond == null || (nextFirst != null && order.compare(nextFirst, nextSecond) <= 0)) {
+                    row = nextFirst;
+                    nextFirst = first.hasNext() ? first.next() : null;
+                } else {
+                    row = nextSecond;
+                    nextSecond = second.hasNext() ? second.next() : null;
+                }
+                return row;
+            }
+        };
+    }
+
+    //every row of the first iterator and then every row of the second
+    private static Iterator<Row> concatenated(Iterator<Row> first, Iterator<Row> second) {
+        return merged(first, second, (a, b) -> a.isCatch == b.isCatch ? 0 : a.isCatch ? -1 : 1);
+    }
+
+    //a read of one user's records
+    private interface Read<T> {
+        T apply(UserRecords records);
+    }
+
+    /**
+     * Class: Row
+     *
+     * Description: One record, as primitives. The fields a kind of record doesn't have are NaN, as are the
+     * revenue per kg of a sale with no weight.
+     *
+     * Date: 17/10/2026
+     */
+    static final class Row {
+        final int record_id;
+        final int user_id;
+        final boolean isCatch;
+        long epoch;
+        double weight;
+        double latitude;
+        double longitude;
+        double revenue;
+        double revenuePerKg;
+
+        Row(int record_id, int user_id, boolean isCatch, long epoch, double weight, double latitude, double longitude, double revenue) {
+            this.record_id = record_id;
+            this.user_id = user_id;
+            this.isCatch = isCatch;
+            this.epoch = epoch;
+            this.weight = weight;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.revenue = revenue;
+            this.revenuePerKg = isCatch || weight == 0 ? Double.NaN : revenue / weight;
+        }
+
+        private Row copy() {
+            return new Row(record_id, user_id, isCatch, epoch, weight, latitude, longitude, revenue);
+        }
+    }
+
+    /**
+     * Class: UserRecords
+     *
+     * Description: One user's rows in each of the orders they're searched in, and their stock totals.
+     *
+     * Date: 17/10/2026
+     */
+    private static final class UserRecords {
+        //what a user with no records reads
+        private static final UserRecords EMPTY = new UserRecords();
+
+        private final TreeSet<Row> catchesByTime = new TreeSet<>(BY_TIME);
+        private final TreeSet<Row> sellsByTime = new TreeSet<>(BY_TIME);
+        private final TreeSet<Row> catchesByWeight = new TreeSet<>(BY_WEIGHT);
+        private final TreeSet<Row> sellsByWeight = new TreeSet<>(BY_WEIGHT);
+        private final TreeSet<Row> catchesByLatitude = new TreeSet<>(BY_LATITUDE);
+        private final TreeSet<Row> sellsByRevenue = new TreeSet<>(BY_REVENUE);
+        private final TreeSet<Row> sellsByRevenuePerKg = new TreeSet<>(BY_REVENUE_PER_KG);
+        private double caught = 0;
+        private double sold = 0;
+
+        private void add(Row row) {
+            if (row.isCatch) {
+                catchesByTime.add(row);
+                catchesByWeight.add(row);
+                catchesByLatitude.add(row);
+                caught += row.weight;
+            } else {
+                sellsByTime.add(row);
+                sellsByWeight.add(row);
+                sellsByRevenue.add(row);
+                if (!Double.isNaN(row.revenuePerKg)) {
+                    sellsByRevenuePerKg.add(row);
+                }
+                sold += row.weight;
+            }
+        }
+
+        private void remove(Row row) {
+            if (row.isCatch) {
+                catchesByTime.remove(row);
+                catchesByWeight.remove(row);
+                catchesByLatitude.remove(row);
+                caught -= row.weight;
+            } else {
+                sellsByTime.remove(row);
+                sellsByWeight.remove(row);
+                sellsByRevenue.remove(row);
+                sellsByRevenuePerKg.remove(row);
+                sold -= row.weight;
+            }
+        }
+    }
+
+    /**
+     * Class: IntMap
+     *
+     * Description: A hash map from int keys to objects, held in two arrays with linear probing, so a lookup is an
+     * array walk with no boxing. Keys must not be 0, which marks a free slot; ids handed out by the store start at
+     * 1. Removing a key moves the keys after it in the same run back, rather than leaving a marker behind.
+     *
+     * Date: 17/10/2026
+     */
+    static final class IntMap<V> {
+        private static final int FREE = 0;
+
+        private int[] keys = new int[16];
+        private Object[] values = new Object[16];
+        private int size = 0;
+
+        @SuppressWarnings("unchecked")
+        V get(int key) {
+            int mask = keys.length - 1;
+            for (int i = slotOf(key, mask); keys[i] != FREE; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(int key, V value) {
+            //kept at most half full, so runs stay short
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = slotOf(key, mask);
+            while (keys[i] != FREE) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        void remove(int key) {
+            int mask = keys.length - 1;
+            int gap = slotOf(key, mask);
+            while (keys[gap] != key) {
+                if (keys[gap] == FREE) {
+                    return;
+                }
+                gap = (gap + 1) & mask;
+            }
+            for (int i = (gap + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+                //a key can move back into the gap if its own slot isn't between the gap and where it is now
+                if (((i - slotOf(keys[i], mask)) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            keys[gap] = FREE;
+            values[gap] = null;
+            size--;
+        }
+
+        int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(Consumer<? super V> action) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != FREE) {
+                    action.accept((V) values[i]);
+                }
+            }
+        }
+
+        void clear() {
+            keys = new int[16];
+            values = new Object[16];
+            size = 0;
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new int[capacity];
+            values = new Object[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != FREE) {
+                    int i = slotOf(oldKeys[j], mask);
+                    while (keys[i] != FREE) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        //ids are handed out in order, so they're spread across the table by a multiplicative hash
+        private static int slotOf(int key, int mask) {
+            int hash = key * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class: Instrumentation
+ *
+ * Description: Times every public LocalDatabase method that goes to the database, and every page switch made by
+ * WindowSwitcher, so there's something to go on when part of the app is reported to be slow. Each operation gets
+ * a LatencyHistogram of how long it took and how many rows it returned or changed. Operations slower than a
+ * threshold (fishing.slowDatabaseMillis, 100ms by default, and fishing.slowPageMillis, 500ms) are written to the
+ * error stream and kept in a short log of the most recent ones.
+ *
+ * Everything is readable through JMX, under FishingCatchesLogger:type=Instrumentation (see InstrumentationMXBean),
+ * along with the connection pool and cache statistics of the most recently opened database. Each operation is
+ * also a JFR event, fishing.DatabaseOperation or fishing.PageSwitch, whenever a flight recording is running.
+ *
+ * Timing an operation costs two clock reads, a map lookup and a few atomic adds, and a JFR event is only made
+ * when recording, so it's on by default. -Dfishing.instrumentation=false turns it off.
+ *
+ * Date: 17/10/2026
+ */
+public final class Instrumentation {
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("fishing.instrumentation", "true"));
+    public static final String OBJECT_NAME = "FishingCatchesLogger:type=Instrumentation";
+    //only this many slow operations are kept, oldest first out
+    public static final int SLOW_LOG_SIZE = 100;
+
+    private static final Map<String, LatencyHistogram> DATABASE_OPERATIONS = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> PAGE_SWITCHES = new ConcurrentHashMap<>();
+    private static final ArrayDeque<String> SLOW_LOG = new ArrayDeque<>();
+    private static final EventType DATABASE_EVENT = EventType.getEventType(DatabaseOperationEvent.class);
+    private static final EventType PAGE_EVENT = EventType.getEventType(PageSwitchEvent.class);
+    private static final Timer DISABLED = new Timer(null, null, null, 0, null);
+
+    private static volatile long slowDatabaseMillis = Long.getLong("fishing.slowDatabaseMillis", 100);
+    private static volatile long slowPageMillis = Long.getLong("fishing.slowPageMillis", 500);
+    private static volatile WeakReference<LocalDatabase> database = new WeakReference<>(null);
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+            } catch (Exception | LinkageError e) {
+                //the numbers are still collected, they just can't be read from outside
+                System.err.println("Couldn't register the instrumentation MBean: " + e);
+            }
+        }
+    }
+
+    private Instrumentation() {}
+
+    /**
+     * Method: database(String operation)
+     *
+     * Description: Starts timing a database operation, which stops when the returned Timer is closed. Meant for a
+     * try-with-resources block around the body of the method being timed.
+     *
+     * Date: 17/10/2026
+     */
+    public static Timer database(String operation) {
+        if (!ENABLED) {
+            return DISABLED;
+        }
+        DatabaseOperationEvent event = null;
+        if (DATABASE_EVENT.isEnabled()) {
+            event = new DatabaseOperationEvent();
+            event.operation = operation;
+            event.begin();
+        }
+        return new Timer("database", operation, histogram(DATABASE_OPERATIONS, operation), slowDatabaseMillis, event);
+    }
+
+    /**
+     * Method: page(String page)
+     *
+     * Description: Starts timing a switch to the given page, which stops when the returned Timer is closed.
+     *
+     * Date: 17/10/2026
+     */
+    public static Timer page(String page) {
+        if (!ENABLED) {
+            return DISABLED;
+        }
+        PageSwitchEvent event = null;
+        if (PAGE_EVENT.isEnabled()) {
+            event = new PageSwitchEvent();
+            event.page = page;
+            event.begin();
+        }
+        return new Timer("page", page, histogram(PAGE_SWITCHES, page), slowPageMillis, event);
+    }
+
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> histograms, String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    //the database whose connection pool and caches the MBean reports on, the last one opened
+    static void watch(LocalDatabase db) {
+        database = new WeakReference<>(db);
+    }
+
+    public static LatencyHistogram getDatabaseOperation(String operation) {
+        return DATABASE_OPERATIONS.get(operation);
+    }
+
+    public static LatencyHistogram getPageSwitch(String page) {
+        return PAGE_SWITCHES.get(page);
+    }
+
+    /**
+     * Class: Timer
+     *
+     * Description: One operation being timed. setRows() records how many rows it returned or changed, and close()
+     * records how long it took.
+     *
+     * Date: 17/10/2026
+     */
+    public static final class Timer implements AutoCloseable {
+        private final String kind;
+        private final String name;
+        private final LatencyHistogram histogram;
+        private final long slowMillis;
+        private final Event event;
+        private final long started;
+        private long rows = 0;
+
+        private Timer(String kind, String name, LatencyHistogram histogram, long slowMillis, Event event) {
+            this.kind = kind;
+            this.name = name;
+            this.histogram = histogram;
+            this.slowMillis = slowMillis;
+            this.event = event;
+            this.started = histogram == null ? 0 : System.nanoTime();
+        }
+
+        public void setRows(long rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void close() {
+            if (histogram == null) {
+                return;
+            }
+            long micros = (System.nanoTime() - started) / 1000;
+            histogram.record(micros, rows);
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    if (event instanceof DatabaseOperationEvent) {
+                        ((DatabaseOperationEvent) event).rows = rows;
+                    }
+                    event.commit();
+                }
+            }
+            if (micros >= slowMillis * 1000) {
+                logSlow(String.format("%s slow %s operation %s took %.1fms (%d rows)", LocalDateTime.now(), kind, name, micros / 1000.0, rows));
+            }
+        }
+    }
+
+    private static void logSlow(String message) {
+        System.err.println(message);
+        synchronized (SLOW_LOG) {
+            if (SLOW_LOG.size() == SLOW_LOG_SIZE) {
+                SLOW_LOG.removeFirst();
+            }
+            SLOW_LOG.addLast(message);
+        }
+    }
+
+    private static List<InstrumentationMXBean.OperationStats> snapshot(Map<String, LatencyHistogram> histograms) {
+        List<InstrumentationMXBean.OperationStats> stats = new ArrayList<>();
+        //sorted by name so they're easy to find
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            stats.add(new InstrumentationMXBean.OperationStats(entry.getKey(), entry.getValue()));
+        }
+        return stats;
+    }
+
+    //the JFR events, which are only made while a recording that wants them is running
+    @Name("fishing.DatabaseOperation")
+    @Label("Database Operation")
+    @Category("Fishing Catches Logger")
+    @Description("A call to a LocalDatabase method that goes to the database")
+    static class DatabaseOperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Rows")
+        @Description("The number of rows returned or changed")
+        long rows;
+    }
+
+    @Name("fishing.PageSwitch")
+    @Label("Page Switch")
+    @Category("Fishing Catches Logger")
+    @Description("Loading a page's FXML and controller and showing it")
+    static class PageSwitchEvent extends Event {
+        @Label("Page")
+        String page;
+    }
+
+    //what's registered with JMX
+    private static class Bean implements InstrumentationMXBean {
+        @Override
+        public List<OperationStats> getDatabaseOperations() {
+            return snapshot(DATABASE_OPERATIONS);
+        }
+
+        @Override
+        public List<OperationStats> getPageSwitches() {
+            return snapshot(PAGE_SWITCHES);
+        }
+
+        @Override
+        public List<String> getSlowOperations() {
+            synchronized (SLOW_LOG) {
+                return new ArrayList<>(SLOW_LOG);
+            }
+        }
+
+        @Override
+        public long getSlowDatabaseMillis() {
+            return slowDatabaseMillis;
+        }
+
+        @Override
+        public void setSlowDatabaseMillis(long millis) {
+            slowDatabaseMillis = millis;
+        }
+
+        @Override
+        public long getSlowPageMillis() {
+            return slowPageMillis;
+        }
+
+        @Override
+        public void setSlowPageMillis(long millis) {
+            slowPageMillis = millis;
+        }
+
+        @Override
+        public int getConnectionsOpened() {
+            LocalDatabase db = database.get();
+            return db == null ? 0 : db.getConnectionPool().getConnectionsOpened();
+        }
+
+        @Override
+        public long getConnectionAcquisitions() {
+            LocalDatabase db = database.get();
+            return db == null ? 0 : db.getConnectionPool().getAcquisitions();
+        }
+
+        @Override
+        public double getStatementCacheHitRatio() {
+            LocalDatabase db = database.get();
+            return db == null ? 0 : db.getConnectionPool().getStatementCacheHitRatio();
+        }
+
+        @Override
+        public String getRecordCacheStatistics() {
+            LocalDatabase db = database.get();
+            return db == null ? "" : db.getRecordCache().toString();
+        }
+
+        @Override
+        public String getHeatmapCacheStatistics() {
+            LocalDatabase db = database.get();
+            return db == null ? "" : db.getHeatmapCache().toString();
+        }
+
+        @Override
+        public void reset() {
+            for (LatencyHistogram histogram : DATABASE_OPERATIONS.values()) {
+                histogram.reset();
+            }
+            for (LatencyHistogram histogram : PAGE_SWITCHES.values()) {
+                histogram.reset();
+            }
+            synchronized (SLOW_LOG) {
+                SLOW_LOG.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.List;
+
+/**
+ * Class: InstrumentationMXBean
+ *
+ * Description: What Instrumentation shows through JMX, e.g. in JConsole or JDK Mission Control. Times are in
+ * microseconds and thresholds in milliseconds. The connection and cache figures are for the database opened most
+ * recently.
+ *
+ * Date: 17/10/2026
+ */
+public interface InstrumentationMXBean {
+
+    List<OperationStats> getDatabaseOperations();
+
+    List<OperationStats> getPageSwitches();
+
+    //the most recent slow operations, oldest first
+    List<String> getSlowOperations();
+
+    long getSlowDatabaseMillis();
+
+    void setSlowDatabaseMillis(long millis);
+
+    long getSlowPageMillis();
+
+    void setSlowPageMillis(long millis);
+
+    int getConnectionsOpened();
+
+    long getConnectionAcquisitions();
+
+    double getStatementCacheHitRatio();
+
+    String getRecordCacheStatistics();
+
+    String getHeatmapCacheStatistics();
+
+    //clears the histograms and the slow operation log
+    void reset();
+
+    /**
+     * Class: OperationStats
+     *
+     * Description: A snapshot of one operation's LatencyHistogram.
+     *
+     * Date: 17/10/2026
+     */
+    class OperationStats {
+        private final String name;
+        private final long calls;
+        private final long rows;
+        private final long meanMicros;
+        private final long p50Micros;
+        private final long p90Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        public OperationStats(String name, LatencyHistogram histogram) {
+            this.name = name;
+            this.calls = histogram.getCalls();
+            this.rows = histogram.getRows();
+            this.meanMicros = calls == 0 ? 0 : histogram.getTotalMicros() / calls;
+            this.p50Micros = histogram.getPercentileMicros(50);
+            this.p90Micros = histogram.getPercentileMicros(90);
+            this.p99Micros = histogram.getPercentileMicros(99);
+            this.maxMicros = histogram.getMaxMicros();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP90Micros() {
+            return p90Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        public String toString() {
+            return String.format("%s: %d calls, %d rows, mean %dus, p50 %dus, p90 %dus, p99 %dus, max %dus",
+                    name, calls, rows, meanMicros, p50Micros, p90Micros, p99Micros, maxMicros);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class: LatencyHistogram
+ *
+ * Description: Counts how long something took, in microseconds, in a fixed set of buckets, along with the number
+ * of calls, rows and the total and longest times. Each power of two is split into four buckets, so a percentile
+ * read from it is never more than a quarter out, and recording is a handful of atomic adds with no locking or
+ * allocation, so it can be left on all the time. Times from 1 microsecond up to about 19 hours are told apart;
+ * anything longer goes in the last bucket.
+ *
+ * Date: 17/10/2026
+ */
+public class LatencyHistogram {
+
+    //each power of two is split into 2^SUB_BITS buckets
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int POWERS = 36;
+    static final int BUCKETS = POWERS * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Method: record(long micros, long rows)
+     *
+     * Description: Counts one call that took the given number of microseconds and returned or changed the given
+     * number of rows.
+     *
+     * Date: 17/10/2026
+     */
+    public void record(long micros, long rows) {
+        micros = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(micros));
+        calls.increment();
+        this.rows.add(rows);
+        totalMicros.add(micros);
+        if (micros > maxMicros.get()) {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    //values below SUB_BUCKETS get a bucket each, then every power of two is split into SUB_BUCKETS equal parts
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int power = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (power - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (power - SUB_BITS + 1) * SUB_BUCKETS + sub);
+    }
+
+    //the largest number of microseconds that goes in the given bucket
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int power = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (power - SUB_BITS)) - 1;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getTotalMicros() {
+        return totalMicros.sum();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * Method: getPercentileMicros(double percentile)
+     *
+     * Description: Returns the time, in microseconds, that the given percentage of calls took no longer than, or
+     * 0 if nothing's been recorded. It's the top of the bucket the percentile falls in, capped at the longest time
+     * recorded.
+     *
+     * Date: 17/10/2026
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        calls.reset();
+        rows.reset();
+        totalMicros.reset();
+        maxMicros.set(0);
+    }
+}
@@ -8,87 +8,247 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
 
-public class LocalDatabase {
+public class LocalDatabase implements RecordStore {
 
     private final Path dbfolder;
     private final Path dbpath;
     private final String connectionString;
+    private final ConnectionPool pool;
+    static final long NANOS_PER_SECOND = 1000000000L;
+    static final long NANOS_PER_DAY = 86400 * NANOS_PER_SECOND;
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    //recalculate the stock totals on every read and report any drift from the maintained ones
+    private static final boolean VERIFY_STOCK = Boolean.getBoolean("fishing.verifyStock");
+    private static final Comparator<Record> TIME_ORDER = Comparator.<Record, LocalDateTime>comparing(record -> record.date).thenComparingInt(record -> record.record_id);
+    //every catch and then every sale, each in time order
+    private static final Comparator<Record> KIND_ORDER = Comparator.<Record, Boolean>comparing(record -> record instanceof SellRecord).thenComparing(TIME_ORDER);
+    private final RecordCache recordCache = new RecordCache(Integer.getInteger("fishing.recordCacheSize", RecordCache.DEFAULT_CAPACITY));
+    private final HeatmapCache heatmapCache = new HeatmapCache();
+    private final EditQueue editQueue;
     public FishingUser currentUser = null;
 
     public LocalDatabase() throws SQLException {
+        this(Paths.get(System.getenv("APPDATA"), "FishingCatchesLogger"));
+    }
+
+    /**
+     * Method: LocalDatabase(Path dbfolder)
+     *
+     * Description: Opens the database in the given folder, building it (and the folder) if it doesn't exist yet,
+     * rather than the one in the user's %APPDATA% folder. Used by the benchmarks, which each work on their own
+     * database in a temporary folder.
+     * Throws an SQLException if the database can't be opened or brought up to date.
+     *
+     * Date: 17/10/2026
+     */
+    public LocalDatabase(Path dbfolder) throws SQLException {
         try {
             Class.forName("org.sqlite.JDBC");
         } catch (ClassNotFoundException e) {
             e.printStackTrace();
         }
 
-        dbfolder = Paths.get(System.getenv("APPDATA"), "FishingCatchesLogger");
+        this.dbfolder = dbfolder;
         dbpath = Paths.get(dbfolder.toString(), "localDatabase.db");
-        connectionString = String.format("jdbc:sqlite:%s", dbpath);
+        //foreign keys are off by default in SQLite, and deleting a record relies on them to delete its catch or sale
+        connectionString = String.format("jdbc:sqlite:%s?foreign_keys=on", dbpath);
+        pool = new ConnectionPool(connectionString);
 
         if (Files.notExists(dbfolder)) {
             try {
-                Files.createDirectory(dbfolder);
-                createDatabase();
+                Files.createDirectories(dbfolder);
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
+        migrate();
+
+        editQueue = new EditQueue(pool, recordCache, heatmapCache, dbfolder.resolve("edits.journal"), Long.getLong("fishing.editDelay", EditQueue.DEFAULT_DELAY_MILLIS));
+        try {
+            editQueue.replay();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        Instrumentation.watch(this);
     }
 
     /**
-     * Method: createDatabase()
+     * Method: migrate()
      *
-     * Description: Builds a new SQLite database in the user's %APPDATA% folder
-     * Throws a generic SQLException if there's an error
+     * Description: Brings the database schema up to date, building a new database in the user's %APPDATA% folder
+     * if there isn't one. The schema version is stored in PRAGMA user_version, and each migration in
+     * SchemaMigrations that hasn't been applied yet is run in its own transaction along with the version bump, so
+     * an interrupted upgrade picks up where it left off next time.
+     * Throws a generic SQLException if a migration fails, or if the database was created by a newer version of the
+     * app.
      *
-     * Author: Edward Attenborough
-     * Date: 07/06/2021
+     * Date: 17/10/2026
      */
-    private void createDatabase() throws SQLException {
-        System.out.println("Building new database at: " + dbpath);
-
-        Connection connection = DriverManager.getConnection(connectionString);
-        Statement statement = connection.createStatement();
-        statement.executeUpdate(
-                "CREATE TABLE users (" +
-                        "user_id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                        "username TEXT NOT NULL," +
-                        "email TEXT NOT NULL," +
-                        "passwordHash TEXT NOT NULL" +
-                    ");"
-        );
-        statement.executeUpdate(
-                "CREATE TABLE records (" +
-                        "record_id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                        "user_id INT," +
-                        "weight REAL NOT NULL," +
-                        "datetime TEXT NOT NULL," + //SQLite does not have a datetime format
-                        "FOREIGN KEY (user_id) REFERENCES users (user_id)" +
-                    ");"
-        );
-        statement.executeUpdate(
-                "CREATE TABLE catches (" +
-                        "catch_id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                        "record_id INTEGER," +
-                        "latitude REAL NOT NULL," +
-                        "longitude REAL NOT NULL," +
-                        "FOREIGN KEY (record_id) REFERENCES records (record_id)" +
-                    ");"
-        );
-        statement.executeUpdate(
-                "CREATE TABLE sells (" +
-                        "sell_id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                        "record_id INTEGER," +
-                        "revenue REAL NOT NULL," +
-                        "FOREIGN KEY (record_id) REFERENCES records (record_id)" +
-                    ");"
-        );
-        statement.close();
-        connection.close();
+    private void migrate() throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            Connection jdbc = connection.getConnection();
+            int version = getSchemaVersion(jdbc);
+            int latest = SchemaMigrations.latestVersion();
+
+            if (version > latest) {
+                throw new SQLException(String.format("The database at %s is version %d, but this version of the app only understands up to version %d", dbpath, version, latest));
+            } else if (version == 0 && isEmpty(jdbc)) {
+                System.out.println("Building new database at: " + dbpath);
+            } else if (version < latest) {
+                System.out.printf("Upgrading database at %s from version %d to %d%n", dbpath, version, latest);
+            }
+
+            if (version == latest) {
+                return;
+            }
+            //rebuilding a table drops it, which must not cascade, so foreign keys are only checked once it's done
+            //(the pragma has no effect inside a transaction)
+            try (Statement pragma = jdbc.createStatement()) {
+                pragma.execute("PRAGMA foreign_keys = OFF;");
+            }
+            try {
+                for (; version < latest; version++) {
+                    jdbc.setAutoCommit(false);
+                    try (Statement statement = jdbc.createStatement()) {
+                        SchemaMigrations.MIGRATIONS[version].apply(jdbc);
+                        statement.execute("PRAGMA user_version = " + (version + 1));
+                        jdbc.commit();
+                    } catch (SQLException | RuntimeException e) {
+                        jdbc.rollback();
+                        throw e;
+                    } finally {
+                        jdbc.setAutoCommit(true);
+                    }
+                }
+            } finally {
+                try (Statement pragma = jdbc.createStatement()) {
+                    pragma.execute("PRAGMA foreign_keys = ON;");
+                }
+            }
+        }
+    }
+
+    //databases created before migrations existed have tables but are still at version 0
+    private static boolean isEmpty(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery("SELECT COUNT(*) FROM sqlite_master WHERE type = 'table';")) {
+            return !results.next() || results.getInt(1) == 0;
+        }
+    }
+
+    private static int getSchemaVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery("PRAGMA user_version;")) {
+            return results.next() ? results.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Method: getSchemaVersion()
+     *
+     * Description: Returns the version of the schema this database has been migrated to.
+     * Throws a generic SQLException if there's an error.
+     *
+     * Date: 17/10/2026
+     */
+    public int getSchemaVersion() throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getSchemaVersion")) {
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                int version = getSchemaVersion(connection.getConnection());
+                timer.setRows(1);
+                return version;
+            }
+        }
+    }
+
+    /**
+     * Method: close()
+     *
+     * Description: Writes any queued edits and closes the pooled connections held by this database. Should be
+     * called when the user logs out.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public void close() {
+        editQueue.close();
+        pool.close();
+    }
+
+    /**
+     * Method: getConnectionPool()
+     *
+     * Description: Returns the connection pool used by this database, which reports how many connections were
+     * opened and how often the prepared statement cache was hit.
+     *
+     * Date: 17/10/2026
+     */
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /**
+     * Method: getRecordCache()
+     *
+     * Description: Returns the cache of the current user's records, for its hit and miss statistics or to change
+     * its capacity. The capacity starts at RecordCache.DEFAULT_CAPACITY, or the fishing.recordCacheSize system
+     * property if it's set.
+     *
+     * Date: 17/10/2026
+     */
+    public RecordCache getRecordCache() {
+        return recordCache;
+    }
+
+    /**
+     * Method: getEditQueue()
+     *
+     * Description: Returns the queue that edits made in the record tables go through, which writes them a short
+     * time later (fishing.editDelay milliseconds, or EditQueue.DEFAULT_DELAY_MILLIS) in one transaction.
+     *
+     * Date: 17/10/2026
+     */
+    public EditQueue getEditQueue() {
+        return editQueue;
+    }
+
+    public FishingUser getCurrentUser() {
+        return currentUser;
+    }
+
+    /**
+     * Method: toEpoch(LocalDateTime dateTime)
+     *
+     * Description: Converts a date time into the INTEGER stored in the records.datetime column, the number of
+     * nanoseconds since 1970-01-01T00:00. Date times have no time zone, so they're treated as UTC, which keeps the
+     * conversion exact both ways. Covers the years 1677 to 2262.
+     *
+     * Date: 17/10/2026
+     */
+    static long toEpoch(LocalDateTime dateTime) {
+        return Math.addExact(Math.multiplyExact(dateTime.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND), dateTime.getNano());
+    }
+
+    /**
+     * Method: fromEpoch(long epoch)
+     *
+     * Description: Converts a records.datetime value back into a date time. This is just arithmetic, so it's much
+     * cheaper than parsing the ISO text the column used to hold.
+     *
+     * Date: 17/10/2026
+     */
+    static LocalDateTime fromEpoch(long epoch) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epoch, NANOS_PER_SECOND), (int) Math.floorMod(epoch, NANOS_PER_SECOND), ZoneOffset.UTC);
     }
 
     /**
@@ -102,14 +262,16 @@ public class LocalDatabase {
      * Date: 07/06/2021
      */
     public void addUser(String username, String email, String plainPassword) throws SQLException {
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "INSERT INTO users (username, email, passwordHash) VALUES (?, ?, ?);";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setString(1, username);
-        statement.setString(2, email);
-        statement.setString(3, FishingUser.hashPassword(plainPassword));
-        statement.executeUpdate();
-        connection.close();
+        try (Instrumentation.Timer timer = Instrumentation.database("addUser")) {
+            String sql = "INSERT INTO users (username, email, passwordHash) VALUES (?, ?, ?);";
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setString(1, username);
+                statement.setString(2, email);
+                statement.setString(3, FishingUser.hashPassword(plainPassword));
+                timer.setRows(statement.executeUpdate());
+            }
+        }
     }
 
     /**
@@ -125,13 +287,17 @@ public class LocalDatabase {
      * Date: 07/06/2021
      */
     public FishingUser changeUser(String username, String plainPassword) throws SQLException, UserNotFoundException, IncorrectPasswordException {
-        FishingUser user = searchForUser(username);
-
-        if (user.getPasswordHash().equals(FishingUser.hashPassword(plainPassword))) {
-            currentUser = user;
-            return user;
-        } else {
-            throw new IncorrectPasswordException("The incorrect password was provided for the specified user");
+        try (Instrumentation.Timer timer = Instrumentation.database("changeUser")) {
+            FishingUser user = readUser(username);
+
+            if (user.getPasswordHash().equals(FishingUser.hashPassword(plainPassword))) {
+                currentUser = user;
+                recordCache.clear();
+                timer.setRows(1);
+                return user;
+            } else {
+                throw new IncorrectPasswordException("The incorrect password was provided for the specified user");
+            }
         }
     }
 
@@ -148,48 +314,49 @@ public class LocalDatabase {
      * Date: 08/06/2021
      */
     public FishingUser searchForUser(String username) throws  SQLException, UserNotFoundException {
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "SELECT * FROM users WHERE username = ?";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setString(1, username);
-        statement.execute();
-        ResultSet results = statement.getResultSet();
-        FishingUser user;
-
-        if (results.next()) {
-            user = new FishingUser(
-                    results.getString(2),
-                    results.getString(3),
-                    results.getInt(1)
-            );
-            user.setPasswordHash(results.getString(4));
-        } else {
-            connection.close();
-            throw new UserNotFoundException("A user with the specified username was not found in the database.");
+        try (Instrumentation.Timer timer = Instrumentation.database("searchForUser")) {
+            FishingUser user = readUser(username);
+            timer.setRows(1);
+            return user;
         }
+    }
 
-        connection.close();
-        return user;
+    //the public methods are each timed once, so the ones that share their work call untimed helpers like this one
+    private FishingUser readUser(String username) throws SQLException, UserNotFoundException {
+        String sql = "SELECT * FROM users WHERE username = ?";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setString(1, username);
+
+            try (ResultSet results = statement.executeQuery()) {
+                if (results.next()) {
+                    FishingUser user = new FishingUser(
+                            results.getString(2),
+                            results.getString(3),
+                            results.getInt(1)
+                    );
+                    user.setPasswordHash(results.getString(4));
+                    return user;
+                }
+            }
+        }
+        throw new UserNotFoundException("A user with the specified username was not found in the database.");
     }
 
-    private int generateRecord(LocalDateTime dateTime, double weight) throws SQLException {
-        Connection connection = DriverManager.getConnection(connectionString);
+    private int generateRecord(ConnectionPool.PooledConnection connection, LocalDateTime dateTime, double weight) throws SQLException {
         String sql = "INSERT INTO records (user_id, weight, datetime) VALUES (?, ?, ?);";
-        PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        PreparedStatement statement = connection.prepare(sql, Statement.RETURN_GENERATED_KEYS);
         statement.setInt(1, currentUser.getUser_id());
         statement.setDouble(2, weight);
-        statement.setString(3, dateTime.toString());
+        statement.setLong(3, toEpoch(dateTime));
         statement.executeUpdate();
 
-        int pkey;
-        ResultSet results = statement.getGeneratedKeys();
-        if (results.next()) {
-            pkey = results.getInt(1);
-        } else {
-            throw new SQLException("Couldn't get generated index");
+        try (ResultSet results = statement.getGeneratedKeys()) {
+            if (results.next()) {
+                return results.getInt(1);
+            }
         }
-        connection.close();
-        return pkey;
+        throw new SQLException("Couldn't get generated index");
     }
 
     /**
@@ -202,338 +369,1399 @@ public class LocalDatabase {
      * Author: Edward Attenborough
      * Date: 08/06/2021
      */
-    public void inputSellData(LocalDateTime dateTime, double weight, double revenue) throws SQLException {
-        int record_id = generateRecord(dateTime, weight);
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "INSERT INTO sells (record_id, revenue) VALUES (?, ?);";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setInt(1, record_id);
-        statement.setDouble(2, revenue);
-        statement.executeUpdate();
-        connection.close();
+    public void inputSellData(LocalDateTime dateTime, double weight, double revenue) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("inputSellData")) {
+            insertRecords(Collections.singletonList(new SellRecord(dateTime, weight, revenue)));
+            timer.setRows(1);
+        }
+    }
+
+    /**
+     * Method: inputCatchData(LocalDateTime dateTime, double weight, double latitude, double longitude)
+     *
+     * Description: Adds catch record to the database. Takes a LocalDatetime, weight, latitude and longitude as arguments.
+     * Throws a generic SQLException if there's an error.
+     *
+     * Author: Edward Attenborough
+     * Date: 08/06/2021
+     */
+    public void inputCatchData(LocalDateTime dateTime, double weight, double latitude, double longitude) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("inputCatchData")) {
+            insertRecords(Collections.singletonList(new CatchRecord(dateTime, weight, latitude, longitude)));
+            timer.setRows(1);
+        }
+    }
+
+    /**
+     * Method: inputCatchBatch(List<CatchRecord> catches)
+     *
+     * Description: Adds many catch records to the database for the current user in a single transaction. Either
+     * every record is written or none are. Each record is given its new record_id once the batch has committed.
+     * Throws a generic SQLException if there's an error, in which case nothing is written.
+     *
+     * Date: 17/10/2026
+     */
+    public void inputCatchBatch(List<CatchRecord> catches) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("inputCatchBatch")) {
+            insertRecords(catches);
+            timer.setRows(catches.size());
+        }
+    }
+
+    /**
+     * Method: inputSellBatch(List<SellRecord> sells)
+     *
+     * Description: Adds many selling records to the database for the current user in a single transaction. Either
+     * every record is written or none are. Each record is given its new record_id once the batch has committed.
+     * Throws a generic SQLException if there's an error, in which case nothing is written.
+     *
+     * Date: 17/10/2026
+     */
+    public void inputSellBatch(List<SellRecord> sells) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("inputSellBatch")) {
+            insertRecords(sells);
+            timer.setRows(sells.size());
+        }
+    }
+
+    /**
+     * Method: inputRecordBatch(List<? extends Record> batch)
+     *
+     * Description: Adds a mixture of catch and selling records to the database for the current user in a single
+     * transaction. The records rows are inserted one at a time so their generated keys can be read back, while the
+     * catches and sells rows are sent to SQLite as JDBC batches.
+     * Throws a generic SQLException if there's an error, in which case nothing is written.
+     *
+     * Date: 17/10/2026
+     */
+    public void inputRecordBatch(List<? extends Record> batch) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("inputRecordBatch")) {
+            insertRecords(batch);
+            timer.setRows(batch.size());
+        }
+    }
+
+    private void insertRecords(List<? extends Record> batch) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        String catchSql = "INSERT INTO catches (record_id, latitude, longitude) VALUES (?, ?, ?);";
+        String sellSql = "INSERT INTO sells (record_id, revenue) VALUES (?, ?);";
+
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            Connection jdbc = connection.getConnection();
+            jdbc.setAutoCommit(false);
+            try {
+                PreparedStatement catchStatement = null;
+                PreparedStatement sellStatement = null;
+
+                for (Record record : batch) {
+                    record.record_id = generateRecord(connection, record.date, record.weight);
+                    record.store = this;
+
+                    if (record instanceof CatchRecord) {
+                        CatchRecord catchRecord = (CatchRecord) record;
+                        if (catchStatement == null) {
+                            catchStatement = connection.prepare(catchSql);
+                        }
+                        catchStatement.setInt(1, catchRecord.record_id);
+                        catchStatement.setDouble(2, catchRecord.latitude);
+                        catchStatement.setDouble(3, catchRecord.longitude);
+                        catchStatement.addBatch();
+                    } else {
+                        SellRecord sellRecord = (SellRecord) record;
+                        if (sellStatement == null) {
+                            sellStatement = connection.prepare(sellSql);
+                        }
+                        sellStatement.setInt(1, sellRecord.record_id);
+                        sellStatement.setDouble(2, sellRecord.revenue);
+                        sellStatement.addBatch();
+                    }
+                }
+
+                if (catchStatement != null) {
+                    catchStatement.executeBatch();
+                }
+                if (sellStatement != null) {
+                    sellStatement.executeBatch();
+                }
+                jdbc.commit();
+                heatmapCache.invalidate();
+            } catch (SQLException | RuntimeException e) {
+                jdbc.rollback();
+                for (Record record : batch) {
+                    record.record_id = 0;
+                    record.store = null;
+                }
+                throw e;
+            } finally {
+                jdbc.setAutoCommit(true);
+            }
+        }
+    }
+
+     /**
+     * Method: getAllSellRecords()
+     *
+     * Description: Returns all the selling records associated with the current user, in time order. Returns an
+     * ArrayList of SellRecord objects
+     * Throws a generic SQLException if there's an error.
+     *
+     * Author: Edward Attenborough
+     * Date: 08/06/2021
+     */
+    public ArrayList<SellRecord> getAllSellRecords() throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getAllSellRecords")) {
+            ArrayList<SellRecord> records = new ArrayList<>();
+
+            String sql = "SELECT records.record_id, datetime, weight, revenue FROM records INNER JOIN sells ON records.record_id = sells.record_id WHERE user_id = ? ORDER BY datetime, records.record_id;";
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setInt(1, currentUser.getUser_id());
+
+                try (ResultSet results = statement.executeQuery()) {
+                    while (results.next()) {
+                        records.add(new SellRecord(this,
+                                results.getInt(1),
+                                fromEpoch(results.getLong(2)),
+                                results.getDouble(3),
+                                results.getDouble(4)
+                        ));
+                    }
+                }
+            }
+            timer.setRows(records.size());
+            return records;
+        }
+    }
+
+    /**
+     * Method:  getAllCatchRecords()
+     *
+     * Description: Returns all of the catch records associated with the current user, in time order. Returns as an
+     * ArrayList of CatchRecord objects.
+     * Throws a generic SQLException if there's an error.
+     *
+     * Author: Edward Attenborough
+     * Date: 08/06/2021
+     */
+    public ArrayList<CatchRecord> getAllCatchRecords() throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getAllCatchRecords")) {
+            ArrayList<CatchRecord> records = new ArrayList<>();
+
+            String sql = "SELECT records.record_id, datetime, weight, latitude, longitude FROM records INNER JOIN catches ON records.record_id = catches.record_id WHERE user_id = ? ORDER BY datetime, records.record_id;";
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setInt(1, currentUser.getUser_id());
+
+                try (ResultSet results = statement.executeQuery()) {
+                    while (results.next()) {
+                        records.add(new CatchRecord(this,
+                                results.getInt(1),
+                                fromEpoch(results.getLong(2)),
+                                results.getDouble(3),
+                                results.getDouble(4),
+                                results.getDouble(5)
+                        ));
+                    }
+                }
+            }
+            timer.setRows(records.size());
+            return records;
+        }
+    }
+
+    /**
+     * Method: getAllRecords()
+     *
+     * Description: Returns all of the records (both catch records and selling records) associated with the current
+     * user. Returns an ArrayList of Record objects (which can be casted back to their original type)
+     * Throws a generic SQLException if there's an error.
+     *
+     * Author: Edward Attenborough
+     * Date: 08/06/2021
+     */
+    public ArrayList<Record> getAllRecords() throws SQLException {
+        return getAllRecords(false);
+    }
+
+    /**
+     * Method: getAllRecords(boolean inTimeOrder)
+     *
+     * Description: Returns all of the records associated with the current user, read by a single statement, in time
+     * order if inTimeOrder is true and otherwise every catch in time order followed by every sale in time order. The list is sized from the maintained record counts before it's filled.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public ArrayList<Record> getAllRecords(boolean inTimeOrder) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getAllRecords")) {
+            StockTotals totals = readStockTotals();
+            ArrayList<Record> records;
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(mixedRecords("user_id = ?1") + ";");
+                statement.setInt(1, currentUser.getUser_id());
+                records = readMixedRecords(statement, totals.getCatchCount() + totals.getSellCount());
+            }
+            //an ORDER BY on the whole UNION makes SQLite merge the two halves row by row, which is slower than sorting here
+            records.sort(inTimeOrder ? TIME_ORDER : KIND_ORDER);
+            timer.setRows(records.size());
+            return records;
+        }
+    }
+
+    /**
+     * Method: getCatchColumns()
+     *
+     * Description: Returns a snapshot of all of the current user's catch records as parallel arrays in time order,
+     * for calculations over their whole history. The rows are read straight into the arrays in one pass.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public CatchColumns getCatchColumns() throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getCatchColumns")) {
+            CatchColumns columns = readCatchColumns();
+            timer.setRows(columns.size());
+            return columns;
+        }
+    }
+
+    private CatchColumns readCatchColumns() throws SQLException {
+        CatchColumns columns = new CatchColumns(readStockTotals().getCatchCount());
+        //reading the whole of catches in order and looking each record up by its key, then sorting, is several times
+        //faster than following records_user_datetime, which visits the records table in a scattered order
+        String sql = "SELECT records.record_id, datetime, weight, latitude, longitude FROM catches CROSS JOIN records ON records.record_id = catches.record_id WHERE user_id = ? ORDER BY datetime, records.record_id;";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setInt(1, currentUser.getUser_id());
+
+            try (ResultSet results = statement.executeQuery()) {
+                columns.load(results);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Method: getSellColumns()
+     *
+     * Description: Returns a snapshot of all of the current user's selling records as parallel arrays in time
+     * order, read in the same way as getCatchColumns().
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public SellColumns getSellColumns() throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getSellColumns")) {
+            SellColumns columns = new SellColumns(readStockTotals().getSellCount());
+            String sql = "SELECT records.record_id, datetime, weight, revenue FROM sells CROSS JOIN records ON records.record_id = sells.record_id WHERE user_id = ? ORDER BY datetime, records.record_id;";
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setInt(1, currentUser.getUser_id());
+
+                try (ResultSet results = statement.executeQuery()) {
+                    columns.load(results);
+                }
+            }
+            timer.setRows(columns.size());
+            return columns;
+        }
+    }
+
+    /**
+     * Method: getCatchHeatmap(int zoom)
+     *
+     * Description: Returns how much the current user has caught in each cell of the grid at the given zoom level,
+     * see CatchHeatmap. Heatmaps are cached until a catch is added, deleted or has its weight or location changed,
+     * and the catches read for one zoom level are kept to build the others from.
+     * Throws an SQLException if there's an SQL-related error, or an IllegalArgumentException if the zoom level
+     * isn't between 0 and CatchHeatmap.MAX_ZOOM.
+     *
+     * Date: 17/10/2026
+     */
+    public CatchHeatmap getCatchHeatmap(int zoom) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getCatchHeatmap")) {
+            int user_id = currentUser.getUser_id();
+            CatchHeatmap heatmap = heatmapCache.get(user_id, zoom);
+            if (heatmap != null) {
+                timer.setRows(heatmap.size());
+                return heatmap;
+            }
+            //read before the catches, so a change made while the heatmap is being built stops it being cached
+            long version = heatmapCache.getVersion();
+            CatchColumns catches = heatmapCache.getCatches(user_id);
+            if (catches == null) {
+                catches = readCatchColumns();
+            }
+            heatmap = CatchHeatmap.build(catches, zoom);
+            heatmapCache.put(user_id, version, catches, heatmap);
+            timer.setRows(heatmap.size());
+            return heatmap;
+        }
+    }
+
+    //the cache of heatmaps, for its statistics
+    public HeatmapCache getHeatmapCache() {
+        return heatmapCache;
+    }
+
+    /**
+     * Method: getRecordById(int record_id)
+     *
+     * Description: Returns a record (catch record or selling record) with a given record_id and associated with the
+     * current user. Returns a Record object (which can be casted) or null if no record is found. Records are read
+     * through the record cache, so looking up a recently used record doesn't query the database.
+     * Throws a generic SQLException if there's an error.
+     *
+     * Author: Edward Attenborough
+     * Date: 08/06/2021
+     */
+    public Record getRecordById(int record_id) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getRecordById")) {
+            Record cached = recordCache.get(currentUser.getUser_id(), record_id);
+            if (cached != null) {
+                timer.setRows(1);
+                return cached;
+            }
+            long flushes = editQueue.getFlushes();
+            Record record = readRecordById(record_id);
+            if (record != null) {
+                cacheAll(List.of(record), flushes);
+                timer.setRows(1);
+            }
+            return record;
+        }
+    }
+
+    private Record readRecordById(int record_id) throws SQLException {
+        String sql = mixedRecords("user_id = ?1 AND records.record_id = ?2") + ";";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setInt(1, currentUser.getUser_id());
+            statement.setInt(2, record_id);
+
+            try (ResultSet results = statement.executeQuery()) {
+                return results.next() ? readMixedRecord(results) : null;
+            }
+        }
+    }
+
+    /**
+     * Method: getRecordsByDate(LocalDateTime dateTime)
+     *
+     * Description: Returns records (catch records or sell records) with a given datetime associated with the current user.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Author: Edward Attenborough
+     * Date: 09/06/2021
+     */
+    public ArrayList<Record> getRecordsByDate(LocalDateTime dateTime) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getRecordsByDate")) {
+            String sql = mixedRecords("user_id = ?1 AND datetime = ?2") + " ORDER BY 1;";
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setInt(1, currentUser.getUser_id());
+                statement.setLong(2, toEpoch(dateTime));
+                ArrayList<Record> records = readMixedRecords(statement, 10);
+                timer.setRows(records.size());
+                return records;
+            }
+        }
+    }
+
+    /**
+     * Method: getCatchRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor)
+     *
+     * Description: Returns a page of at most limit catch records associated with the current user that were made
+     * from the given date time up to (but not including) the to date time, in time order. Either end may be null to
+     * leave it open. Pass null as the cursor for the first page and the previous page's next cursor after that;
+     * each page is an index range scan that starts where the last one finished, however far in it is.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public RecordPage<CatchRecord> getCatchRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getCatchRecordsBetween")) {
+            ArrayList<CatchRecord> records = new ArrayList<>(Math.min(limit, 1024));
+            String sql = "SELECT records.record_id, datetime, weight, latitude, longitude FROM records INNER JOIN catches ON records.record_id = catches.record_id " +
+                    "WHERE user_id = ? AND datetime >= ? AND datetime < ? AND (datetime, records.record_id) > (?, ?) ORDER BY datetime, records.record_id LIMIT ?;";
+            long lastEpoch = 0;
+            long flushes = editQueue.getFlushes();
+
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                bindRange(statement, from, to, limit, cursor);
+
+                try (ResultSet results = statement.executeQuery()) {
+                    boolean more = false;
+                    while (results.next()) {
+                        if (records.size() == limit) {
+                            more = true;
+                            break;
+                        }
+                        lastEpoch = results.getLong(2);
+                        records.add(new CatchRecord(this,
+                                results.getInt(1),
+                                fromEpoch(lastEpoch),
+                                results.getDouble(3),
+                                results.getDouble(4),
+                                results.getDouble(5)
+                        ));
+                    }
+                    cacheAll(records, flushes);
+                    timer.setRows(records.size());
+                    return new RecordPage<>(records, more ? cursorAfter(records, lastEpoch) : null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method: getSellRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor)
+     *
+     * Description: Returns a page of at most limit selling records associated with the current user between two
+     * date times, in time order. Works the same way as getCatchRecordsBetween().
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public RecordPage<SellRecord> getSellRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getSellRecordsBetween")) {
+            ArrayList<SellRecord> records = new ArrayList<>(Math.min(limit, 1024));
+            String sql = "SELECT records.record_id, datetime, weight, revenue FROM records INNER JOIN sells ON records.record_id = sells.record_id " +
+                    "WHERE user_id = ? AND datetime >= ? AND datetime < ? AND (datetime, records.record_id) > (?, ?) ORDER BY datetime, records.record_id LIMIT ?;";
+            long lastEpoch = 0;
+            long flushes = editQueue.getFlushes();
+
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                bindRange(statement, from, to, limit, cursor);
+
+                try (ResultSet results = statement.executeQuery()) {
+                    boolean more = false;
+                    while (results.next()) {
+                        if (records.size() == limit) {
+                            more = true;
+                            break;
+                        }
+                        lastEpoch = results.getLong(2);
+                        records.add(new SellRecord(this,
+                                results.getInt(1),
+                                fromEpoch(lastEpoch),
+                                results.getDouble(3),
+                                results.getDouble(4)
+                        ));
+                    }
+                    cacheAll(records, flushes);
+                    timer.setRows(records.size());
+                    return new RecordPage<>(records, more ? cursorAfter(records, lastEpoch) : null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method: getRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor)
+     *
+     * Description: Returns a page of at most limit records, both catch records and selling records, associated
+     * with the current user between two date times, in time order. Works the same way as getCatchRecordsBetween(),
+     * with both kinds of record read by a single statement.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public RecordPage<Record> getRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getRecordsBetween")) {
+            ArrayList<Record> records = new ArrayList<>(Math.min(limit, 1024));
+            String sql = "SELECT records.record_id, datetime, weight, latitude, longitude, revenue, catches.record_id IS NOT NULL FROM records " +
+                    "LEFT JOIN catches ON records.record_id = catches.record_id LEFT JOIN sells ON records.record_id = sells.record_id " +
+                    "WHERE user_id = ? AND datetime >= ? AND datetime < ? AND (datetime, records.record_id) > (?, ?) " +
+                    "AND (catches.record_id IS NOT NULL OR sells.record_id IS NOT NULL) ORDER BY datetime, records.record_id LIMIT ?;";
+            long lastEpoch = 0;
+            long flushes = editQueue.getFlushes();
+
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                bindRange(statement, from, to, limit, cursor);
+
+                try (ResultSet results = statement.executeQuery()) {
+                    boolean more = false;
+                    while (results.next()) {
+                        if (records.size() == limit) {
+                            more = true;
+                            break;
+                        }
+                        lastEpoch = results.getLong(2);
+                        records.add(readMixedRecord(results));
+                    }
+                    cacheAll(records, flushes);
+                    timer.setRows(records.size());
+                    return new RecordPage<>(records, more ? cursorAfter(records, lastEpoch) : null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method: searchCatchRecords(RecordQuery query, int limit, RecordPage.Cursor cursor)
+     *
+     * Description: Returns a page of at most limit of the current user's catch records that match a search from
+     * the search box, in time order, paged in the same way as getCatchRecordsBetween(). The search is run as one
+     * statement, which is compiled once for each shape of search, see RecordQuery.
+     * Throws an SQLException if there's an SQL-related error, or an IllegalArgumentException if the query isn't a
+     * search of catches.
+     *
+     * Date: 17/10/2026
+     */
+    public RecordPage<CatchRecord> searchCatchRecords(RecordQuery query, int limit, RecordPage.Cursor cursor) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("searchCatchRecords")) {
+            if (query.getKind() != RecordQuery.Kind.CATCHES) {
+                throw new IllegalArgumentException("Not a search of catches: " + query);
+            }
+            ArrayList<CatchRecord> records = new ArrayList<>(Math.min(limit, 1024));
+            long lastEpoch = 0;
+            long flushes = editQueue.getFlushes();
+
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(query.toSql());
+                bindSearch(statement, query, limit, cursor);
+
+                try (ResultSet results = statement.executeQuery()) {
+                    boolean more = false;
+                    while (results.next()) {
+                        if (records.size() == limit) {
+                            more = true;
+                            break;
+                        }
+                        lastEpoch = results.getLong(2);
+                        records.add(new CatchRecord(this,
+                                results.getInt(1),
+                                fromEpoch(lastEpoch),
+                                results.getDouble(3),
+                                results.getDouble(4),
+                                results.getDouble(5)
+                        ));
+                    }
+                    cacheAll(records, flushes);
+                    timer.setRows(records.size());
+                    return new RecordPage<>(records, more ? cursorAfter(records, lastEpoch) : null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method: searchSellRecords(RecordQuery query, int limit, RecordPage.Cursor cursor)
+     *
+     * Description: Returns a page of at most limit of the current user's selling records that match a search from
+     * the search box, in time order. Works the same way as searchCatchRecords().
+     * Throws an SQLException if there's an SQL-related error, or an IllegalArgumentException if the query isn't a
+     * search of sales.
+     *
+     * Date: 17/10/2026
+     */
+    public RecordPage<SellRecord> searchSellRecords(RecordQuery query, int limit, RecordPage.Cursor cursor) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("searchSellRecords")) {
+            if (query.getKind() != RecordQuery.Kind.SELLS) {
+                throw new IllegalArgumentException("Not a search of sales: " + query);
+            }
+            ArrayList<SellRecord> records = new ArrayList<>(Math.min(limit, 1024));
+            long lastEpoch = 0;
+            long flushes = editQueue.getFlushes();
+
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(query.toSql());
+                bindSearch(statement, query, limit, cursor);
+
+                try (ResultSet results = statement.executeQuery()) {
+                    boolean more = false;
+                    while (results.next()) {
+                        if (records.size() == limit) {
+                            more = true;
+                            break;
+                        }
+                        lastEpoch = results.getLong(2);
+                        records.add(new SellRecord(this,
+                                results.getInt(1),
+                                fromEpoch(lastEpoch),
+                                results.getDouble(3),
+                                results.getDouble(4)
+                        ));
+                    }
+                    cacheAll(records, flushes);
+                    timer.setRows(records.size());
+                    return new RecordPage<>(records, more ? cursorAfter(records, lastEpoch) : null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method: countCatchRecords()
+     *
+     * Description: Returns how many catch records are associated with the current user, from the maintained
+     * stock totals rather than by counting them.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public int countCatchRecords() throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("countCatchRecords")) {
+            int count = readStockTotals().getCatchCount();
+            timer.setRows(1);
+            return count;
+        }
+    }
+
+    /**
+     * Method: countSellRecords()
+     *
+     * Description: Returns how many selling records are associated with the current user, from the maintained
+     * stock totals rather than by counting them.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public int countSellRecords() throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("countSellRecords")) {
+            int count = readStockTotals().getSellCount();
+            timer.setRows(1);
+            return count;
+        }
+    }
+
+    /**
+     * Method: getStockTotal()
+     *
+     * Description: Returns the current user's stock, the total weight they've caught minus the total weight
+     * they've sold. The total is kept up to date by triggers whenever records change, so this is a single row
+     * lookup however many records the user has.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public double getStockTotal() throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getStockTotal")) {
+            double stock = readStockTotals().getStock();
+            timer.setRows(1);
+            return stock;
+        }
+    }
+
+    /**
+     * Method: getStockTotals()
+     *
+     * Description: Returns the current user's maintained stock totals. If the app is run with
+     * -Dfishing.verifyStock=true every read also recalculates the totals from scratch and reports any drift; see
+     * verifyStockTotals().
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public StockTotals getStockTotals() throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getStockTotals")) {
+            StockTotals totals = readStockTotals();
+            timer.setRows(1);
+            return totals;
+        }
+    }
+
+    private StockTotals readStockTotals() throws SQLException {
+        if (VERIFY_STOCK) {
+            checkStockTotals(false);
+        }
+        String sql = "SELECT caught, sold, catch_count, sell_count FROM user_stock WHERE user_id = ?;";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setInt(1, currentUser.getUser_id());
+            try (ResultSet results = statement.executeQuery()) {
+                if (results.next()) {
+                    return new StockTotals(results.getDouble(1), results.getDouble(2), results.getInt(3), results.getInt(4));
+                }
+                //the user hasn't made any records yet
+                return new StockTotals(0, 0, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * Method: calculateStockTotals()
+     *
+     * Description: Returns the current user's stock totals worked out from scratch by summing over all of their
+     * records, which is what the maintained totals should always equal.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public StockTotals calculateStockTotals() throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("calculateStockTotals")) {
+            StockTotals totals = sumStockTotals();
+            timer.setRows(1);
+            return totals;
+        }
+    }
+
+    private StockTotals sumStockTotals() throws SQLException {
+        String sql = "SELECT " +
+                "(SELECT TOTAL(weight) FROM records INNER JOIN catches ON records.record_id = catches.record_id WHERE user_id = ?), " +
+                "(SELECT TOTAL(weight) FROM records INNER JOIN sells ON records.record_id = sells.record_id WHERE user_id = ?), " +
+                "(SELECT COUNT(*) FROM records INNER JOIN catches ON records.record_id = catches.record_id WHERE user_id = ?), " +
+                "(SELECT COUNT(*) FROM records INNER JOIN sells ON records.record_id = sells.record_id WHERE user_id = ?);";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            for (int i = 1; i <= 4; i++) {
+                statement.setInt(i, currentUser.getUser_id());
+            }
+            try (ResultSet results = statement.executeQuery()) {
+                results.next();
+                return new StockTotals(results.getDouble(1), results.getDouble(2), results.getInt(3), results.getInt(4));
+            }
+        }
+    }
+
+    /**
+     * Method: verifyStockTotals(boolean repair)
+     *
+     * Description: Checks the current user's maintained stock totals against totals calculated from scratch, and
+     * returns the drift between them (maintained minus calculated). Any drift beyond floating point rounding is
+     * reported on standard error, and if repair is true the maintained totals are replaced with the calculated
+     * ones.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public StockTotals verifyStockTotals(boolean repair) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("verifyStockTotals")) {
+            StockTotals drift = checkStockTotals(repair);
+            timer.setRows(1);
+            return drift;
+        }
+    }
+
+    private StockTotals checkStockTotals(boolean repair) throws SQLException {
+        StockTotals calculated = sumStockTotals();
+        StockTotals maintained;
+        String sql = "SELECT caught, sold, catch_count, sell_count FROM user_stock WHERE user_id = ?;";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setInt(1, currentUser.getUser_id());
+            try (ResultSet results = statement.executeQuery()) {
+                maintained = results.next()
+                        ? new StockTotals(results.getDouble(1), results.getDouble(2), results.getInt(3), results.getInt(4))
+                        : new StockTotals(0, 0, 0, 0);
+            }
+
+            StockTotals drift = maintained.minus(calculated);
+            //every increment can round, so allow for a little error relative to the size of the totals
+            if (!drift.isWithin(1e-9 * (1 + Math.abs(calculated.getCaught()) + Math.abs(calculated.getSold())))) {
+                System.err.println("Stock totals for " + currentUser.getUsername() + " have drifted by " + drift);
+                if (repair) {
+                    statement = connection.prepare("INSERT OR REPLACE INTO user_stock (user_id, caught, sold, catch_count, sell_count) VALUES (?, ?, ?, ?, ?);");
+                    statement.setInt(1, currentUser.getUser_id());
+                    statement.setDouble(2, calculated.getCaught());
+                    statement.setDouble(3, calculated.getSold());
+                    statement.setInt(4, calculated.getCatchCount());
+                    statement.setInt(5, calculated.getSellCount());
+                    statement.executeUpdate();
+                }
+            }
+            return drift;
+        }
+    }
+
+    /**
+     * Method: getTotalsByPeriod(PeriodTotals.Period period)
+     *
+     * Description: Returns the current user's totals for each day, week or month they have records in, over their
+     * whole history, in time order.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public ArrayList<PeriodTotals> getTotalsByPeriod(PeriodTotals.Period period) throws SQLException {
+        return getTotalsByPeriod(period, null, null);
+    }
+
+    /**
+     * Method: getTotalsByPeriod(PeriodTotals.Period period, LocalDateTime from, LocalDateTime to)
+     *
+     * Description: Returns the current user's totals for each day, week or month they have records in, counting
+     * records made from the given date time up to (but not including) the to date time, in time order. Either end
+     * may be null to leave it open. The database totals each day with a GROUP BY over both kinds of record, and the
+     * days (a few thousand even for ten years of records) are added up into weeks or months here.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public ArrayList<PeriodTotals> getTotalsByPeriod(PeriodTotals.Period period, LocalDateTime from, LocalDateTime to) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getTotalsByPeriod")) {
+            //a whole history is read quickest by scanning catches and sells and looking up each record, as in
+            //getCatchColumns(), and a date range by following records_user_datetime
+            String join = from == null && to == null ? "%1$s CROSS JOIN records ON records.record_id = %1$s.record_id" : "records INNER JOIN %1$s ON records.record_id = %1$s.record_id";
+            //rounds down, so dates before 1970 still fall on the right day
+            String day = "datetime / " + NANOS_PER_DAY + " - (datetime % " + NANOS_PER_DAY + " < 0)";
+            String sql = "SELECT day, TOTAL(caught), SUM(catch_count), TOTAL(sold), TOTAL(revenue), SUM(sell_count) FROM (" +
+                        "SELECT " + day + " AS day, weight AS caught, 1 AS catch_count, 0 AS sold, 0 AS revenue, 0 AS sell_count FROM " + String.format(join, "catches") + " " +
+                        "WHERE user_id = ?1 AND datetime >= ?2 AND datetime < ?3 " +
+                        "UNION ALL " +
+                        "SELECT " + day + ", 0, 0, weight, revenue, 1 FROM " + String.format(join, "sells") + " " +
+                        "WHERE user_id = ?1 AND datetime >= ?2 AND datetime < ?3" +
+                    ") GROUP BY day ORDER BY day;";
+
+            ArrayList<PeriodTotals> totals = new ArrayList<>();
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setInt(1, currentUser.getUser_id());
+                statement.setLong(2, from == null ? Long.MIN_VALUE : toEpoch(from));
+                statement.setLong(3, to == null ? Long.MAX_VALUE : toEpoch(to));
+
+                try (ResultSet results = statement.executeQuery()) {
+                    PeriodTotals current = null;
+                    while (results.next()) {
+                        LocalDate start = period.startOf(LocalDate.ofEpochDay(results.getLong(1)));
+                        if (current == null || !current.getStart().equals(start)) {
+                            current = new PeriodTotals(period, start);
+                            totals.add(current);
+                        }
+                        current.add(results.getDouble(2), results.getInt(3), results.getDouble(4), results.getDouble(5), results.getInt(6));
+                    }
+                }
+            }
+            timer.setRows(totals.size());
+            return totals;
+        }
+    }
+
+    /**
+     * Method: getCatchRecordCursorAt(RecordPage.Cursor from, int offset)
+     *
+     * Description: Returns a cursor that makes getCatchRecordsBetween() start offset records after the given
+     * cursor (or after the start, if it's null) in the current user's catch records in time order. This still has
+     * to count past offset rows, but it only reads the date time index to do it, so it's used to jump into the
+     * middle of the records once, after which paging carries on from cursors.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public RecordPage.Cursor getCatchRecordCursorAt(RecordPage.Cursor from, int offset) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getCatchRecordCursorAt")) {
+            RecordPage.Cursor cursor = cursorAt("SELECT datetime, records.record_id FROM records INNER JOIN catches ON records.record_id = catches.record_id " +
+                    "WHERE user_id = ? AND datetime >= ? AND (datetime, records.record_id) > (?, ?) ORDER BY datetime, records.record_id LIMIT 1 OFFSET ?;", from, offset);
+            timer.setRows(cursor == null ? 0 : 1);
+            return cursor;
+        }
+    }
+
+    /**
+     * Method: getSellRecordCursorAt(RecordPage.Cursor from, int offset)
+     *
+     * Description: Returns a cursor that makes getSellRecordsBetween() start offset records after the given
+     * cursor in the current user's selling records in time order. See getCatchRecordCursorAt().
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public RecordPage.Cursor getSellRecordCursorAt(RecordPage.Cursor from, int offset) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getSellRecordCursorAt")) {
+            RecordPage.Cursor cursor = cursorAt("SELECT datetime, records.record_id FROM records INNER JOIN sells ON records.record_id = sells.record_id " +
+                    "WHERE user_id = ? AND datetime >= ? AND (datetime, records.record_id) > (?, ?) ORDER BY datetime, records.record_id LIMIT 1 OFFSET ?;", from, offset);
+            timer.setRows(cursor == null ? 0 : 1);
+            return cursor;
+        }
+    }
+
+    private RecordPage.Cursor cursorAt(String sql, RecordPage.Cursor from, int offset) throws SQLException {
+        if (offset <= 0) {
+            return from;
+        }
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setInt(1, currentUser.getUser_id());
+            statement.setLong(2, from == null ? Long.MIN_VALUE : from.getEpoch());
+            statement.setLong(3, from == null ? Long.MIN_VALUE : from.getEpoch());
+            statement.setInt(4, from == null ? Integer.MIN_VALUE : from.getRecord_id());
+            //the cursor is the position of the record just before the offset
+            statement.setInt(5, offset - 1);
+            try (ResultSet results = statement.executeQuery()) {
+                if (results.next()) {
+                    return new RecordPage.Cursor(results.getLong(1), results.getInt(2));
+                }
+                return new RecordPage.Cursor(Long.MAX_VALUE, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    //binds the user, date range, cursor and limit parameters shared by the paged queries
+    private void bindRange(PreparedStatement statement, LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor) throws SQLException {
+        long lowerBound = from == null ? Long.MIN_VALUE : toEpoch(from);
+        if (cursor != null) {
+            //start the index range scan at the cursor rather than at the beginning of the range
+            lowerBound = Math.max(lowerBound, cursor.getEpoch());
+        }
+        statement.setInt(1, currentUser.getUser_id());
+        statement.setLong(2, lowerBound);
+        statement.setLong(3, to == null ? Long.MAX_VALUE : toEpoch(to));
+        statement.setLong(4, cursor == null ? Long.MIN_VALUE : cursor.getEpoch());
+        statement.setInt(5, cursor == null ? Integer.MIN_VALUE : cursor.getRecord_id());
+        //one extra row is read to find out whether there's another page
+        statement.setInt(6, limit + 1);
+    }
+
+    private void bindSearch(PreparedStatement statement, RecordQuery query, int limit, RecordPage.Cursor cursor) throws SQLException {
+        statement.setInt(1, currentUser.getUser_id());
+        int index = query.bind(statement, 2);
+        statement.setLong(index, cursor == null ? Long.MIN_VALUE : cursor.getEpoch());
+        statement.setInt(index + 1, cursor == null ? Integer.MIN_VALUE : cursor.getRecord_id());
+        //one extra row is read to find out whether there's another page
+        statement.setInt(index + 2, limit + 1);
+    }
+
+    //the pages the tables show are the records most likely to be looked up again, and are given any edits to them
+    //that haven't been committed yet, so showing a page doesn't have to wait for a flush
+    private void cacheAll(Collection<? extends Record> records, long flushes) {
+        editQueue.read(currentUser.getUser_id(), records, flushes);
+    }
+
+    private static RecordPage.Cursor cursorAfter(ArrayList<? extends Record> records, long lastEpoch) {
+        return new RecordPage.Cursor(lastEpoch, records.get(records.size() - 1).record_id);
+    }
+
+    /**
+     * Method: mixedRecords(String where)
+     *
+     * Description: Returns a statement selecting both kinds of record that match the given WHERE clause, as a
+     * UNION ALL of the catch records and the selling records, so each row is only joined to the table it belongs to.
+     * Column 7 is true for a catch record and false for a selling record. The clause is used by both halves, so its
+     * parameters must be numbered (?1, ?2...) to be bound once.
+     *
+     * Date: 17/10/2026
+     */
+    private static String mixedRecords(String where) {
+        return "SELECT records.record_id, datetime, weight, latitude, longitude, NULL, 1 FROM records " +
+                "INNER JOIN catches ON records.record_id = catches.record_id WHERE " + where + " UNION ALL " +
+                "SELECT records.record_id, datetime, weight, NULL, NULL, revenue, 0 FROM records " +
+                "INNER JOIN sells ON records.record_id = sells.record_id WHERE " + where;
+    }
+
+    //decodes a row of both kinds of record into a CatchRecord or a SellRecord, depending on column 7
+    private Record readMixedRecord(ResultSet results) throws SQLException {
+        if (results.getBoolean(7)) {
+            return new CatchRecord(this,
+                    results.getInt(1),
+                    fromEpoch(results.getLong(2)),
+                    results.getDouble(3),
+                    results.getDouble(4),
+                    results.getDouble(5)
+            );
+        }
+        return new SellRecord(this,
+                results.getInt(1),
+                fromEpoch(results.getLong(2)),
+                results.getDouble(3),
+                results.getDouble(6)
+        );
+    }
+
+    private ArrayList<Record> readMixedRecords(PreparedStatement statement, int expected) throws SQLException {
+        ArrayList<Record> records = new ArrayList<>(expected);
+        try (ResultSet results = statement.executeQuery()) {
+            while (results.next()) {
+                records.add(readMixedRecord(results));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Method: getRecordsByWeight(double weight)
+     *
+     * Description: Returns records (catch records or sell records) with a given weight associated with the current user.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Author: Edward Attenborough
+     * Date: 09/06/2021
+     */
+    public ArrayList<Record> getRecordsByWeight(double weight) throws SQLException {
+        return getRecordsByWeight(weight, weight, false);
+    }
+
+    /**
+     * Method: getRecordsByWeight(double minWeight, double maxWeight, boolean inTimeOrder)
+     *
+     * Description: Returns the records (catch records and sell records) associated with the current user that
+     * weigh between minWeight and maxWeight inclusive, read by a single statement. They're in weight order, or
+     * in time order if inTimeOrder is true.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public ArrayList<Record> getRecordsByWeight(double minWeight, double maxWeight, boolean inTimeOrder) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getRecordsByWeight")) {
+            String sql = mixedRecords("user_id = ?1 AND weight BETWEEN ?2 AND ?3") + (inTimeOrder ? " ORDER BY 2, 1;" : " ORDER BY 3, 1;");
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setInt(1, currentUser.getUser_id());
+                statement.setDouble(2, minWeight);
+                statement.setDouble(3, maxWeight);
+                ArrayList<Record> records = readMixedRecords(statement, 16);
+                timer.setRows(records.size());
+                return records;
+            }
+        }
     }
 
     /**
-     * Method: inputCatchData(LocalDateTime dateTime, double weight, double latitude, double longitude)
+     * Method: getRecordsByRevenue(double revenue)
      *
-     * Description: Adds catch record to the database. Takes a LocalDatetime, weight, latitude and longitude as arguments.
-     * Throws a generic SQLException if there's an error.
+     * Description: Returns sell records associated with the current user that have a given revenue.
+     * Throws an SQLException if there's an SQL-related error.
      *
      * Author: Edward Attenborough
-     * Date: 08/06/2021
+     * Date: 10/06/2021
      */
-    public void inputCatchData(LocalDateTime dateTime, double weight, double latitude, double longitude) throws SQLException {
-        int record_id = generateRecord(dateTime, weight);
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "INSERT INTO catches (record_id, latitude, longitude) VALUES (?, ?, ?);";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setInt(1, record_id);
-        statement.setDouble(2, latitude);
-        statement.setDouble(3, longitude);
-        statement.executeUpdate();
-        connection.close();
+    public ArrayList<SellRecord> getRecordsByRevenue(double revenue) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getRecordsByRevenue")) {
+            ArrayList<SellRecord> records = new ArrayList<>();
+            readSellRecordsByRevenue(revenue, revenue, records::add);
+            timer.setRows(records.size());
+            return records;
+        }
     }
 
-     /**
-     * Method: getAllSellRecords()
+    /**
+     * Method: streamCatchRecordsByWeight(double minWeight, double maxWeight, Consumer<? super CatchRecord> consumer)
      *
-     * Description: Returns all the selling records associated with the current user. Returns an ArrayList of SellRecord
-      * objects
-     * Throws a generic SQLException if there's an error.
+     * Description: Passes each catch record associated with the current user that weighs between minWeight and
+     * maxWeight (inclusive) to the consumer, in weight order, as it's read from the database. The range is
+     * searched with the records_user_weight index, so only matching rows are read. Returns how many records were
+     * passed to the consumer.
+     * Throws an SQLException if there's an SQL-related error.
      *
-     * Author: Edward Attenborough
-     * Date: 08/06/2021
+     * Date: 17/10/2026
      */
-    public ArrayList<SellRecord> getAllSellRecords() throws SQLException {
-        ArrayList<SellRecord> records = new ArrayList<>();
-
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "SELECT records.record_id, datetime, weight, revenue FROM records INNER JOIN sells ON records.record_id = sells.record_id WHERE user_id = ?;";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setInt(1, currentUser.getUser_id());
-        statement.execute();
-        ResultSet results = statement.getResultSet();
-
-        while (results.next()) {
-            records.add(new SellRecord(
-                    results.getInt(1),
-                    LocalDateTime.parse(results.getString(2)),
-                    results.getDouble(3),
-                    results.getDouble(4)
-            ));
+    public int streamCatchRecordsByWeight(double minWeight, double maxWeight, Consumer<? super CatchRecord> consumer) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("streamCatchRecordsByWeight")) {
+            int count = readCatchRecordsByWeight(minWeight, maxWeight, consumer);
+            timer.setRows(count);
+            return count;
         }
+    }
 
-        connection.close();
-        return records;
+    private int readCatchRecordsByWeight(double minWeight, double maxWeight, Consumer<? super CatchRecord> consumer) throws SQLException {
+        String sql = "SELECT records.record_id, datetime, weight, latitude, longitude FROM records INNER JOIN catches ON records.record_id = catches.record_id " +
+                "WHERE user_id = ? AND weight BETWEEN ? AND ? ORDER BY weight, records.record_id;";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setInt(1, currentUser.getUser_id());
+            statement.setDouble(2, minWeight);
+            statement.setDouble(3, maxWeight);
+            return streamCatchRecords(statement, consumer);
+        }
     }
 
     /**
-     * Method:  getAllCatchRecords()
+     * Method: streamSellRecordsByWeight(double minWeight, double maxWeight, Consumer<? super SellRecord> consumer)
      *
-     * Description: Returns all of the catch records associated with the current user. Returns as an ArrayList
-     * of CatchRecord objects.
-     * Throws a generic SQLException if there's an error.
+     * Description: Passes each selling record associated with the current user that weighs between minWeight and
+     * maxWeight (inclusive) to the consumer, in weight order. Works the same way as streamCatchRecordsByWeight().
+     * Throws an SQLException if there's an SQL-related error.
      *
-     * Author: Edward Attenborough
-     * Date: 08/06/2021
+     * Date: 17/10/2026
      */
-    public ArrayList<CatchRecord> getAllCatchRecords() throws SQLException {
-        ArrayList<CatchRecord> records = new ArrayList<>();
-
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "SELECT records.record_id, datetime, weight, latitude, longitude FROM records INNER JOIN catches ON records.record_id = catches.record_id WHERE user_id = ?;";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setInt(1, currentUser.getUser_id());
-        statement.execute();
-        ResultSet results = statement.getResultSet();
+    public int streamSellRecordsByWeight(double minWeight, double maxWeight, Consumer<? super SellRecord> consumer) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("streamSellRecordsByWeight")) {
+            int count = readSellRecordsByWeight(minWeight, maxWeight, consumer);
+            timer.setRows(count);
+            return count;
+        }
+    }
 
-        while (results.next()) {
-            records.add(new CatchRecord(
-                    results.getInt(1),
-                    LocalDateTime.parse(results.getString(2)),
-                    results.getDouble(3),
-                    results.getDouble(4),
-                    results.getDouble(5)
-            ));
+    private int readSellRecordsByWeight(double minWeight, double maxWeight, Consumer<? super SellRecord> consumer) throws SQLException {
+        String sql = "SELECT records.record_id, datetime, weight, revenue FROM records INNER JOIN sells ON records.record_id = sells.record_id " +
+                "WHERE user_id = ? AND weight BETWEEN ? AND ? ORDER BY weight, records.record_id;";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setInt(1, currentUser.getUser_id());
+            statement.setDouble(2, minWeight);
+            statement.setDouble(3, maxWeight);
+            return streamSellRecords(statement, consumer);
         }
-        connection.close();
-        return records;
     }
 
     /**
-     * Method: getAllRecords()
+     * Method: streamSellRecordsByRevenue(double minRevenue, double maxRevenue, Consumer<? super SellRecord> consumer)
      *
-     * Description: Returns all of the records (both catch records and selling records) associated with the current
-     * user. Returns an ArrayList of Record objects (which can be casted back to their original type)
-     * Throws a generic SQLException if there's an error.
+     * Description: Passes each selling record associated with the current user with a revenue between minRevenue
+     * and maxRevenue (inclusive) to the consumer, in revenue order. The range is searched with the sells_revenue
+     * index. Returns how many records were passed to the consumer.
+     * Throws an SQLException if there's an SQL-related error.
      *
-     * Author: Edward Attenborough
-     * Date: 08/06/2021
+     * Date: 17/10/2026
      */
-    public ArrayList<Record> getAllRecords() throws SQLException {
-       ArrayList<Record> records = new ArrayList<>();
+    public int streamSellRecordsByRevenue(double minRevenue, double maxRevenue, Consumer<? super SellRecord> consumer) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("streamSellRecordsByRevenue")) {
+            int count = readSellRecordsByRevenue(minRevenue, maxRevenue, consumer);
+            timer.setRows(count);
+            return count;
+        }
+    }
 
-       for (Record r : getAllCatchRecords()) {
-           records.add(r);
-       }
-       for (Record r : getAllSellRecords()) {
-           records.add(r);
-       }
-       return records;
+    private int readSellRecordsByRevenue(double minRevenue, double maxRevenue, Consumer<? super SellRecord> consumer) throws SQLException {
+        String sql = "SELECT records.record_id, datetime, weight, revenue FROM sells CROSS JOIN records ON records.record_id = sells.record_id " +
+                "WHERE user_id = ? AND revenue BETWEEN ? AND ? ORDER BY revenue, records.record_id;";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setInt(1, currentUser.getUser_id());
+            statement.setDouble(2, minRevenue);
+            statement.setDouble(3, maxRevenue);
+            return streamSellRecords(statement, consumer);
+        }
     }
 
     /**
-     * Method: getAllRecords()
+     * Method: streamSellRecordsByRevenuePerKg(double minPrice, double maxPrice, Consumer<? super SellRecord> consumer)
      *
-     * Description: Returns a record (catch record or selling record) with a given record_id and associated with the
-     * current user. Returns a Record object (which can be casted) or null if no record is found.
-     * Throws a generic SQLException if there's an error.
+     * Description: Passes each selling record associated with the current user that sold for between minPrice and
+     * maxPrice per kg (inclusive) to the consumer, cheapest first. The price per kg is kept up to date in the sells
+     * table by triggers, so the range is searched with the sells_revenue_per_kg index instead of dividing every
+     * row. Sales with no weight have no price per kg and are never matched. Returns how many records were passed
+     * to the consumer.
+     * Throws an SQLException if there's an SQL-related error.
      *
-     * Author: Edward Attenborough
-     * Date: 08/06/2021
+     * Date: 17/10/2026
      */
-    public Record getRecordById(int record_id) throws SQLException {
-        Record toReturn = null;
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "SELECT records.record_id, datetime, weight, latitude, longitude FROM records INNER JOIN catches ON records.record_id = catches.record_id WHERE user_id = ? AND records.record_id = ?;";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setInt(1, currentUser.getUser_id());
-        statement.setInt(2, record_id);
-        statement.execute();
-        ResultSet results = statement.getResultSet();
+    public int streamSellRecordsByRevenuePerKg(double minPrice, double maxPrice, Consumer<? super SellRecord> consumer) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("streamSellRecordsByRevenuePerKg")) {
+            int count = readSellRecordsByRevenuePerKg(minPrice, maxPrice, consumer);
+            timer.setRows(count);
+            return count;
+        }
+    }
 
-        if (results.next()) {
-            toReturn = new CatchRecord(
-                    results.getInt(1),
-                    LocalDateTime.parse(results.getString(2)),
-                    results.getDouble(3),
-                    results.getDouble(4),
-                    results.getDouble(5)
-            );
-        } else {
-            sql = "SELECT records.record_id, datetime, weight, revenue FROM records INNER JOIN sells ON records.record_id = sells.record_id WHERE user_id = ? AND records.record_id = ?;";
-            statement = connection.prepareStatement(sql);
+    private int readSellRecordsByRevenuePerKg(double minPrice, double maxPrice, Consumer<? super SellRecord> consumer) throws SQLException {
+        String sql = "SELECT records.record_id, datetime, weight, revenue FROM sells CROSS JOIN records ON records.record_id = sells.record_id " +
+                "WHERE user_id = ? AND revenue_per_kg BETWEEN ? AND ? ORDER BY revenue_per_kg, records.record_id;";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
             statement.setInt(1, currentUser.getUser_id());
-            statement.setInt(2, record_id);
-            statement.execute();
-            results = statement.getResultSet();
-            if (results.next()) {
-                toReturn = new SellRecord(
+            statement.setDouble(2, minPrice);
+            statement.setDouble(3, maxPrice);
+            return streamSellRecords(statement, consumer);
+        }
+    }
+
+    public ArrayList<CatchRecord> getCatchRecordsByWeight(double minWeight, double maxWeight) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getCatchRecordsByWeight")) {
+            ArrayList<CatchRecord> records = new ArrayList<>();
+            readCatchRecordsByWeight(minWeight, maxWeight, records::add);
+            timer.setRows(records.size());
+            return records;
+        }
+    }
+
+    public ArrayList<SellRecord> getSellRecordsByWeight(double minWeight, double maxWeight) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getSellRecordsByWeight")) {
+            ArrayList<SellRecord> records = new ArrayList<>();
+            readSellRecordsByWeight(minWeight, maxWeight, records::add);
+            timer.setRows(records.size());
+            return records;
+        }
+    }
+
+    public ArrayList<SellRecord> getSellRecordsByRevenue(double minRevenue, double maxRevenue) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getSellRecordsByRevenue")) {
+            ArrayList<SellRecord> records = new ArrayList<>();
+            readSellRecordsByRevenue(minRevenue, maxRevenue, records::add);
+            timer.setRows(records.size());
+            return records;
+        }
+    }
+
+    public ArrayList<SellRecord> getSellRecordsByRevenuePerKg(double minPrice, double maxPrice) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getSellRecordsByRevenuePerKg")) {
+            ArrayList<SellRecord> records = new ArrayList<>();
+            readSellRecordsByRevenuePerKg(minPrice, maxPrice, records::add);
+            timer.setRows(records.size());
+            return records;
+        }
+    }
+
+    //reads rows of (record_id, datetime, weight, latitude, longitude) straight into the consumer
+    private int streamCatchRecords(PreparedStatement statement, Consumer<? super CatchRecord> consumer) throws SQLException {
+        int count = 0;
+        try (ResultSet results = statement.executeQuery()) {
+            while (results.next()) {
+                consumer.accept(new CatchRecord(this,
                         results.getInt(1),
-                        LocalDateTime.parse(results.getString(2)),
+                        fromEpoch(results.getLong(2)),
                         results.getDouble(3),
-                        results.getDouble(4)
-                );
+                        results.getDouble(4),
+                        results.getDouble(5)
+                ));
+                count++;
             }
         }
+        return count;
+    }
 
-        connection.close();
-        return toReturn;
+    //reads rows of (record_id, datetime, weight, revenue) straight into the consumer
+    private int streamSellRecords(PreparedStatement statement, Consumer<? super SellRecord> consumer) throws SQLException {
+        int count = 0;
+        try (ResultSet results = statement.executeQuery()) {
+            while (results.next()) {
+                consumer.accept(new SellRecord(this,
+                        results.getInt(1),
+                        fromEpoch(results.getLong(2)),
+                        results.getDouble(3),
+                        results.getDouble(4)
+                ));
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
-     * Method: getRecordsByDate(LocalDateTime dateTime)
+     * Method: getRecordsByLocation(double latitude, double longitude)
      *
-     * Description: Returns records (catch records or sell records) with a given datetime associated with the current user.
+     * Description: Returns catch records associated with the current user that have a given location. Takes latitude
+     * and longitude as arguments. Looked up through the catch location index.
      * Throws an SQLException if there's an SQL-related error.
      *
      * Author: Edward Attenborough
-     * Date: 09/06/2021
+     * Date: 10/06/2021
      */
-    public ArrayList<Record> getRecordsByDate(LocalDateTime dateTime) throws SQLException {
-        ArrayList<Record> records = new ArrayList<>();
-
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "SELECT records.record_id, datetime, weight, latitude, longitude FROM records INNER JOIN catches ON records.record_id = catches.record_id WHERE user_id = ? AND datetime = ?;";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setInt(1, currentUser.getUser_id());
-        statement.setString(2, dateTime.toString());
-        statement.execute();
-        ResultSet results = statement.getResultSet();
-
-        while (results.next()) {
-            records.add(new CatchRecord(
-                    results.getInt(1),
-                    LocalDateTime.parse(results.getString(2)),
-                    results.getDouble(3),
-                    results.getDouble(4),
-                    results.getDouble(5)
-            ));
-        }
-
-        sql = "SELECT records.record_id, datetime, weight, revenue FROM records INNER JOIN sells ON records.record_id = sells.record_id WHERE user_id = ? AND datetime = ?;";
-        statement = connection.prepareStatement(sql);
-        statement.setInt(1, currentUser.getUser_id());
-        statement.setString(2, dateTime.toString());
-        statement.execute();
-        results = statement.getResultSet();
-
-        if (results.next()) {
-            records.add(new SellRecord(
-                    results.getInt(1),
-                    LocalDateTime.parse(results.getString(2)),
-                    results.getDouble(3),
-                    results.getDouble(4)
-            ));
+    public ArrayList<CatchRecord> getRecordsByLocation(double latitude, double longitude) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getRecordsByLocation")) {
+            ArrayList<CatchRecord> records = readCatchRecordsInArea(latitude, latitude, longitude, longitude);
+            timer.setRows(records.size());
+            return records;
         }
-        connection.close();
-        return records;
     }
 
     /**
-     * Method: getRecordsByWeight(double weight)
+     * Method: getCatchRecordsInArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude)
      *
-     * Description: Returns records (catch records or sell records) with a given weight associated with the current user.
+     * Description: Returns the catch records associated with the current user that were made inside a bounding box,
+     * edges included, in time order. The catch location R*Tree narrows the search down to the box, and the exact
+     * coordinates are then checked since the R*Tree only stores them approximately. A box that crosses the 180th
+     * meridian can be given with minLongitude greater than maxLongitude.
      * Throws an SQLException if there's an SQL-related error.
      *
-     * Author: Edward Attenborough
-     * Date: 09/06/2021
+     * Date: 17/10/2026
      */
-    public ArrayList<Record> getRecordsByWeight(double weight) throws SQLException {
-        ArrayList<Record> records = new ArrayList<>();
-
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "SELECT records.record_id, datetime, weight, latitude, longitude FROM records INNER JOIN catches ON records.record_id = catches.record_id WHERE user_id = ? AND weight = ?;";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setInt(1, currentUser.getUser_id());
-        statement.setDouble(2, weight);
-        statement.execute();
-        ResultSet results = statement.getResultSet();
-
-        while (results.next()) {
-            records.add(new CatchRecord(
-                    results.getInt(1),
-                    LocalDateTime.parse(results.getString(2)),
-                    results.getDouble(3),
-                    results.getDouble(4),
-                    results.getDouble(5)
-            ));
+    public ArrayList<CatchRecord> getCatchRecordsInArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getCatchRecordsInArea")) {
+            ArrayList<CatchRecord> records = readCatchRecordsInArea(minLatitude, maxLatitude, minLongitude, maxLongitude);
+            timer.setRows(records.size());
+            return records;
         }
+    }
 
-        sql = "SELECT records.record_id, datetime, weight, revenue FROM records INNER JOIN sells ON records.record_id = sells.record_id WHERE user_id = ? AND weight = ?;";
-        statement = connection.prepareStatement(sql);
-        statement.setInt(1, currentUser.getUser_id());
-        statement.setDouble(2, weight);
-        statement.execute();
-        results = statement.getResultSet();
+    private ArrayList<CatchRecord> readCatchRecordsInArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) throws SQLException {
+        ArrayList<CatchRecord> records = new ArrayList<>();
+        if (minLongitude > maxLongitude) {
+            records.addAll(readCatchRecordsInArea(minLatitude, maxLatitude, minLongitude, 180));
+            records.addAll(readCatchRecordsInArea(minLatitude, maxLatitude, -180, maxLongitude));
+            records.sort(TIME_ORDER);
+            return records;
+        }
 
-        if (results.next()) {
-            records.add(new SellRecord(
-                    results.getInt(1),
-                    LocalDateTime.parse(results.getString(2)),
-                    results.getDouble(3),
-                    results.getDouble(4)
-            ));
+        //CROSS JOIN stops SQLite reordering the joins, so the R*Tree drives the search instead of the user's records
+        String sql = "SELECT records.record_id, datetime, weight, catches.latitude, catches.longitude FROM catches_location " +
+                "CROSS JOIN records ON records.record_id = catches_location.record_id CROSS JOIN catches ON catches.record_id = catches_location.record_id " +
+                "WHERE catches_location.min_latitude <= ? AND catches_location.max_latitude >= ? AND catches_location.min_longitude <= ? AND catches_location.max_longitude >= ? " +
+                "AND user_id = ? AND catches.latitude BETWEEN ? AND ? AND catches.longitude BETWEEN ? AND ? ORDER BY datetime, records.record_id;";
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setDouble(1, maxLatitude);
+            statement.setDouble(2, minLatitude);
+            statement.setDouble(3, maxLongitude);
+            statement.setDouble(4, minLongitude);
+            statement.setInt(5, currentUser.getUser_id());
+            statement.setDouble(6, minLatitude);
+            statement.setDouble(7, maxLatitude);
+            statement.setDouble(8, minLongitude);
+            statement.setDouble(9, maxLongitude);
+
+            try (ResultSet results = statement.executeQuery()) {
+                while (results.next()) {
+                    records.add(new CatchRecord(this,
+                            results.getInt(1),
+                            fromEpoch(results.getLong(2)),
+                            results.getDouble(3),
+                            results.getDouble(4),
+                            results.getDouble(5)
+                    ));
+                }
+            }
         }
-        connection.close();
         return records;
     }
 
     /**
-     * Method: getRecordsByRevenue(double revenue)
+     * Method: getCatchRecordsNear(double latitude, double longitude, double radiusKm)
      *
-     * Description: Returns sell records associated with the current user that have a given revenue.
+     * Description: Returns the catch records associated with the current user that were made within radiusKm
+     * kilometres of a point, in time order. The bounding box around the circle is looked up in the catch location
+     * index, then catches in the corners of the box are dropped using the great circle distance.
      * Throws an SQLException if there's an SQL-related error.
      *
-     * Author: Edward Attenborough
-     * Date: 10/06/2021
+     * Date: 17/10/2026
      */
-    public ArrayList<SellRecord> getRecordsByRevenue(double revenue) throws SQLException {
-        ArrayList<SellRecord> records = new ArrayList<>();
-
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "SELECT records.record_id, datetime, weight, revenue FROM records INNER JOIN sells ON records.record_id = sells.record_id WHERE user_id = ? AND revenue  = ?;";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setInt(1, currentUser.getUser_id());
-        statement.setDouble(2, revenue);
-        statement.execute();
-        ResultSet results = statement.getResultSet();
-
-        if (results.next()) {
-            records.add(new SellRecord(
-                    results.getInt(1),
-                    LocalDateTime.parse(results.getString(2)),
-                    results.getDouble(3),
-                    results.getDouble(4)
-            ));
+    public ArrayList<CatchRecord> getCatchRecordsNear(double latitude, double longitude, double radiusKm) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("getCatchRecordsNear")) {
+            double[] box = boxAround(latitude, longitude, radiusKm);
+            ArrayList<CatchRecord> records = readCatchRecordsInArea(box[0], box[1], box[2], box[3]);
+            records.removeIf(record -> distanceKm(latitude, longitude, record.latitude, record.longitude) > radiusKm);
+            timer.setRows(records.size());
+            return records;
         }
-        connection.close();
-        return records;
     }
 
     /**
-     * Method: getRecordsByRevenue(double revenue)
+     * Method: distanceKm(double latitude1, double longitude1, double latitude2, double longitude2)
      *
-     * Description: Returns catch records associated with the current user that have a given location. Takes latitude
-     * and longitude as arguments.
-     * Throws an SQLException if there's an SQL-related error.
+     * Description: Returns the great circle distance between two points in kilometres, using the haversine formula.
      *
-     * Author: Edward Attenborough
-     * Date: 10/06/2021
+     * Date: 17/10/2026
      */
-    public ArrayList<CatchRecord> getRecordsByLocation(double latitude, double longitude) throws SQLException {
-        ArrayList<CatchRecord> records = new ArrayList<>();
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double latitudeDelta = Math.toRadians(latitude2 - latitude1);
+        double longitudeDelta = Math.toRadians(longitude2 - longitude1);
+        double a = Math.pow(Math.sin(latitudeDelta / 2), 2) +
+                Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * Math.pow(Math.sin(longitudeDelta / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
 
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "SELECT records.record_id, datetime, weight, latitude, longitude FROM records INNER JOIN catches ON records.record_id = catches.record_id WHERE user_id = ? AND latitude = ? AND longitude = ?;";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setInt(1, currentUser.getUser_id());
-        statement.setDouble(2, latitude);
-        statement.setDouble(3, longitude);
-        statement.execute();
-        ResultSet results = statement.getResultSet();
+    //the bounding box around a circle, as {minLatitude, maxLatitude, minLongitude, maxLongitude} to be given to getCatchRecordsInArea()
+    static double[] boxAround(double latitude, double longitude, double radiusKm) {
+        double latitudeDelta = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double minLatitude = Math.max(-90, latitude - latitudeDelta);
+        double maxLatitude = Math.min(90, latitude + latitudeDelta);
+
+        //a degree of longitude gets shorter towards the poles, so the box has to get wider
+        double minLongitude = -180;
+        double maxLongitude = 180;
+        double widest = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+        if (widest < 90) {
+            double longitudeDelta = latitudeDelta / Math.cos(Math.toRadians(widest));
+            if (longitudeDelta < 180) {
+                minLongitude = normaliseLongitude(longitude - longitudeDelta);
+                maxLongitude = normaliseLongitude(longitude + longitudeDelta);
+            }
+        }
+        return new double[] {minLatitude, maxLatitude, minLongitude, maxLongitude};
+    }
 
-        while (results.next()) {
-            records.add(new CatchRecord(
-                    results.getInt(1),
-                    LocalDateTime.parse(results.getString(2)),
-                    results.getDouble(3),
-                    results.getDouble(4),
-                    results.getDouble(5)
-            ));
+    private static double normaliseLongitude(double longitude) {
+        if (longitude > 180) {
+            return longitude - 360;
+        } else if (longitude < -180) {
+            return longitude + 360;
         }
-        connection.close();
-        return records;
+        return longitude;
     }
 
     public static void main(String[] args) {
@@ -634,29 +1862,35 @@ public class LocalDatabase {
         }
     }
 
-    abstract class Record {
+    /**
+     * Class: Record
+     *
+     * Description: A catch or selling record. Records remember the RecordStore they were read from, or were added
+     * to, and their edit methods change them in that store. A record that hasn't been added to a store yet can't
+     * be edited.
+     *
+     * Date: 17/10/2026
+     */
+    abstract static class Record {
         public LocalDateTime date;
         public double weight;
         protected int record_id;
+        RecordStore store;
 
         public void editDate(LocalDateTime newDate) throws SQLException {
-            Connection connection = DriverManager.getConnection(connectionString);
-            String sql = "UPDATE records SET datetime = ? WHERE record_id = ?";
-            PreparedStatement statement = connection.prepareStatement(sql);
-            statement.setString(1, newDate.toString());
-            statement.setInt(2, record_id);
-            statement.execute();
-            this.date = newDate;
+            getStore().editDate(this, newDate);
         }
 
         public void editWeight(double newWeight) throws SQLException {
-            Connection connection = DriverManager.getConnection(connectionString);
-            String sql = "UPDATE records SET weight = ? WHERE record_id = ?";
-            PreparedStatement statement = connection.prepareStatement(sql);
-            statement.setDouble(1, newWeight);
-            statement.setInt(2, record_id);
-            statement.execute();
-            this.weight = newWeight;
+            getStore().editWeight(this, newWeight);
+        }
+
+        //the store the record belongs to
+        RecordStore getStore() {
+            if (store == null) {
+                throw new IllegalStateException("The record hasn't been added to a store yet");
+            }
+            return store;
         }
 
         public double getWeight() {
@@ -673,11 +1907,17 @@ public class LocalDatabase {
         }
     }
 
-    public class CatchRecord extends Record {
+    public static class CatchRecord extends Record {
         public double latitude;
         public double longitude;
 
-        public CatchRecord(int record_id, LocalDateTime dateTime, double weight, double latitude, double longitude) {
+        //a catch that hasn't been added to a store yet, used with inputCatchBatch()
+        public CatchRecord(LocalDateTime dateTime, double weight, double latitude, double longitude) {
+            this(null, 0, dateTime, weight, latitude, longitude);
+        }
+
+        CatchRecord(RecordStore store, int record_id, LocalDateTime dateTime, double weight, double latitude, double longitude) {
+            this.store = store;
             this.record_id = record_id;
             this.date = dateTime;
             this.weight = weight;
@@ -686,16 +1926,7 @@ public class LocalDatabase {
         }
 
         public void editLocation(double latitude, double longitude) throws SQLException {
-            Connection connection = DriverManager.getConnection(connectionString);
-            String sql = "UPDATE catches SET latitude = ?, longitude = ? WHERE record_id = ?";
-            PreparedStatement statement = connection.prepareStatement(sql);
-            statement.setDouble(1, latitude);
-            statement.setDouble(2, longitude);
-            statement.setInt(3, record_id);
-            statement.execute();
-            connection.close();
-            this.latitude = latitude;
-            this.longitude = longitude;
+            getStore().editLocation(this, latitude, longitude);
         }
 
         public String toString() {
@@ -712,10 +1943,16 @@ public class LocalDatabase {
 
     }
 
-    public class SellRecord extends Record {
+    public static class SellRecord extends Record {
         public double revenue;
 
-        public SellRecord(int record_id, LocalDateTime date, double weight, double revenue) {
+        //a sale that hasn't been added to a store yet, used with inputSellBatch()
+        public SellRecord(LocalDateTime date, double weight, double revenue) {
+            this(null, 0, date, weight, revenue);
+        }
+
+        SellRecord(RecordStore store, int record_id, LocalDateTime date, double weight, double revenue) {
+            this.store = store;
             this.record_id = record_id;
             this.date = date;
             this.weight = weight;
@@ -723,15 +1960,9 @@ public class LocalDatabase {
         }
 
         public void editRevenue(double newRevenue) throws SQLException {
-            Connection connection = DriverManager.getConnection(connectionString);
-            String sql = "UPDATE sells SET revenue = ? WHERE record_id = ?;";
-            PreparedStatement statement = connection.prepareStatement(sql);
-            statement.setDouble(1, newRevenue);
-            statement.setInt(2, record_id);
-            statement.execute();
-            connection.close();
-            this.revenue = newRevenue;
+            getStore().editRevenue(this, newRevenue);
         }
+
         public SimpleDoubleProperty priceProperty(){
 
             return new SimpleDoubleProperty(revenue);
@@ -742,6 +1973,74 @@ public class LocalDatabase {
         }
     }
 
+    /**
+     * Method: editDate(Record record, LocalDateTime newDate)
+     *
+     * Description: Changes the date time of a record straight away, rather than through the edit queue.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public void editDate(Record record, LocalDateTime newDate) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("editDate")) {
+            String sql = "UPDATE records SET datetime = ? WHERE record_id = ?";
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setLong(1, toEpoch(newDate));
+                statement.setInt(2, record.record_id);
+                timer.setRows(statement.executeUpdate());
+            }
+            record.date = newDate;
+            recordCache.updated(record);
+        }
+    }
+
+    public void editWeight(Record record, double newWeight) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("editWeight")) {
+            String sql = "UPDATE records SET weight = ? WHERE record_id = ?";
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setDouble(1, newWeight);
+                statement.setInt(2, record.record_id);
+                timer.setRows(statement.executeUpdate());
+            }
+            record.weight = newWeight;
+            recordCache.updated(record);
+            heatmapCache.invalidate();
+        }
+    }
+
+    public void editLocation(CatchRecord record, double latitude, double longitude) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("editLocation")) {
+            String sql = "UPDATE catches SET latitude = ?, longitude = ? WHERE record_id = ?";
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setDouble(1, latitude);
+                statement.setDouble(2, longitude);
+                statement.setInt(3, record.record_id);
+                timer.setRows(statement.executeUpdate());
+            }
+            record.latitude = latitude;
+            record.longitude = longitude;
+            recordCache.updated(record);
+            heatmapCache.invalidate();
+        }
+    }
+
+    public void editRevenue(SellRecord record, double newRevenue) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("editRevenue")) {
+            String sql = "UPDATE sells SET revenue = ? WHERE record_id = ?;";
+            try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setDouble(1, newRevenue);
+                statement.setInt(2, record.record_id);
+                timer.setRows(statement.executeUpdate());
+            }
+            record.revenue = newRevenue;
+            recordCache.updated(record);
+        }
+    }
+
     public static class UserNotFoundException extends Exception {
         public UserNotFoundException(String message) {
             super(message);
@@ -755,66 +2054,110 @@ public class LocalDatabase {
     }
     
         public void deleteData(int record_id) throws SQLException {
-        Connection connection = DriverManager.getConnection(connectionString);
-        String sql = "DELETE FROM records WHERE record_id = ?;";
-        PreparedStatement statement = connection.prepareStatement(sql);
-        statement.setInt(1, record_id);
-        statement.execute();
-        String sql1 = "DELETE FROM catches WHERE record_id = ?";
-        PreparedStatement statement1 = connection.prepareStatement(sql1);
-        statement.setInt(1, record_id);
-        statement1.execute();
-        connection.close();
+        try (Instrumentation.Timer timer = Instrumentation.database("deleteData")) {
+            timer.setRows(removeRecords(Collections.singletonList(record_id)));
+        }
     }
-    
-        public void exportData(String filePath) throws IOException, SQLException {
-
-         ArrayList<CatchRecord> catchRecords = getAllCatchRecords();
-         ArrayList<SellRecord> sellRecords = getAllSellRecords();
-
-         File newFile = new File(filePath + "/exportData.txt");
-         BufferedWriter fileWriter = new BufferedWriter(new FileWriter(newFile));
-
-
-         for (CatchRecord record: catchRecords){
-
-                 String datetime = record.date.toString();
-                 double weight = record.getWeight();
-                 double longitude = record.longitude;
-                 double latitude = record.latitude;
-                 String line = String.format("%s, %f, %f, %f" , datetime, weight, longitude, latitude);
-                 fileWriter.write(line);
-                 fileWriter.newLine();
 
+    /**
+     * Method: deleteRecords(Collection<Integer> record_ids)
+     *
+     * Description: Deletes the current user's records with the given ids, along with their catches and sales, in one
+     * transaction, and returns how many records were deleted. The ids are put in a temporary table so the records
+     * are deleted by a single statement however many there are; the foreign keys from catches and sells cascade
+     * the delete to them, and the triggers on all three keep the location index and stock totals in step.
+     * Throws an SQLException if there's an SQL-related error, in which case nothing is deleted.
+     *
+     * Date: 17/10/2026
+     */
+    public int deleteRecords(Collection<Integer> record_ids) throws SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("deleteRecords")) {
+            int deleted = removeRecords(record_ids);
+            timer.setRows(deleted);
+            return deleted;
+        }
+    }
 
-             }
-         for (SellRecord record: sellRecords){
-                String datetime = record.date.toString();
-                double weight = record.getWeight();
-                double price = record.revenue;
-                String line = String.format("%s, %f, %f" , datetime, weight, price);
-                fileWriter.write(line);
-                fileWriter.newLine();
+    private int removeRecords(Collection<Integer> record_ids) throws SQLException {
+        if (record_ids.isEmpty()) {
+            return 0;
+        }
+        int deleted;
+        try (ConnectionPool.PooledConnection connection = pool.acquire()) {
+            Connection jdbc = connection.getConnection();
+            jdbc.setAutoCommit(false);
+            try {
+                connection.prepare("CREATE TEMP TABLE IF NOT EXISTS delete_ids (record_id INTEGER PRIMARY KEY);").executeUpdate();
+                PreparedStatement insert = connection.prepare("INSERT OR IGNORE INTO delete_ids (record_id) VALUES (?);");
+                for (int record_id : record_ids) {
+                    insert.setInt(1, record_id);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+
+                PreparedStatement delete = connection.prepare("DELETE FROM records WHERE user_id = ? AND record_id IN (SELECT record_id FROM delete_ids);");
+                delete.setInt(1, currentUser.getUser_id());
+                deleted = delete.executeUpdate();
+                connection.prepare("DELETE FROM delete_ids;").executeUpdate();
+                jdbc.commit();
+            } catch (SQLException | RuntimeException e) {
+                jdbc.rollback();
+                throw e;
+            } finally {
+                jdbc.setAutoCommit(true);
             }
-         fileWriter.close();
+        }
+        for (int record_id : record_ids) {
+            recordCache.remove(record_id);
+            editQueue.discard(record_id);
+        }
+        heatmapCache.invalidate();
+        return deleted;
     }
     
-        public void importData(String filePath) throws IOException {
-        BufferedReader br = new BufferedReader(new FileReader(filePath));
-        try {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] data = line.split(",");
-                if (data.length == 4){
-                    inputCatchData(LocalDateTime.parse(data[0]), Double.parseDouble(data[1]), Double.parseDouble(data[2]), Double.parseDouble(data[3]));
-                }
-                else{
-                    inputSellData(LocalDateTime.parse(data[0]), Double.parseDouble(data[1]), Double.parseDouble(data[2]));
-                }
-            }
-        } catch (IOException | SQLException e) {
-            e.printStackTrace();
+    /**
+     * Method: exportData(String filePath, boolean compress)
+     *
+     * Description: Exports all of the current user's records to exportData.txt in the given folder, or to
+     * exportData.txt.gz if compress is true, in the format read by importData(). Rows are streamed from the database
+     * through a CatchLogExporter so the export doesn't need to hold the user's history in memory. Returns the number
+     * of records exported.
+     * Throws an IOException if the file can't be written, or an SQLException if the records can't be read.
+     *
+     * Date: 17/10/2026
+     */
+    public long exportData(String filePath, boolean compress) throws IOException, SQLException {
+        try (Instrumentation.Timer timer = Instrumentation.database("exportData")) {
+            Path file = Paths.get(filePath, compress ? "exportData.txt.gz" : "exportData.txt");
+            long exported = new CatchLogExporter(this).exportTo(file, compress);
+            timer.setRows(exported);
+            return exported;
+        }
+    }
+
+    public long exportData(String filePath) throws IOException, SQLException {
+        return exportData(filePath, false);
+    }
+
+    /**
+     * Method: importData(String filePath, CatchLogImporter.ProgressListener listener)
+     *
+     * Description: Imports a catch log text file for the current user through a CatchLogImporter, reporting
+     * progress to the listener (which may be null) after every batch. Lines that can't be imported are returned in
+     * the ImportResult with their line numbers rather than stopping the import.
+     * Throws an IOException if the file can't be read.
+     *
+     * Date: 17/10/2026
+     */
+    public CatchLogImporter.ImportResult importData(String filePath, CatchLogImporter.ProgressListener listener) throws IOException {
+        try (Instrumentation.Timer timer = Instrumentation.database("importData")) {
+            CatchLogImporter.ImportResult result = new CatchLogImporter(this).importFile(Paths.get(filePath), listener);
+            timer.setRows(result.getImported());
+            return result;
         }
-        br.close();
+    }
+
+    public CatchLogImporter.ImportResult importData(String filePath) throws IOException {
+        return importData(filePath, null);
     }
 }
@@ -0,0 +1,118 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Class: PeriodTotals
+ *
+ * Description: A user's totals for one day, week or month, as returned by LocalDatabase.getTotalsByPeriod(): how
+ * much they caught and in how many catches, and how much they sold, in how many sales and for how much.
+ *
+ * Date: 17/10/2026
+ */
+public class PeriodTotals {
+
+    /**
+     * Class: Period
+     *
+     * Description: The length of period totals are grouped by. Weeks start on a Monday.
+     *
+     * Date: 17/10/2026
+     */
+    public enum Period {
+        DAY, WEEK, MONTH;
+
+        //the first day of the period the given day is in
+        public LocalDate startOf(LocalDate day) {
+            switch (this) {
+                case WEEK:
+                    return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH:
+                    return day.withDayOfMonth(1);
+                default:
+                    return day;
+            }
+        }
+
+        public LocalDate next(LocalDate start) {
+            switch (this) {
+                case WEEK:
+                    return start.plusWeeks(1);
+                case MONTH:
+                    return start.plusMonths(1);
+                default:
+                    return start.plusDays(1);
+            }
+        }
+    }
+
+    private final Period period;
+    private final LocalDate start;
+    private double caught = 0;
+    private int catchCount = 0;
+    private double sold = 0;
+    private double revenue = 0;
+    private int sellCount = 0;
+
+    public PeriodTotals(Period period, LocalDate start) {
+        this.period = period;
+        this.start = start;
+    }
+
+    public PeriodTotals(Period period, LocalDate start, double caught, int catchCount, double sold, double revenue, int sellCount) {
+        this(period, start);
+        add(caught, catchCount, sold, revenue, sellCount);
+    }
+
+    //adds a day's totals (or any other part of the period) to the period's totals
+    void add(double caught, int catchCount, double sold, double revenue, int sellCount) {
+        this.caught += caught;
+        this.catchCount += catchCount;
+        this.sold += sold;
+        this.revenue += revenue;
+        this.sellCount += sellCount;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    //the day after the period ends
+    public LocalDate getEnd() {
+        return period.next(start);
+    }
+
+    public double getCaught() {
+        return caught;
+    }
+
+    public int getCatchCount() {
+        return catchCount;
+    }
+
+    public double getSold() {
+        return sold;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public int getSellCount() {
+        return sellCount;
+    }
+
+    //the revenue per kg over all the period's sales, weighted by how much each sale weighed, or 0 if nothing was sold
+    public double getRevenuePerKg() {
+        return sold == 0 ? 0 : revenue / sold;
+    }
+
+    public String toString() {
+        return String.format("%s from %s: caught %skg in %d catches, sold %skg in %d sales for $%s",
+                period, start, caught, catchCount, sold, sellCount, revenue);
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class: RecordCache
+ *
+ * Description: A bounded cache of one user's records owned by a LocalDatabase, keyed by record_id, which drops the
+ * least recently used record once it's full. LocalDatabase reads through it in getRecordById() and fills it from
+ * the paged queries the tables are shown from. Edits are made on the Record objects themselves, so a cached record
+ * edited in place stays correct, and any other copy of an edited or deleted record is removed. The cache belongs
+ * to one user at a time and empties itself when asked for a different user's records.
+ *
+ * Date: 17/10/2026
+ */
+public class RecordCache {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final LinkedHashMap<Integer, LocalDatabase.Record> records;
+    private int capacity;
+    private int user_id = -1;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public RecordCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("A record cache can't have a negative capacity");
+        }
+        this.capacity = capacity;
+        //access ordered, so the record used longest ago is dropped once the cache is full
+        this.records = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, LocalDatabase.Record> eldest) {
+                if (size() > RecordCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Method: get(int user_id, int record_id)
+     *
+     * Description: Returns the cached record with the given id belonging to the given user, or null if it isn't
+     * cached, counting a hit or a miss.
+     *
+     * Date: 17/10/2026
+     */
+    public synchronized LocalDatabase.Record get(int user_id, int record_id) {
+        LocalDatabase.Record record = owner(user_id) ? records.get(record_id) : null;
+        if (record != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return record;
+    }
+
+    public synchronized void put(int user_id, LocalDatabase.Record record) {
+        owner(user_id);
+        records.put(record.record_id, record);
+    }
+
+    /**
+     * Method: updated(LocalDatabase.Record record)
+     *
+     * Description: Called after a record has been edited. If the cache holds a different copy of the record it
+     * now has out of date values, so it's removed.
+     *
+     * Date: 17/10/2026
+     */
+    public synchronized void updated(LocalDatabase.Record record) {
+        LocalDatabase.Record cached = records.get(record.record_id);
+        if (cached != null && cached != record) {
+            records.remove(record.record_id);
+        }
+    }
+
+    public synchronized void remove(int record_id) {
+        records.remove(record_id);
+    }
+
+    public synchronized void clear() {
+        records.clear();
+    }
+
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("A record cache can't have a negative capacity");
+        }
+        this.capacity = capacity;
+        Iterator<Map.Entry<Integer, LocalDatabase.Record>> iterator = records.entrySet().iterator();
+        while (records.size() > capacity) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public synchronized String toString() {
+        return String.format("%d of %d records cached, %d hits, %d misses (%.1f%% hit ratio), %d evictions",
+                records.size(), capacity, hits, misses, getHitRatio() * 100, evictions);
+    }
+
+    //empties the cache if it holds a different user's records, and returns whether it already belonged to this user
+    private boolean owner(int user_id) {
+        if (this.user_id == user_id) {
+            return true;
+        }
+        records.clear();
+        this.user_id = user_id;
+        return false;
+    }
+}
@@ -0,0 +1,157 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Class: RecordColumns
+ *
+ * Description: A snapshot of one kind of a user's records, held as parallel arrays of primitives (one array per
+ * column) rather than as Record objects, for calculations over a user's whole history. Index i of every array is
+ * the same record, and the records are in time order, so a date range is a contiguous slice of the arrays found
+ * by binary search. Loading a snapshot reads the rows straight into the arrays without making a single Record.
+ * The arrays returned by the getters are the snapshot's own and shouldn't be changed.
+ *
+ * Date: 17/10/2026
+ */
+public abstract class RecordColumns {
+
+    //scans over fewer records than this aren't worth splitting across threads
+    static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    protected int size = 0;
+    protected int[] recordId;
+    protected long[] epoch;
+    protected double[] weight;
+
+    RecordColumns(int capacity) {
+        recordId = new int[capacity];
+        epoch = new long[capacity];
+        weight = new double[capacity];
+    }
+
+    /**
+     * Method: load(ResultSet results)
+     *
+     * Description: Reads every row of a result set whose first three columns are the record_id, datetime and
+     * weight, in time order, growing the arrays if there are more rows than expected and trimming them to the
+     * number of rows at the end.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    void load(ResultSet results) throws SQLException {
+        while (results.next()) {
+            if (size == epoch.length) {
+                resize(Math.max(16, size * 2));
+            }
+            recordId[size] = results.getInt(1);
+            epoch[size] = results.getLong(2);
+            weight[size] = results.getDouble(3);
+            readColumns(results, size);
+            size++;
+        }
+        if (size != epoch.length) {
+            resize(size);
+        }
+    }
+
+    //adds a record after the last one, which it must not be before in time order, and returns its index
+    int append(int record_id, long epoch, double weight) {
+        if (size == this.epoch.length) {
+            resize(Math.max(16, size * 2));
+        }
+        recordId[size] = record_id;
+        this.epoch[size] = epoch;
+        this.weight[size] = weight;
+        return size++;
+    }
+
+    //reads the columns particular to this kind of record from the current row into the given index
+    abstract void readColumns(ResultSet results, int index) throws SQLException;
+
+    protected void resize(int capacity) {
+        recordId = Arrays.copyOf(recordId, capacity);
+        epoch = Arrays.copyOf(epoch, capacity);
+        weight = Arrays.copyOf(weight, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] getRecordIds() {
+        return recordId;
+    }
+
+    //in records.datetime form, see LocalDatabase.toEpoch()
+    public long[] getEpochs() {
+        return epoch;
+    }
+
+    public double[] getWeights() {
+        return weight;
+    }
+
+    public LocalDateTime getDateTime(int index) {
+        return LocalDatabase.fromEpoch(epoch[index]);
+    }
+
+    public double getTotalWeight() {
+        return sum(weight, 0, size);
+    }
+
+    /**
+     * Method: getTotalWeight(LocalDateTime from, LocalDateTime to)
+     *
+     * Description: Returns the total weight of the records made from the given date time up to (but not including)
+     * the to date time. Either end may be null to leave it open.
+     *
+     * Date: 17/10/2026
+     */
+    public double getTotalWeight(LocalDateTime from, LocalDateTime to) {
+        return sum(weight, indexFrom(from, 0), indexFrom(to, size));
+    }
+
+    /**
+     * Method: indexFrom(LocalDateTime dateTime, int ifNull)
+     *
+     * Description: Returns the index of the first record made at or after the given date time, or size() if they
+     * were all made before it, by binary search. Returns ifNull if the date time is null.
+     *
+     * Date: 17/10/2026
+     */
+    public int indexFrom(LocalDateTime dateTime, int ifNull) {
+        if (dateTime == null) {
+            return ifNull;
+        }
+        long target = LocalDatabase.toEpoch(dateTime);
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (epoch[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //a plain loop over a slice of one array, which the JIT compiler can unroll and keep in registers
+    protected static double sum(double[] values, int from, int to) {
+        double total = 0;
+        for (int i = from; i < to; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    //the indexes from one up to another, split across the common fork/join pool if there are enough of them
+    protected static IntStream indexes(int from, int to) {
+        IntStream indexes = IntStream.range(from, to);
+        return to - from >= PARALLEL_THRESHOLD ? indexes.parallel() : indexes;
+    }
+}
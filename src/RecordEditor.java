@@ -0,0 +1,78 @@
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface: RecordEditor
+ *
+ * Description: How edits made in the record tables reach a RecordStore. Each edit changes the Record object
+ * straight away and returns a future that completes once the store has the change, or fails if it couldn't be
+ * made. LocalDatabase's EditQueue holds edits back and writes them together; stores that are cheap to change
+ * directly use the editor from direct(), which makes each edit straight away.
+ *
+ * Date: 17/10/2026
+ */
+public interface RecordEditor {
+
+    CompletableFuture<Integer> editDate(LocalDatabase.Record record, LocalDateTime newDate) throws IOException;
+
+    CompletableFuture<Integer> editWeight(LocalDatabase.Record record, double newWeight) throws IOException;
+
+    CompletableFuture<Integer> editLocation(LocalDatabase.CatchRecord record, double latitude, double longitude) throws IOException;
+
+    CompletableFuture<Integer> editRevenue(LocalDatabase.SellRecord record, double newRevenue) throws IOException;
+
+    //makes any edits still held back now, and returns how many records were written
+    int flush() throws SQLException;
+
+    /**
+     * Method: direct(RecordStore store)
+     *
+     * Description: Returns an editor that makes each edit in the store as soon as it's asked for, with nothing to
+     * flush. The futures it returns have already completed.
+     *
+     * Date: 17/10/2026
+     */
+    static RecordEditor direct(RecordStore store) {
+        return new RecordEditor() {
+            @Override
+            public CompletableFuture<Integer> editDate(LocalDatabase.Record record, LocalDateTime newDate) {
+                return made(() -> store.editDate(record, newDate));
+            }
+
+            @Override
+            public CompletableFuture<Integer> editWeight(LocalDatabase.Record record, double newWeight) {
+                return made(() -> store.editWeight(record, newWeight));
+            }
+
+            @Override
+            public CompletableFuture<Integer> editLocation(LocalDatabase.CatchRecord record, double latitude, double longitude) {
+                return made(() -> store.editLocation(record, latitude, longitude));
+            }
+
+            @Override
+            public CompletableFuture<Integer> editRevenue(LocalDatabase.SellRecord record, double newRevenue) {
+                return made(() -> store.editRevenue(record, newRevenue));
+            }
+
+            @Override
+            public int flush() {
+                return 0;
+            }
+
+            private CompletableFuture<Integer> made(Edit edit) {
+                try {
+                    edit.make();
+                    return CompletableFuture.completedFuture(1);
+                } catch (SQLException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+        };
+    }
+
+    interface Edit {
+        void make() throws SQLException;
+    }
+}
@@ -0,0 +1,64 @@
+import java.util.ArrayList;
+
+/**
+ * Class: RecordPage
+ *
+ * Description: One page of records returned by a keyset paged query such as LocalDatabase.getRecordsBetween().
+ * Records are in time order, and the next page is fetched by passing getNextCursor() back into the same query,
+ * which carries on from the last record in this page instead of counting past an OFFSET.
+ *
+ * Date: 17/10/2026
+ */
+public class RecordPage<T extends LocalDatabase.Record> {
+
+    private final ArrayList<T> records;
+    private final Cursor nextCursor;
+
+    public RecordPage(ArrayList<T> records, Cursor nextCursor) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+    }
+
+    public ArrayList<T> getRecords() {
+        return records;
+    }
+
+    //null when this is the last page
+    public Cursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Class: Cursor
+     *
+     * Description: The position just after the last record of a page; its datetime (as stored in the database)
+     * and record_id, which together give every record a unique place in time order.
+     *
+     * Date: 17/10/2026
+     */
+    public static class Cursor {
+        private final long epoch;
+        private final int record_id;
+
+        public Cursor(long epoch, int record_id) {
+            this.epoch = epoch;
+            this.record_id = record_id;
+        }
+
+        public long getEpoch() {
+            return epoch;
+        }
+
+        public int getRecord_id() {
+            return record_id;
+        }
+
+        public String toString() {
+            return String.format("after %s #%d", LocalDatabase.fromEpoch(epoch), record_id);
+        }
+    }
+}
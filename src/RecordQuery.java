@@ -0,0 +1,454 @@
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Class: RecordQuery
+ *
+ * Description: A search typed into the search box, such as "weight>10 lat:52.1..52.9 date:2021-06 price/kg<4",
+ * parsed once and compiled into a single parameterized statement by LocalDatabase.searchCatchRecords() and
+ * searchSellRecords(). A query is a list of terms separated by spaces, all of which a record has to match. Each
+ * term is a field, an operator and a value:
+ *
+ *   fields     weight (w), date, lat (latitude), lon (lng, longitude) for catches, price (revenue) and price/kg
+ *              (ppk) for sales
+ *   operators  > >= < <= and : or =, which match a value exactly or a range written min..max, either end of which
+ *              can be left off
+ *   dates      a year, month, day, minute or second, e.g. 2021, 2021-06, 2021-06-03, 2021-06-03T10:15, standing for
+ *              that whole period, so date:2021-06 is all of June and date>2021-06 is from July on
+ *
+ * Every value is bound as a parameter, so the statement only depends on which fields and operators were used, the
+ * query's shape. The SQL is cached by shape, and the connection pool caches the prepared statement by its SQL, so
+ * searching the same shape again with different values skips compiling and planning. Every condition is a range on
+ * an indexed column (the R*Tree for locations), and the shape decides which of those indexes the search is driven
+ * from, the one most likely to narrow it down.
+ *
+ * Date: 17/10/2026
+ */
+public class RecordQuery {
+
+    //which kind of record a query searches
+    public enum Kind {
+        CATCHES, SELLS
+    }
+
+    //the most shapes whose SQL is kept
+    static final int SHAPE_CACHE_SIZE = 128;
+    private static final Map<String, String> compiled = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > SHAPE_CACHE_SIZE;
+        }
+    };
+    private static long compileHits = 0;
+    private static long compileMisses = 0;
+
+    private final Kind kind;
+    private final String text;
+    private final List<Condition> conditions;
+    private final String shape;
+
+    private RecordQuery(Kind kind, String text, List<Condition> conditions) {
+        this.kind = kind;
+        this.text = text;
+        this.conditions = conditions;
+        StringBuilder shape = new StringBuilder(kind.name());
+        for (Condition condition : conditions) {
+            shape.append(' ').append(condition.shape());
+        }
+        this.shape = shape.toString();
+    }
+
+    /**
+     * Method: parse(String text, Kind kind)
+     *
+     * Description: Parses a search for the given kind of record. An empty search matches every record.
+     * Throws an IllegalArgumentException, with a message that can be shown to the user, if the search can't be
+     * read or uses a field the kind of record doesn't have.
+     *
+     * Date: 17/10/2026
+     */
+    public static RecordQuery parse(String text, Kind kind) {
+        ArrayList<Condition> conditions = new ArrayList<>();
+        for (String term : text.trim().split("\\s+")) {
+            if (!term.isEmpty()) {
+                conditions.add(parseTerm(term, kind));
+            }
+        }
+        return new RecordQuery(kind, text.trim(), conditions);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    //the fields and operators used, which is all the compiled statement depends on
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * Method: toSql()
+     *
+     * Description: Returns the statement that runs this query, compiling it if no query of the same shape has been
+     * compiled recently. It selects the same columns as the other catch or sell queries, in time order, and its
+     * parameters are the user_id, then those bound by bind(), then the datetime and record_id of a page cursor and
+     * the number of rows to read.
+     *
+     * Date: 17/10/2026
+     */
+    public String toSql() {
+        synchronized (compiled) {
+            String sql = compiled.get(shape);
+            if (sql != null) {
+                compileHits++;
+                return sql;
+            }
+            compileMisses++;
+            sql = compile();
+            compiled.put(shape, sql);
+            return sql;
+        }
+    }
+
+    /**
+     * Method: bind(PreparedStatement statement, int index)
+     *
+     * Description: Binds the query's values to the statement from toSql(), starting with the given parameter, and
+     * returns the index of the next parameter.
+     * Throws an SQLException if there's an SQL-related error.
+     *
+     * Date: 17/10/2026
+     */
+    public int bind(PreparedStatement statement, int index) throws SQLException {
+        for (Condition condition : conditions) {
+            index = condition.bind(statement, index);
+        }
+        return index;
+    }
+
+    /**
+     * Method: matches(long epoch, double weight, double latitude, double longitude, double revenue)
+     *
+     * Description: Returns whether a record with the given values matches every term of the query, for stores
+     * that search their records without SQL. The date time is as stored in the database, see
+     * LocalDatabase.toEpoch(). Values a kind of record doesn't have are given as NaN, which never match anything,
+     * just as NULL doesn't in SQL, and a sale's price per kg is worked out from its revenue and weight.
+     *
+     * Date: 17/10/2026
+     */
+    public boolean matches(long epoch, double weight, double latitude, double longitude, double revenue) {
+        for (Condition condition : conditions) {
+            if (!condition.matches(epoch, weight, latitude, longitude, revenue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String getShapeCacheStats() {
+        synchronized (compiled) {
+            return String.format("%d query shapes cached, %d hits, %d misses", compiled.size(), compileHits, compileMisses);
+        }
+    }
+
+    public String toString() {
+        return text.isEmpty() ? "every record" : text;
+    }
+
+    private String compile() {
+        EnumSet<Field> lower = EnumSet.noneOf(Field.class);
+        EnumSet<Field> upper = EnumSet.noneOf(Field.class);
+        StringBuilder where = new StringBuilder("records.user_id = ?");
+        for (Condition condition : conditions) {
+            if (condition.min != null) {
+                lower.add(condition.field);
+            }
+            if (condition.max != null) {
+                upper.add(condition.field);
+            }
+            condition.appendSql(where);
+        }
+        //the cursor of the page to carry on from
+        where.append(" AND (records.datetime, records.record_id) > (?, ?)");
+
+        EnumSet<Field> ranged = EnumSet.copyOf(lower);
+        ranged.retainAll(upper);
+        boolean located = lower.contains(Field.LATITUDE) || lower.contains(Field.LONGITUDE) || upper.contains(Field.LATITUDE) || upper.contains(Field.LONGITUDE);
+        //a band of latitude or longitude on its own goes all the way round the world
+        boolean area = (lower.contains(Field.LATITUDE) || upper.contains(Field.LATITUDE)) && (lower.contains(Field.LONGITUDE) || upper.contains(Field.LONGITUDE));
+        String child = kind == Kind.CATCHES ? "catches" : "sells";
+        String columns = kind == Kind.CATCHES ? "records.record_id, datetime, weight, catches.latitude, catches.longitude" : "records.record_id, datetime, weight, revenue";
+        String join = " INNER JOIN " + child + " ON records.record_id = " + child + ".record_id";
+
+        //there are no statistics on this database, so left to itself SQLite always follows records_user_datetime to read
+        //the rows in time order, even when another condition would narrow the search down to a handful of rows. The
+        //shape decides instead: a date range first, then an area (driven by the R*Tree like getCatchRecordsInArea()),
+        //then a range of weights, prices or prices per kg, and anything else is read in time order until the page is full
+        String from;
+        if (!ranged.contains(Field.DATE) && area) {
+            from = "catches_location CROSS JOIN records ON records.record_id = catches_location.record_id CROSS JOIN catches ON catches.record_id = catches_location.record_id";
+        } else if (!ranged.contains(Field.DATE) && ranged.contains(Field.WEIGHT)) {
+            from = "records INDEXED BY records_user_weight" + join;
+        } else if (!ranged.contains(Field.DATE) && ranged.contains(Field.PRICE)) {
+            from = "sells INDEXED BY sells_revenue CROSS JOIN records ON records.record_id = sells.record_id";
+        } else if (!ranged.contains(Field.DATE) && ranged.contains(Field.PRICE_PER_KG)) {
+            from = "sells INDEXED BY sells_revenue_per_kg CROSS JOIN records ON records.record_id = sells.record_id";
+        } else {
+            from = "records INDEXED BY records_user_datetime" + join;
+        }
+        if (located && !from.startsWith("catches_location")) {
+            from += " INNER JOIN catches_location ON catches_location.record_id = records.record_id";
+        }
+        return "SELECT " + columns + " FROM " + from + " WHERE " + where + " ORDER BY records.datetime, records.record_id LIMIT ?;";
+    }
+
+    private static Condition parseTerm(String term, Kind kind) {
+        int opStart = 0;
+        while (opStart < term.length() && ":=<>".indexOf(term.charAt(opStart)) < 0) {
+            opStart++;
+        }
+        if (opStart == 0 || opStart == term.length()) {
+            throw new IllegalArgumentException("Please write each search as a field, an operator and a value, e.g. weight>10");
+        }
+        Field field = Field.named(term.substring(0, opStart).toLowerCase(Locale.ROOT));
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown search field \"" + term.substring(0, opStart) + "\"");
+        }
+        if (field.kind != null && field.kind != kind) {
+            throw new IllegalArgumentException("The " + field.name + " can only be searched for " + field.kind.name().toLowerCase(Locale.ROOT));
+        }
+        int opEnd = opStart + 1;
+        if (opEnd < term.length() && term.charAt(opEnd) == '=' && term.charAt(opStart) != ':') {
+            opEnd++;
+        }
+        String operator = term.substring(opStart, opEnd);
+        String value = term.substring(opEnd);
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Please give a value to search the " + field.name + " for");
+        }
+
+        try {
+            if (operator.equals(":") || operator.equals("=")) {
+                int dots = value.indexOf("..");
+                if (dots < 0) {
+                    return field.between(value, value);
+                }
+                return field.between(dots == 0 ? null : value.substring(0, dots), dots + 2 == value.length() ? null : value.substring(dots + 2));
+            }
+            return field.compare(operator, value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("\"" + value + "\" isn't a valid " + field.name);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("\"" + value + "\" isn't a valid date, e.g. 2021, 2021-06, 2021-06-03 or 2021-06-03T10:15");
+        }
+    }
+
+    /**
+     * Class: Field
+     *
+     * Description: A searchable field, the column it's stored in and which kind of record has it (null for both).
+     *
+     * Date: 17/10/2026
+     */
+    private enum Field {
+        WEIGHT("weight", "records.weight", null, false, "weight", "w"),
+        DATE("date", "records.datetime", null, false, "date", "datetime"),
+        LATITUDE("latitude", "catches.latitude", Kind.CATCHES, true, "lat", "latitude"),
+        LONGITUDE("longitude", "catches.longitude", Kind.CATCHES, true, "lon", "lng", "longitude"),
+        PRICE("price", "sells.revenue", Kind.SELLS, false, "price", "revenue"),
+        PRICE_PER_KG("price per kg", "sells.revenue_per_kg", Kind.SELLS, false, "price/kg", "ppk");
+
+        private final String name;
+        private final String column;
+        private final Kind kind;
+        //searched through the catch location R*Tree
+        private final boolean located;
+        private final String[] aliases;
+
+        Field(String name, String column, Kind kind, boolean located, String... aliases) {
+            this.name = name;
+            this.column = column;
+            this.kind = kind;
+            this.located = located;
+            this.aliases = aliases;
+        }
+
+        private static Field named(String alias) {
+            for (Field field : values()) {
+                for (String name : field.aliases) {
+                    if (name.equals(alias)) {
+                        return field;
+                    }
+                }
+            }
+            return null;
+        }
+
+        //the R*Tree columns holding the lower and upper edge of each catch's box
+        private String treeColumn(boolean max) {
+            String edge = max ? "max_" : "min_";
+            return "catches_location." + edge + (this == LATITUDE ? "latitude" : "longitude");
+        }
+
+        //min..max, either of which may be null, inclusive of both ends (the whole period for dates)
+        private Condition between(String min, String max) {
+            if (this == DATE) {
+                return new Condition(this, min == null ? null : toEpoch(period(min)[0]), max == null ? null : toEpoch(period(max)[1]), true, false);
+            }
+            return new Condition(this, min == null ? null : Double.parseDouble(min), max == null ? null : Double.parseDouble(max), true, true);
+        }
+
+        private Condition compare(String operator, String value) {
+            if (this == DATE) {
+                LocalDateTime[] period = period(value);
+                switch (operator) {
+                    case ">":
+                        return new Condition(this, toEpoch(period[1]), null, true, false);
+                    case ">=":
+                        return new Condition(this, toEpoch(period[0]), null, true, false);
+                    case "<":
+                        return new Condition(this, null, toEpoch(period[0]), true, false);
+                    default:
+                        return new Condition(this, null, toEpoch(period[1]), true, false);
+                }
+            }
+            double number = Double.parseDouble(value);
+            switch (operator) {
+                case ">":
+                    return new Condition(this, number, null, false, false);
+                case ">=":
+                    return new Condition(this, number, null, true, false);
+                case "<":
+                    return new Condition(this, null, number, false, false);
+                default:
+                    return new Condition(this, null, number, false, true);
+            }
+        }
+
+        private static Long toEpoch(LocalDateTime dateTime) {
+            return LocalDatabase.toEpoch(dateTime);
+        }
+
+        //the start and the end (exclusive) of the period a date stands for
+        private static LocalDateTime[] period(String value) {
+            LocalDateTime start;
+            LocalDateTime end;
+            if (value.contains("T")) {
+                start = LocalDateTime.parse(value);
+                end = start.plus(1, value.length() > "yyyy-MM-ddTHH:mm".length() ? ChronoUnit.SECONDS : ChronoUnit.MINUTES);
+            } else if (value.length() == "yyyy-MM-dd".length()) {
+                start = LocalDate.parse(value).atStartOfDay();
+                end = start.plusDays(1);
+            } else if (value.length() == "yyyy-MM".length()) {
+                start = YearMonth.parse(value).atDay(1).atStartOfDay();
+                end = start.plusMonths(1);
+            } else if (value.length() == "yyyy".length()) {
+                start = Year.parse(value).atDay(1).atStartOfDay();
+                end = start.plusYears(1);
+            } else {
+                throw new DateTimeParseException("Not a date", value, 0);
+            }
+            return new LocalDateTime[] {start, end};
+        }
+    }
+
+    /**
+     * Class: Condition
+     *
+     * Description: One term of a query, as a range on its field's column. Either end may be open (null), and each
+     * end is either inclusive or exclusive.
+     *
+     * Date: 17/10/2026
+     */
+    private static class Condition {
+        private final Field field;
+        private final Number min;
+        private final Number max;
+        private final boolean minInclusive;
+        private final boolean maxInclusive;
+
+        private Condition(Field field, Number min, Number max, boolean minInclusive, boolean maxInclusive) {
+            this.field = field;
+            this.min = min;
+            this.max = max;
+            this.minInclusive = minInclusive;
+            this.maxInclusive = maxInclusive;
+        }
+
+        private String shape() {
+            return field.name() + (min == null ? "" : minInclusive ? "[" : "(") + ".." + (max == null ? "" : maxInclusive ? "]" : ")");
+        }
+
+        private void appendSql(StringBuilder where) {
+            if (min != null) {
+                if (field.located) {
+                    //the R*Tree only stores the coordinates approximately, so it narrows the search and the column decides
+                    where.append(" AND ").append(field.treeColumn(true)).append(" >= ?");
+                }
+                where.append(" AND ").append(field.column).append(minInclusive ? " >= ?" : " > ?");
+            }
+            if (max != null) {
+                if (field.located) {
+                    where.append(" AND ").append(field.treeColumn(false)).append(" <= ?");
+                }
+                where.append(" AND ").append(field.column).append(maxInclusive ? " <= ?" : " < ?");
+            }
+        }
+
+        private boolean matches(long epoch, double weight, double latitude, double longitude, double revenue) {
+            if (field == Field.DATE) {
+                return (min == null || (minInclusive ? epoch >= min.longValue() : epoch > min.longValue()))
+                        && (max == null || (maxInclusive ? epoch <= max.longValue() : epoch < max.longValue()));
+            }
+            double value;
+            switch (field) {
+                case LATITUDE:
+                    value = latitude;
+                    break;
+                case LONGITUDE:
+                    value = longitude;
+                    break;
+                case PRICE:
+                    value = revenue;
+                    break;
+                case PRICE_PER_KG:
+                    //as the sells_price triggers work it out, where SQLite gives NULL for a division by zero
+                    value = weight == 0 ? Double.NaN : revenue / weight;
+                    break;
+                default:
+                    value = weight;
+            }
+            return (min == null || (minInclusive ? value >= min.doubleValue() : value > min.doubleValue()))
+                    && (max == null || (maxInclusive ? value <= max.doubleValue() : value < max.doubleValue()));
+        }
+
+        private int bind(PreparedStatement statement, int index) throws SQLException {
+            for (Number bound : new Number[] {min, max}) {
+                if (bound == null) {
+                    continue;
+                }
+                int copies = field.located ? 2 : 1;
+                for (int i = 0; i < copies; i++) {
+                    if (bound instanceof Long) {
+                        statement.setLong(index++, bound.longValue());
+                    } else {
+                        statement.setDouble(index++, bound.doubleValue());
+                    }
+                }
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Interface: RecordStore
+ *
+ * Description: Where users and their catch and selling records are kept. LocalDatabase keeps them in the SQLite
+ * database, and InMemoryRecordStore keeps them in memory only, for tests, benchmarks and sessions that don't need
+ * to keep anything once they're closed. Every operation on records is done as the current user, set by
+ * changeUser(), and the records returned remember the store they came from, so editing one changes it there.
+ *
+ * The methods behave the same in every store, down to the order records are returned in, as documented on
+ * LocalDatabase. A store that doesn't use SQL never throws an SQLException for a reason SQLite wouldn't have.
+ * Edits made in the record tables go through getEditQueue(), which only LocalDatabase holds back.
+ *
+ * Date: 17/10/2026
+ */
+public interface RecordStore extends AutoCloseable {
+
+    //the user signed in by changeUser(), or null if no one has signed in yet
+    LocalDatabase.FishingUser getCurrentUser();
+
+    void addUser(String username, String email, String plainPassword) throws SQLException;
+
+    LocalDatabase.FishingUser changeUser(String username, String plainPassword) throws SQLException, LocalDatabase.UserNotFoundException, LocalDatabase.IncorrectPasswordException;
+
+    LocalDatabase.FishingUser searchForUser(String username) throws SQLException, LocalDatabase.UserNotFoundException;
+
+    void inputCatchData(LocalDateTime dateTime, double weight, double latitude, double longitude) throws SQLException;
+
+    void inputSellData(LocalDateTime dateTime, double weight, double revenue) throws SQLException;
+
+    void inputCatchBatch(List<LocalDatabase.CatchRecord> catches) throws SQLException;
+
+    void inputSellBatch(List<LocalDatabase.SellRecord> sells) throws SQLException;
+
+    //either every record is added or none are, and each one is given its record_id
+    void inputRecordBatch(List<? extends LocalDatabase.Record> batch) throws SQLException;
+
+    //in time order, and records made at the same time in the order they were added
+    ArrayList<LocalDatabase.CatchRecord> getAllCatchRecords() throws SQLException;
+
+    ArrayList<LocalDatabase.SellRecord> getAllSellRecords() throws SQLException;
+
+    //every catch and then every sale, each in time order, unless inTimeOrder asks for them all in time order
+    default ArrayList<LocalDatabase.Record> getAllRecords() throws SQLException {
+        return getAllRecords(false);
+    }
+
+    ArrayList<LocalDatabase.Record> getAllRecords(boolean inTimeOrder) throws SQLException;
+
+    CatchColumns getCatchColumns() throws SQLException;
+
+    SellColumns getSellColumns() throws SQLException;
+
+    CatchHeatmap getCatchHeatmap(int zoom) throws SQLException;
+
+    //null if the current user has no record with the given id
+    LocalDatabase.Record getRecordById(int record_id) throws SQLException;
+
+    ArrayList<LocalDatabase.Record> getRecordsByDate(LocalDateTime dateTime) throws SQLException;
+
+    RecordPage<LocalDatabase.CatchRecord> getCatchRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor) throws SQLException;
+
+    RecordPage<LocalDatabase.SellRecord> getSellRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor) throws SQLException;
+
+    RecordPage<LocalDatabase.Record> getRecordsBetween(LocalDateTime from, LocalDateTime to, int limit, RecordPage.Cursor cursor) throws SQLException;
+
+    RecordPage.Cursor getCatchRecordCursorAt(RecordPage.Cursor from, int offset) throws SQLException;
+
+    RecordPage.Cursor getSellRecordCursorAt(RecordPage.Cursor from, int offset) throws SQLException;
+
+    RecordPage<LocalDatabase.CatchRecord> searchCatchRecords(RecordQuery query, int limit, RecordPage.Cursor cursor) throws SQLException;
+
+    RecordPage<LocalDatabase.SellRecord> searchSellRecords(RecordQuery query, int limit, RecordPage.Cursor cursor) throws SQLException;
+
+    int countCatchRecords() throws SQLException;
+
+    int countSellRecords() throws SQLException;
+
+    default double getStockTotal() throws SQLException {
+        return getStockTotals().getStock();
+    }
+
+    StockTotals getStockTotals() throws SQLException;
+
+    default ArrayList<PeriodTotals> getTotalsByPeriod(PeriodTotals.Period period) throws SQLException {
+        return getTotalsByPeriod(period, null, null);
+    }
+
+    ArrayList<PeriodTotals> getTotalsByPeriod(PeriodTotals.Period period, LocalDateTime from, LocalDateTime to) throws SQLException;
+
+    default ArrayList<LocalDatabase.Record> getRecordsByWeight(double weight) throws SQLException {
+        return getRecordsByWeight(weight, weight, false);
+    }
+
+    ArrayList<LocalDatabase.Record> getRecordsByWeight(double minWeight, double maxWeight, boolean inTimeOrder) throws SQLException;
+
+    default ArrayList<LocalDatabase.SellRecord> getRecordsByRevenue(double revenue) throws SQLException {
+        return getSellRecordsByRevenue(revenue, revenue);
+    }
+
+    int streamCatchRecordsByWeight(double minWeight, double maxWeight, Consumer<? super LocalDatabase.CatchRecord> consumer) throws SQLException;
+
+    int streamSellRecordsByWeight(double minWeight, double maxWeight, Consumer<? super LocalDatabase.SellRecord> consumer) throws SQLException;
+
+    int streamSellRecordsByRevenue(double minRevenue, double maxRevenue, Consumer<? super LocalDatabase.SellRecord> consumer) throws SQLException;
+
+    int streamSellRecordsByRevenuePerKg(double minPrice, double maxPrice, Consumer<? super LocalDatabase.SellRecord> consumer) throws SQLException;
+
+    default ArrayList<LocalDatabase.CatchRecord> getCatchRecordsByWeight(double minWeight, double maxWeight) throws SQLException {
+        ArrayList<LocalDatabase.CatchRecord> records = new ArrayList<>();
+        streamCatchRecordsByWeight(minWeight, maxWeight, records::add);
+        return records;
+    }
+
+    default ArrayList<LocalDatabase.SellRecord> getSellRecordsByWeight(double minWeight, double maxWeight) throws SQLException {
+        ArrayList<LocalDatabase.SellRecord> records = new ArrayList<>();
+        streamSellRecordsByWeight(minWeight, maxWeight, records::add);
+        return records;
+    }
+
+    default ArrayList<LocalDatabase.SellRecord> getSellRecordsByRevenue(double minRevenue, double maxRevenue) throws SQLException {
+        ArrayList<LocalDatabase.SellRecord> records = new ArrayList<>();
+        streamSellRecordsByRevenue(minRevenue, maxRevenue, records::add);
+        return records;
+    }
+
+    default ArrayList<LocalDatabase.SellRecord> getSellRecordsByRevenuePerKg(double minPrice, double maxPrice) throws SQLException {
+        ArrayList<LocalDatabase.SellRecord> records = new ArrayList<>();
+        streamSellRecordsByRevenuePerKg(minPrice, maxPrice, records::add);
+        return records;
+    }
+
+    default ArrayList<LocalDatabase.CatchRecord> getRecordsByLocation(double latitude, double longitude) throws SQLException {
+        return getCatchRecordsInArea(latitude, latitude, longitude, longitude);
+    }
+
+    ArrayList<LocalDatabase.CatchRecord> getCatchRecordsInArea(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) throws SQLException;
+
+    ArrayList<LocalDatabase.CatchRecord> getCatchRecordsNear(double latitude, double longitude, double radiusKm) throws SQLException;
+
+    //the edits made by the record's own edit methods, which also change the record passed in
+    void editDate(LocalDatabase.Record record, LocalDateTime newDate) throws SQLException;
+
+    void editWeight(LocalDatabase.Record record, double newWeight) throws SQLException;
+
+    void editLocation(LocalDatabase.CatchRecord record, double latitude, double longitude) throws SQLException;
+
+    void editRevenue(LocalDatabase.SellRecord record, double newRevenue) throws SQLException;
+
+    default void deleteData(int record_id) throws SQLException {
+        deleteRecords(Collections.singletonList(record_id));
+    }
+
+    //only the current user's records are deleted, and the number deleted is returned
+    int deleteRecords(Collection<Integer> record_ids) throws SQLException;
+
+    //how edits made in the record tables are made, which by default is straight away
+    default RecordEditor getEditQueue() {
+        return RecordEditor.direct(this);
+    }
+
+    //reads a catch log into the current user's records, telling the listener (which may be null) how far it's got
+    default CatchLogImporter.ImportResult importData(String filePath, CatchLogImporter.ProgressListener listener) throws IOException {
+        return new CatchLogImporter(this).importFile(Paths.get(filePath), listener);
+    }
+
+    //writes the current user's records to a catch log in the given folder, and returns how many were written
+    default long exportData(String filePath, boolean compress) throws IOException, SQLException {
+        return new CatchLogExporter(this).exportTo(Paths.get(filePath, compress ? "exportData.txt.gz" : "exportData.txt"), compress);
+    }
+
+    @Override
+    void close();
+}
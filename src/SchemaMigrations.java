@@ -0,0 +1,429 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Class: SchemaMigrations
+ *
+ * Description: The ordered list of changes that build the database schema. The database's PRAGMA user_version
+ * records how many of them have been applied, and LocalDatabase.migrate() applies the rest, each in its own
+ * transaction, so an existing database is upgraded in place when the app is updated. Migrations must never be
+ * edited or reordered once released; new changes go on the end of the list.
+ *
+ * Date: 17/10/2026
+ */
+public class SchemaMigrations {
+
+    interface Migration {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    static final Migration[] MIGRATIONS = {
+            SchemaMigrations::createTables,
+            SchemaMigrations::addSearchIndexes,
+            SchemaMigrations::storeDatesAsEpochs,
+            SchemaMigrations::addCatchLocationIndex,
+            SchemaMigrations::addSellPriceIndexes,
+            SchemaMigrations::addStockTotals,
+            SchemaMigrations::cascadeRecordDeletes,
+    };
+
+    public static int latestVersion() {
+        return MIGRATIONS.length;
+    }
+
+    //every trigger made by createCatchLocationTriggers(), createSellPriceTriggers() and createStockTriggers()
+    static final String[] MAINTENANCE_TRIGGERS = {
+            "catches_location_insert", "catches_location_update", "catches_location_delete",
+            "sells_price_insert", "sells_price_update", "records_price_update",
+            "stock_catch_insert", "stock_catch_delete", "stock_catch_update",
+            "stock_sell_insert", "stock_sell_delete", "stock_sell_update",
+            "stock_record_delete", "stock_record_update",
+    };
+
+    /**
+     * Method: createTables(Connection connection)
+     *
+     * Description: Version 1, the original schema. Databases created before migrations existed already have these
+     * tables at version 0, so they are only created if they're missing.
+     *
+     * Author: Edward Attenborough
+     * Date: 07/06/2021
+     */
+    private static void createTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS users (" +
+                            "user_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "username TEXT NOT NULL," +
+                            "email TEXT NOT NULL," +
+                            "passwordHash TEXT NOT NULL" +
+                        ");"
+            );
+            statement.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS records (" +
+                            "record_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "user_id INT," +
+                            "weight REAL NOT NULL," +
+                            "datetime TEXT NOT NULL," + //SQLite does not have a datetime format
+                            "FOREIGN KEY (user_id) REFERENCES users (user_id)" +
+                        ");"
+            );
+            statement.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS catches (" +
+                            "catch_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "record_id INTEGER," +
+                            "latitude REAL NOT NULL," +
+                            "longitude REAL NOT NULL," +
+                            "FOREIGN KEY (record_id) REFERENCES records (record_id)" +
+                        ");"
+            );
+            statement.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS sells (" +
+                            "sell_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "record_id INTEGER," +
+                            "revenue REAL NOT NULL," +
+                            "FOREIGN KEY (record_id) REFERENCES records (record_id)" +
+                        ");"
+            );
+        }
+    }
+
+    /**
+     * Method: addSearchIndexes(Connection connection)
+     *
+     * Description: Version 2, indexes for every column the app searches or joins on. Without them each lookup by
+     * user, date or weight and every join from records to catches or sells was a full table scan. Usernames are
+     * also made unique, which sign up already assumed.
+     *
+     * Date: 17/10/2026
+     */
+    private static void addSearchIndexes(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS records_user_datetime ON records (user_id, datetime);");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS records_user_weight ON records (user_id, weight);");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS catches_record ON catches (record_id);");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS sells_record ON sells (record_id);");
+            statement.executeUpdate("CREATE UNIQUE INDEX IF NOT EXISTS users_username ON users (username);");
+        }
+    }
+
+    /**
+     * Method: storeDatesAsEpochs(Connection connection)
+     *
+     * Description: Version 3, changes records.datetime from ISO text to an INTEGER holding LocalDatabase.toEpoch()
+     * of the date time, so rows can be decoded without parsing and date ranges compare numerically. SQLite can't
+     * change a column's type, so the table is rebuilt and every row is converted on the way across. The
+     * AUTOINCREMENT counter is carried over so deleted record ids are never reused.
+     *
+     * Date: 17/10/2026
+     */
+    private static void storeDatesAsEpochs(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    "CREATE TABLE records_new (" +
+                            "record_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "user_id INT," +
+                            "weight REAL NOT NULL," +
+                            "datetime INTEGER NOT NULL," + //nanoseconds since the epoch, see LocalDatabase.toEpoch()
+                            "FOREIGN KEY (user_id) REFERENCES users (user_id)" +
+                        ");"
+            );
+
+            try (ResultSet results = statement.executeQuery("SELECT record_id, user_id, weight, datetime FROM records;");
+                 PreparedStatement insert = connection.prepareStatement("INSERT INTO records_new (record_id, user_id, weight, datetime) VALUES (?, ?, ?, ?);")) {
+                while (results.next()) {
+                    String dateTime = results.getString(4);
+                    insert.setInt(1, results.getInt(1));
+                    insert.setObject(2, results.getObject(2));
+                    insert.setDouble(3, results.getDouble(3));
+                    try {
+                        insert.setLong(4, LocalDatabase.toEpoch(LocalDateTime.parse(dateTime)));
+                    } catch (DateTimeParseException | NullPointerException e) {
+                        throw new SQLException(String.format("Record %d has an unreadable date time '%s'", results.getInt(1), dateTime), e);
+                    }
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+
+            long sequence = 0;
+            try (ResultSet results = statement.executeQuery("SELECT seq FROM sqlite_sequence WHERE name = 'records';")) {
+                if (results.next()) {
+                    sequence = results.getLong(1);
+                }
+            }
+
+            statement.executeUpdate("DROP TABLE records;");
+            statement.executeUpdate("ALTER TABLE records_new RENAME TO records;");
+            statement.executeUpdate("UPDATE sqlite_sequence SET seq = MAX(seq, " + sequence + ") WHERE name = 'records';");
+            statement.executeUpdate("CREATE INDEX records_user_datetime ON records (user_id, datetime);");
+            statement.executeUpdate("CREATE INDEX records_user_weight ON records (user_id, weight);");
+        }
+    }
+
+    /**
+     * Method: addCatchLocationIndex(Connection connection)
+     *
+     * Description: Version 4, an R*Tree spatial index over where each catch was made, keyed by record_id, so
+     * catches in an area or near a point can be found without scanning every catch. The index is filled from the
+     * existing catches and kept in step with the catches table by triggers.
+     *
+     * Date: 17/10/2026
+     */
+    private static void addCatchLocationIndex(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE VIRTUAL TABLE catches_location USING rtree(record_id, min_latitude, max_latitude, min_longitude, max_longitude);");
+            statement.executeUpdate("INSERT OR REPLACE INTO catches_location SELECT record_id, latitude, latitude, longitude, longitude FROM catches WHERE record_id IS NOT NULL;");
+            createCatchLocationTriggers(statement);
+        }
+    }
+
+    //dropping or rebuilding the catches table drops these too, so they must be recreated afterwards
+    static void createCatchLocationTriggers(Statement statement) throws SQLException {
+        statement.executeUpdate(
+                "CREATE TRIGGER catches_location_insert AFTER INSERT ON catches WHEN NEW.record_id IS NOT NULL BEGIN " +
+                        "INSERT OR REPLACE INTO catches_location VALUES (NEW.record_id, NEW.latitude, NEW.latitude, NEW.longitude, NEW.longitude); " +
+                    "END;"
+        );
+        statement.executeUpdate(
+                "CREATE TRIGGER catches_location_update AFTER UPDATE OF record_id, latitude, longitude ON catches BEGIN " +
+                        "DELETE FROM catches_location WHERE record_id = OLD.record_id; " +
+                        "INSERT OR REPLACE INTO catches_location SELECT NEW.record_id, NEW.latitude, NEW.latitude, NEW.longitude, NEW.longitude WHERE NEW.record_id IS NOT NULL; " +
+                    "END;"
+        );
+        statement.executeUpdate(
+                "CREATE TRIGGER catches_location_delete AFTER DELETE ON catches BEGIN " +
+                        "DELETE FROM catches_location WHERE record_id = OLD.record_id; " +
+                    "END;"
+        );
+    }
+
+    /**
+     * Method: addSellPriceIndexes(Connection connection)
+     *
+     * Description: Version 5, indexes for searching selling records by a range of revenue or of revenue per kg.
+     * The price per kg depends on the weight in records as well as the revenue in sells, which an index can't
+     * span, so it's stored in a new sells.revenue_per_kg column that triggers keep up to date whenever either
+     * side changes. It's NULL for sales with no weight.
+     *
+     * Date: 17/10/2026
+     */
+    private static void addSellPriceIndexes(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE sells ADD COLUMN revenue_per_kg REAL;");
+            statement.executeUpdate("UPDATE sells SET revenue_per_kg = revenue / (SELECT weight FROM records WHERE records.record_id = sells.record_id);");
+            statement.executeUpdate("CREATE INDEX sells_revenue ON sells (revenue);");
+            statement.executeUpdate("CREATE INDEX sells_revenue_per_kg ON sells (revenue_per_kg);");
+            createSellPriceTriggers(statement);
+        }
+    }
+
+    //like the catch location triggers, these are dropped along with the sells table and must be recreated with it
+    static void createSellPriceTriggers(Statement statement) throws SQLException {
+        statement.executeUpdate(
+                "CREATE TRIGGER sells_price_insert AFTER INSERT ON sells BEGIN " +
+                        "UPDATE sells SET revenue_per_kg = NEW.revenue / (SELECT weight FROM records WHERE record_id = NEW.record_id) WHERE sell_id = NEW.sell_id; " +
+                    "END;"
+        );
+        statement.executeUpdate(
+                "CREATE TRIGGER sells_price_update AFTER UPDATE OF record_id, revenue ON sells BEGIN " +
+                        "UPDATE sells SET revenue_per_kg = NEW.revenue / (SELECT weight FROM records WHERE record_id = NEW.record_id) WHERE sell_id = NEW.sell_id; " +
+                    "END;"
+        );
+        statement.executeUpdate(
+                "CREATE TRIGGER records_price_update AFTER UPDATE OF weight ON records BEGIN " +
+                        "UPDATE sells SET revenue_per_kg = revenue / NEW.weight WHERE record_id = NEW.record_id; " +
+                    "END;"
+        );
+    }
+
+    /**
+     * Method: addStockTotals(Connection connection)
+     *
+     * Description: Version 6, a user_stock table holding each user's total weight caught and sold and how many
+     * catch and selling records they have, so the stock figure is a single row lookup rather than a sum over every
+     * record. The totals are calculated once from the existing records and then kept up to date by triggers on
+     * records, catches and sells.
+     *
+     * Date: 17/10/2026
+     */
+    private static void addStockTotals(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    "CREATE TABLE user_stock (" +
+                            "user_id INTEGER PRIMARY KEY," +
+                            "caught REAL NOT NULL DEFAULT 0," +
+                            "sold REAL NOT NULL DEFAULT 0," +
+                            "catch_count INTEGER NOT NULL DEFAULT 0," +
+                            "sell_count INTEGER NOT NULL DEFAULT 0" +
+                        ");"
+            );
+            statement.executeUpdate(
+                    "INSERT INTO user_stock (user_id, caught, sold, catch_count, sell_count) " +
+                            "SELECT user_id, TOTAL(caught), TOTAL(sold), SUM(catch_count), SUM(sell_count) FROM (" +
+                                "SELECT user_id, weight AS caught, 0 AS sold, 1 AS catch_count, 0 AS sell_count FROM records INNER JOIN catches ON records.record_id = catches.record_id " +
+                                "UNION ALL " +
+                                "SELECT user_id, 0, weight, 0, 1 FROM records INNER JOIN sells ON records.record_id = sells.record_id" +
+                            ") WHERE user_id IS NOT NULL GROUP BY user_id;"
+            );
+            createStockTriggers(statement);
+        }
+    }
+
+    //a catch or sale only counts towards the stock while both its row and its parent record exist, which is what
+    //these triggers maintain whichever order they're deleted in. They're dropped with their tables, so must be
+    //recreated if records, catches or sells are ever rebuilt.
+    static void createStockTriggers(Statement statement) throws SQLException {
+        statement.executeUpdate(
+                "CREATE TRIGGER stock_catch_insert AFTER INSERT ON catches BEGIN " +
+                        "INSERT INTO user_stock (user_id, caught, catch_count) SELECT user_id, weight, 1 FROM records WHERE record_id = NEW.record_id " +
+                        "ON CONFLICT (user_id) DO UPDATE SET caught = caught + excluded.caught, catch_count = catch_count + 1; " +
+                    "END;"
+        );
+        statement.executeUpdate(
+                "CREATE TRIGGER stock_catch_delete AFTER DELETE ON catches BEGIN " +
+                        "UPDATE user_stock SET caught = caught - (SELECT weight FROM records WHERE record_id = OLD.record_id), catch_count = catch_count - 1 " +
+                        "WHERE user_id = (SELECT user_id FROM records WHERE record_id = OLD.record_id); " +
+                    "END;"
+        );
+        statement.executeUpdate(
+                "CREATE TRIGGER stock_catch_update AFTER UPDATE OF record_id ON catches BEGIN " +
+                        "UPDATE user_stock SET caught = caught - (SELECT weight FROM records WHERE record_id = OLD.record_id), catch_count = catch_count - 1 " +
+                        "WHERE user_id = (SELECT user_id FROM records WHERE record_id = OLD.record_id); " +
+                        "INSERT INTO user_stock (user_id, caught, catch_count) SELECT user_id, weight, 1 FROM records WHERE record_id = NEW.record_id " +
+                        "ON CONFLICT (user_id) DO UPDATE SET caught = caught + excluded.caught, catch_count = catch_count + 1; " +
+                    "END;"
+        );
+        statement.executeUpdate(
+                "CREATE TRIGGER stock_sell_insert AFTER INSERT ON sells BEGIN " +
+                        "INSERT INTO user_stock (user_id, sold, sell_count) SELECT user_id, weight, 1 FROM records WHERE record_id = NEW.record_id " +
+                        "ON CONFLICT (user_id) DO UPDATE SET sold = sold + excluded.sold, sell_count = sell_count + 1; " +
+                    "END;"
+        );
+        statement.executeUpdate(
+                "CREATE TRIGGER stock_sell_delete AFTER DELETE ON sells BEGIN " +
+                        "UPDATE user_stock SET sold = sold - (SELECT weight FROM records WHERE record_id = OLD.record_id), sell_count = sell_count - 1 " +
+                        "WHERE user_id = (SELECT user_id FROM records WHERE record_id = OLD.record_id); " +
+                    "END;"
+        );
+        statement.executeUpdate(
+                "CREATE TRIGGER stock_sell_update AFTER UPDATE OF record_id ON sells BEGIN " +
+                        "UPDATE user_stock SET sold = sold - (SELECT weight FROM records WHERE record_id = OLD.record_id), sell_count = sell_count - 1 " +
+                        "WHERE user_id = (SELECT user_id FROM records WHERE record_id = OLD.record_id); " +
+                        "INSERT INTO user_stock (user_id, sold, sell_count) SELECT user_id, weight, 1 FROM records WHERE record_id = NEW.record_id " +
+                        "ON CONFLICT (user_id) DO UPDATE SET sold = sold + excluded.sold, sell_count = sell_count + 1; " +
+                    "END;"
+        );
+        //runs before the record goes, while its catches and sells can still be counted
+        statement.executeUpdate(
+                "CREATE TRIGGER stock_record_delete BEFORE DELETE ON records BEGIN " +
+                        "UPDATE user_stock SET " +
+                            "caught = caught - OLD.weight * (SELECT COUNT(*) FROM catches WHERE record_id = OLD.record_id), " +
+                            "catch_count = catch_count - (SELECT COUNT(*) FROM catches WHERE record_id = OLD.record_id), " +
+                            "sold = sold - OLD.weight * (SELECT COUNT(*) FROM sells WHERE record_id = OLD.record_id), " +
+                            "sell_count = sell_count - (SELECT COUNT(*) FROM sells WHERE record_id = OLD.record_id) " +
+                        "WHERE user_id = OLD.user_id; " +
+                    "END;"
+        );
+        statement.executeUpdate(
+                "CREATE TRIGGER stock_record_update AFTER UPDATE OF weight, user_id ON records BEGIN " +
+                        "UPDATE user_stock SET " +
+                            "caught = caught - OLD.weight * (SELECT COUNT(*) FROM catches WHERE record_id = OLD.record_id), " +
+                            "catch_count = catch_count - (SELECT COUNT(*) FROM catches WHERE record_id = OLD.record_id), " +
+                            "sold = sold - OLD.weight * (SELECT COUNT(*) FROM sells WHERE record_id = OLD.record_id), " +
+                            "sell_count = sell_count - (SELECT COUNT(*) FROM sells WHERE record_id = OLD.record_id) " +
+                        "WHERE user_id = OLD.user_id; " +
+                        "INSERT INTO user_stock (user_id, caught, sold, catch_count, sell_count) SELECT NEW.user_id, " +
+                            "NEW.weight * (SELECT COUNT(*) FROM catches WHERE record_id = NEW.record_id), " +
+                            "NEW.weight * (SELECT COUNT(*) FROM sells WHERE record_id = NEW.record_id), " +
+                            "(SELECT COUNT(*) FROM catches WHERE record_id = NEW.record_id), " +
+                            "(SELECT COUNT(*) FROM sells WHERE record_id = NEW.record_id) WHERE NEW.user_id IS NOT NULL " +
+                        "ON CONFLICT (user_id) DO UPDATE SET caught = caught + excluded.caught, sold = sold + excluded.sold, " +
+                            "catch_count = catch_count + excluded.catch_count, sell_count = sell_count + excluded.sell_count; " +
+                    "END;"
+        );
+    }
+
+    /**
+     * Method: cascadeRecordDeletes(Connection connection)
+     *
+     * Description: Version 7, rebuilds catches and sells so their foreign key to records is ON DELETE CASCADE,
+     * letting a record be deleted with one statement that takes its catch or sale with it. Foreign keys are
+     * switched on for every pooled connection from this version. Before the rebuild, catches and sells whose record
+     * no longer exists are deleted (deleting a record used to leave its sale behind), along with records that have
+     * neither. The AUTOINCREMENT counters are carried over as in storeDatesAsEpochs(), and every index and trigger
+     * on the two tables is recreated, including the triggers on records that refer to them.
+     *
+     * Date: 17/10/2026
+     */
+    private static void cascadeRecordDeletes(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            //the triggers are still in place here, so the location index and stock totals stay in step
+            statement.executeUpdate("DELETE FROM catches WHERE record_id IS NULL OR record_id NOT IN (SELECT record_id FROM records);");
+            statement.executeUpdate("DELETE FROM sells WHERE record_id IS NULL OR record_id NOT IN (SELECT record_id FROM records);");
+            statement.executeUpdate(
+                    "DELETE FROM records WHERE record_id NOT IN (SELECT record_id FROM catches) " +
+                            "AND record_id NOT IN (SELECT record_id FROM sells);"
+            );
+
+            statement.executeUpdate("DROP TRIGGER IF EXISTS records_price_update;");
+            statement.executeUpdate("DROP TRIGGER IF EXISTS stock_record_delete;");
+            statement.executeUpdate("DROP TRIGGER IF EXISTS stock_record_update;");
+
+            rebuildTable(statement, "catches",
+                    "CREATE TABLE catches_new (" +
+                            "catch_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "record_id INTEGER," +
+                            "latitude REAL NOT NULL," +
+                            "longitude REAL NOT NULL," +
+                            "FOREIGN KEY (record_id) REFERENCES records (record_id) ON DELETE CASCADE" +
+                        ");",
+                    "catch_id, record_id, latitude, longitude");
+            rebuildTable(statement, "sells",
+                    "CREATE TABLE sells_new (" +
+                            "sell_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "record_id INTEGER," +
+                            "revenue REAL NOT NULL," +
+                            "revenue_per_kg REAL," +
+                            "FOREIGN KEY (record_id) REFERENCES records (record_id) ON DELETE CASCADE" +
+                        ");",
+                    "sell_id, record_id, revenue, revenue_per_kg");
+
+            statement.executeUpdate("CREATE INDEX catches_record ON catches (record_id);");
+            statement.executeUpdate("CREATE INDEX sells_record ON sells (record_id);");
+            statement.executeUpdate("CREATE INDEX sells_revenue ON sells (revenue);");
+            statement.executeUpdate("CREATE INDEX sells_revenue_per_kg ON sells (revenue_per_kg);");
+            createCatchLocationTriggers(statement);
+            createSellPriceTriggers(statement);
+            createStockTriggers(statement);
+
+            try (ResultSet results = statement.executeQuery("PRAGMA foreign_key_check;")) {
+                if (results.next()) {
+                    throw new SQLException(String.format("Row %d of %s refers to a missing row of %s", results.getLong(2), results.getString(1), results.getString(3)));
+                }
+            }
+        }
+    }
+
+    //copies a table into a new one made by createSql, then puts the new one in its place
+    private static void rebuildTable(Statement statement, String table, String createSql, String columns) throws SQLException {
+        statement.executeUpdate(createSql);
+        statement.executeUpdate("INSERT INTO " + table + "_new (" + columns + ") SELECT " + columns + " FROM " + table + ";");
+
+        long sequence = 0;
+        try (ResultSet results = statement.executeQuery("SELECT seq FROM sqlite_sequence WHERE name = '" + table + "';")) {
+            if (results.next()) {
+                sequence = results.getLong(1);
+            }
+        }
+
+        statement.executeUpdate("DROP TABLE " + table + ";");
+        statement.executeUpdate("ALTER TABLE " + table + "_new RENAME TO " + table + ";");
+        statement.executeUpdate("UPDATE sqlite_sequence SET seq = MAX(seq, " + sequence + ") WHERE name = '" + table + "';");
+    }
+}
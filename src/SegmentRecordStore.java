@@ -0,0 +1,713 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Class: SegmentRecordStore
+ *
+ * Description: A RecordStore that keeps its records on disk without SQLite, for logging catches faster than
+ * SQLite can commit them one transaction at a time. Records are held and searched in memory exactly as an
+ * InMemoryRecordStore holds them, and every change is also appended to a log on disk before it's made: a new or
+ * edited record is written out whole, and a deleted one as a tombstone, each as a fixed width entry. The log is a
+ * folder of segment files, each mapped into memory with a MappedByteBuffer, so appending an entry is a copy into
+ * memory rather than a write to the disk.
+ *
+ * An entry is safe from the app stopping as soon as the call that made it returns, and from the machine stopping
+ * once the segment has been forced to disk, which a background thread does every fishing.segmentSyncMillis (1000
+ * by default) and which is always done when a segment fills up or the store is closed. A batch of records is
+ * written as one run of entries, and is only read back if all of them made it to the log.
+ *
+ * Opening the store reads every segment, newest entry for each record winning, to rebuild the records in memory.
+ * Segments that aren't being appended to any more are compacted in the background once fewer than half of their
+ * entries are still needed, by copying the ones that are into new segments and deleting the old ones. Users,
+ * which are few and rarely added, are kept in a small file of their own.
+ *
+ * Date: 17/10/2026
+ */
+public class SegmentRecordStore extends InMemoryRecordStore {
+
+    //each entry is kind, record_id, user_id, checksum, sequence number, sequence number of the last entry in its
+    //batch, epoch, weight, and then latitude and longitude for a catch, or revenue for a sale
+    static final int ENTRY_SIZE = 64;
+    public static final int DEFAULT_SEGMENT_ENTRIES = 65536;
+    public static final long DEFAULT_SYNC_MILLIS = 1000;
+
+    private static final int EMPTY = 0;
+    private static final int CATCH = 1;
+    private static final int SELL = 2;
+    private static final int DELETED = 3;
+    private static final String SEGMENT_EXTENSION = ".segment";
+    private static final String USERS_FILE = "users.dat";
+    private static final String LOCK_FILE = "segments.lock";
+    //the folders open in this process, which a file lock doesn't keep out
+    private static final Set<Path> OPEN_FOLDERS = ConcurrentHashMap.newKeySet();
+
+    private final Path folder;
+    //the folder's real path, which is what's in OPEN_FOLDERS
+    private final Path realFolder;
+    private final int segmentEntries;
+    private final FileChannel lockChannel;
+    private final FileLock folderLock;
+    private final ScheduledExecutorService background;
+    private final ArrayList<LocalDatabase.FishingUser> savedUsers = new ArrayList<>();
+
+    //everything below is only changed while holding logLock
+    private final Object logLock = new Object();
+    private final ArrayList<Segment> sealed = new ArrayList<>();
+    //empty segments made ahead of time, so a batch never finds the disk full halfway through
+    private final ArrayDeque<Segment> ahead = new ArrayDeque<>();
+    //where the newest entry for each record is, which is the only one of its entries still needed
+    private final InMemoryRecordStore.IntMap<Location> locations = new InMemoryRecordStore.IntMap<>();
+    //segments that couldn't be deleted after compaction (Windows won't delete a file while it's mapped)
+    private final Set<Path> leftovers = new LinkedHashSet<>();
+    private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+    private final CRC32C checksum = new CRC32C();
+    private Segment current;
+    private long nextSequence = 1;
+    private int nextSegmentNumber = 1;
+    private int lastRecordId = 0;
+    private boolean closed = false;
+
+    private long compactions = 0;
+
+    public SegmentRecordStore() throws IOException {
+        this(Paths.get(System.getenv("APPDATA"), "FishingCatchesLogger", "segments"));
+    }
+
+    /**
+     * Method: SegmentRecordStore(Path folder)
+     *
+     * Description: Opens the store kept in the given folder, making it if it doesn't exist, and reads its records
+     * back into memory. Segments hold fishing.segmentEntries entries (65536 by default, 4MB). Only one store can
+     * have a folder open at a time.
+     * Throws an IOException if the folder can't be read or written, or is already open.
+     *
+     * Date: 17/10/2026
+     */
+    public SegmentRecordStore(Path folder) throws IOException {
+        this.folder = folder;
+        this.segmentEntries = Integer.getInteger("fishing.segmentEntries", DEFAULT_SEGMENT_ENTRIES);
+        if (segmentEntries < 1 || (long) segmentEntries * ENTRY_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A segment can't hold " + segmentEntries + " entries");
+        }
+        Files.createDirectories(folder);
+        realFolder = folder.toRealPath();
+        if (!OPEN_FOLDERS.add(realFolder)) {
+            throw new IOException("The records in " + folder + " are already open");
+        }
+        try {
+            lockChannel = FileChannel.open(folder.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException | RuntimeException e) {
+            OPEN_FOLDERS.remove(realFolder);
+            throw e;
+        }
+        try {
+            folderLock = lockChannel.tryLock();
+            if (folderLock == null) {
+                throw new IOException("The records in " + folder + " are already open");
+            }
+            List<LocalDatabase.FishingUser> users = readUsers();
+            savedUsers.addAll(users);
+            List<InMemoryRecordStore.Row> rows = recover();
+            restore(users, rows, lastRecordId);
+            current = newSegment();
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            OPEN_FOLDERS.remove(realFolder);
+            throw e;
+        }
+
+        long syncMillis = Long.getLong("fishing.segmentSyncMillis", DEFAULT_SYNC_MILLIS);
+        background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "segment-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        background.scheduleWithFixedDelay(this::maintain, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Path getFolder() {
+        return folder;
+    }
+
+    //how many compactions have finished since the store was opened
+    public long getCompactions() {
+        synchronized (logLock) {
+            return compactions;
+        }
+    }
+
+    //how many segment files the log is in, the one being appended to included
+    public int getSegmentCount() {
+        synchronized (logLock) {
+            return sealed.size() + (current == null ? 0 : 1);
+        }
+    }
+
+    @Override
+    void beforeAddUser(LocalDatabase.FishingUser user) throws IOException {
+        ArrayList<LocalDatabase.FishingUser> users = new ArrayList<>(savedUsers);
+        users.add(user);
+        writeUsers(users);
+        savedUsers.add(user);
+    }
+
+    @Override
+    void beforeWrite(List<InMemoryRecordStore.Row> changed) throws IOException {
+        synchronized (logLock) {
+            reserve(changed.size());
+            long last = nextSequence + changed.size() - 1;
+            for (InMemoryRecordStore.Row row : changed) {
+                if (row.isCatch) {
+                    append(CATCH, row.record_id, row.user_id, last, row.epoch, row.weight, row.latitude, row.longitude);
+                } else {
+                    append(SELL, row.record_id, row.user_id, last, row.epoch, row.weight, row.revenue, Double.NaN);
+                }
+                lastRecordId = Math.max(lastRecordId, row.record_id);
+            }
+        }
+    }
+
+    @Override
+    void beforeDelete(Collection<InMemoryRecordStore.Row> removed) throws IOException {
+        synchronized (logLock) {
+            reserve(removed.size());
+            long last = nextSequence + removed.size() - 1;
+            for (InMemoryRecordStore.Row row : removed) {
+                append(DELETED, row.record_id, row.user_id, last, 0, Double.NaN, Double.NaN, Double.NaN);
+            }
+        }
+    }
+
+    /**
+     * Method: sync()
+     *
+     * Description: Forces everything appended so far to disk, rather than waiting for the background thread to.
+     *
+     * Date: 17/10/2026
+     */
+    public void sync() {
+        MappedByteBuffer buffer;
+        synchronized (logLock) {
+            if (closed) {
+                return;
+            }
+            buffer = current.buffer;
+        }
+        //a mapped buffer can be forced while it's being appended to
+        buffer.force();
+    }
+
+    /**
+     * Method: close()
+     *
+     * Description: Waits for any compaction to finish, forces the log to disk and lets go of the folder, leaving
+     * the store empty like a closed InMemoryRecordStore.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public void close() {
+        background.shutdown();
+        try {
+            background.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (logLock) {
+            if (!closed) {
+                closed = true;
+                current.buffer.force();
+                current.buffer = null;
+                //the folder is only let go of once everything's on disk
+                try {
+                    lockChannel.close();
+                } catch (IOException e) {
+                    System.err.println("Couldn't unlock " + folder + ": " + e);
+                }
+                OPEN_FOLDERS.remove(realFolder);
+            }
+        }
+        super.close();
+    }
+
+    /**
+     * Method: recover()
+     *
+     * Description: Reads every segment in the folder and returns the rows whose newest entry isn't a tombstone,
+     * remembering where each record's newest entry is. Entries from a batch that was only partly written when the
+     * app stopped are wiped, as is everything from the first damaged entry of a segment onwards, and empty
+     * segments are deleted.
+     * Throws an IOException if a segment can't be read.
+     *
+     * Date: 17/10/2026
+     */
+    private List<InMemoryRecordStore.Row> recover() throws IOException {
+        ArrayList<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*" + SEGMENT_EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    found.add(new Segment(Integer.parseInt(name.substring(0, name.length() - SEGMENT_EXTENSION.length())), file));
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring " + file + ", which isn't a segment");
+                }
+            }
+        }
+        found.sort((a, b) -> Integer.compare(a.number, b.number));
+
+        //the sequence number of the last entry written, since a batch that ends after it didn't finish
+        long lastWritten = 0;
+        for (Segment segment : found) {
+            nextSegmentNumber = Math.max(nextSegmentNumber, segment.number + 1);
+            ByteBuffer entries = read(segment);
+            for (int i = 0; i < segment.used; i++) {
+                lastWritten = Math.max(lastWritten, entries.getLong(i * ENTRY_SIZE + 16));
+            }
+        }
+
+        InMemoryRecordStore.IntMap<InMemoryRecordStore.Row> newest = new InMemoryRecordStore.IntMap<>();
+        for (Segment segment : found) {
+            ByteBuffer entries = read(segment);
+            int used = 0;
+            for (int i = 0; i < segment.used; i++) {
+                int at = i * ENTRY_SIZE;
+                if (entries.getLong(at + 24) > lastWritten) {
+                    break;
+                }
+                used++;
+                int kind = entries.getInt(at);
+                int record_id = entries.getInt(at + 4);
+                int user_id = entries.getInt(at + 8);
+                long sequence = entries.getLong(at + 16);
+                Location location = locations.get(record_id);
+                if (location != null && location.sequence >= sequence) {
+                    continue;
+                }
+                moveTo(location, record_id, segment, sequence, kind == DELETED);
+                if (kind == DELETED) {
+                    newest.remove(record_id);
+                } else {
+                    double first = entries.getDouble(at + 48);
+                    double second = entries.getDouble(at + 56);
+                    newest.put(record_id, kind == CATCH
+                            ? new InMemoryRecordStore.Row(record_id, user_id, true, entries.getLong(at + 32), entries.getDouble(at + 40), first, second, Double.NaN)
+                            : new InMemoryRecordStore.Row(record_id, user_id, false, entries.getLong(at + 32), entries.getDouble(at + 40), Double.NaN, Double.NaN, first));
+                }
+                lastRecordId = Math.max(lastRecordId, record_id);
+            }
+            if (segment.length > segment.used) {
+                System.err.println("Stopped reading " + segment.path + " at a damaged entry, " + segment.used);
+            }
+            if (used < segment.length) {
+                //wiped so that a later read doesn't take them for entries written after the ones that follow
+                wipe(segment.path, used, segment.length);
+            }
+            segment.used = used;
+        }
+        nextSequence = lastWritten + 1;
+
+        for (Segment segment : found) {
+            if (segment.used == 0) {
+                delete(segment.path);
+            } else {
+                sealed.add(segment);
+            }
+        }
+        ArrayList<InMemoryRecordStore.Row> rows = new ArrayList<>(newest.size());
+        newest.forEach(rows::add);
+        return rows;
+    }
+
+    /**
+     * Method: read(Segment segment)
+     *
+     * Description: Reads a segment that isn't being appended to into memory, and sets how many entries it holds,
+     * up to its first empty or damaged one. If one is damaged, its length is the whole segment, so everything from
+     * there on is wiped.
+     * Throws an IOException if it can't be read.
+     *
+     * Date: 17/10/2026
+     */
+    private ByteBuffer read(Segment segment) throws IOException {
+        ByteBuffer entries;
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), (long) Integer.MAX_VALUE / ENTRY_SIZE * ENTRY_SIZE);
+            entries = ByteBuffer.allocate((int) size);
+            while (entries.hasRemaining() && channel.read(entries) >= 0) {
+            }
+        }
+        entries.flip();
+        CRC32C crc = new CRC32C();
+        int slots = entries.limit() / ENTRY_SIZE;
+        segment.used = 0;
+        segment.length = 0;
+        while (segment.used < slots && entries.getInt(segment.used * ENTRY_SIZE) != EMPTY) {
+            if (!intact(entries, segment.used * ENTRY_SIZE, crc)) {
+                //everything after it is wiped as well, in case a write that had got further was lost
+                segment.length = slots;
+                return entries;
+            }
+            segment.used++;
+        }
+        segment.length = segment.used;
+        return entries;
+    }
+
+    private boolean intact(ByteBuffer entries, int at, CRC32C crc) {
+        int kind = entries.getInt(at);
+        return kind >= CATCH && kind <= DELETED && entries.getInt(at + 12) == checksumOf(entries, at, crc);
+    }
+
+    //of every byte of the entry but the checksum itself
+    private static int checksumOf(ByteBuffer entries, int at, CRC32C crc) {
+        crc.reset();
+        ByteBuffer bytes = entries.duplicate();
+        bytes.limit(at + 12).position(at);
+        crc.update(bytes);
+        bytes.limit(at + ENTRY_SIZE).position(at + 16);
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    //writes zeros over the entries from one slot up to another, which reads as the end of the segment
+    private static void wipe(Path path, int fromSlot, int toSlot) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer zeros = ByteBuffer.allocate((toSlot - fromSlot) * ENTRY_SIZE);
+            long position = (long) fromSlot * ENTRY_SIZE;
+            while (zeros.hasRemaining()) {
+                position += channel.write(zeros, position);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Method: newSegment()
+     *
+     * Description: Makes the next segment file, full size and zeroed, so the disk has room for all of it before
+     * it's mapped, and maps it for appending.
+     * Throws an IOException if it can't be made.
+     *
+     * Date: 17/10/2026
+     */
+    private Segment newSegment() throws IOException {
+        int number;
+        synchronized (logLock) {
+            number = nextSegmentNumber++;
+        }
+        Segment segment = new Segment(number, folder.resolve(String.format("%08d%s", number, SEGMENT_EXTENSION)));
+        long size = (long) segmentEntries * ENTRY_SIZE;
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer zeros = ByteBuffer.allocate((int) Math.min(size, 1 << 16));
+            for (long position = 0; position < size; ) {
+                zeros.clear().limit((int) Math.min(zeros.capacity(), size - position));
+                position += channel.write(zeros, position);
+            }
+            //the mapping stays valid once the channel is closed
+            segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        return segment;
+    }
+
+    //makes sure there's room for the given number of entries before any are appended
+    private void reserve(int entries) throws IOException {
+        if (closed) {
+            throw new IOException("The store has been closed");
+        }
+        long room = segmentEntries - current.used + (long) ahead.size() * segmentEntries;
+        while (room < entries) {
+            ahead.addLast(newSegment());
+            room += segmentEntries;
+        }
+    }
+
+    //appends an entry to the segment being appended to, moving on to the next once it's full; there's always room
+    private void append(int kind, int record_id, int user_id, long last, long epoch, double weight, double first, double second) {
+        if (current.used == segmentEntries) {
+            current.buffer.force();
+            current.buffer = null;
+            sealed.add(current);
+            current = ahead.removeFirst();
+        }
+        long sequence = nextSequence++;
+        entry.clear();
+        entry.putInt(0, kind).putInt(4, record_id).putInt(8, user_id)
+                .putLong(16, sequence).putLong(24, last).putLong(32, epoch)
+                .putDouble(40, weight).putDouble(48, first).putDouble(56, second);
+        entry.putInt(12, checksumOf(entry, 0, checksum));
+        current.buffer.put(entry);
+        current.used++;
+        moveTo(locations.get(record_id), record_id, current, sequence, kind == DELETED);
+    }
+
+    //records that a record's newest entry is now the given one, which a tombstone doesn't count as still needed
+    private void moveTo(Location location, int record_id, Segment segment, long sequence, boolean deleted) {
+        if (location == null) {
+            location = new Location();
+            locations.put(record_id, location);
+        } else if (!location.deleted) {
+            location.segment.live--;
+        }
+        location.segment = segment;
+        location.sequence = sequence;
+        location.deleted = deleted;
+        if (!deleted) {
+            segment.live++;
+        }
+    }
+
+    //what the background thread does between sleeps
+    private void maintain() {
+        try {
+            sync();
+            compact();
+        } catch (IOException | RuntimeException e) {
+            //thrown out of a scheduled task, it would stop the task running again without saying why
+            System.err.println("Couldn't maintain the segments in " + folder + ": " + e);
+        }
+    }
+
+    /**
+     * Method: compact()
+     *
+     * Description: Once fewer than half of the entries the sealed segments have room for are still needed,
+     * copies the ones that are into new segments and deletes the old ones. The log is only locked while finding
+     * the entries still needed and while swapping the segments over, so records can be added while it runs. A
+     * tombstone is only copied if it's for the last record_id handed out, so the ids aren't handed out again.
+     * The old segments are deleted oldest first, by their newest entry, once the new ones are on disk, so if the
+     * app stops part way through, a record can't come back from a segment that outlived its dropped tombstone.
+     * Throws an IOException if the new segments can't be written.
+     *
+     * Date: 17/10/2026
+     */
+    private void compact() throws IOException {
+        ArrayList<Segment> compacting;
+        synchronized (logLock) {
+            for (Path leftover : new ArrayList<>(leftovers)) {
+                delete(leftover);
+            }
+            long live = 0;
+            for (Segment segment : sealed) {
+                live += segment.live;
+            }
+            if (closed || sealed.size() < 2 || live * 2 >= (long) sealed.size() * segmentEntries) {
+                return;
+            }
+            compacting = new ArrayList<>(sealed);
+        }
+
+        ArrayList<Segment> written = new ArrayList<>();
+        ArrayList<Integer> droppedTombstones = new ArrayList<>();
+        ArrayList<Long> droppedSequences = new ArrayList<>();
+        HashMap<Segment, Long> newestSequences = new HashMap<>();
+        Segment output = null;
+        CRC32C crc = new CRC32C();
+        try {
+            for (Segment segment : compacting) {
+                ByteBuffer entries = read(segment);
+                ByteBuffer copied = ByteBuffer.allocate(entries.limit());
+                long newest = 0;
+                synchronized (logLock) {
+                    for (int i = 0; i < segment.used; i++) {
+                        int at = i * ENTRY_SIZE;
+                        int record_id = entries.getInt(at + 4);
+                        long sequence = entries.getLong(at + 16);
+                        newest = Math.max(newest, sequence);
+                        Location location = locations.get(record_id);
+                        if (location == null || location.segment != segment || location.sequence != sequence) {
+                            continue;
+                        }
+                        if (location.deleted && record_id != lastRecordId) {
+                            droppedTombstones.add(record_id);
+                            droppedSequences.add(sequence);
+                            continue;
+                        }
+                        copied.put(entries.duplicate().limit(at + ENTRY_SIZE).position(at));
+                    }
+                }
+                newestSequences.put(segment, newest);
+                copied.flip();
+                while (copied.hasRemaining()) {
+                    if (output == null || output.used == segmentEntries) {
+                        output = newSegment();
+                        written.add(output);
+                    }
+                    ByteBuffer copy = copied.slice().limit(ENTRY_SIZE);
+                    copied.position(copied.position() + ENTRY_SIZE);
+                    //a copy is a batch of its own, since the rest of its batch may not have been copied
+                    copy.putLong(24, copy.getLong(16));
+                    copy.putInt(12, checksumOf(copy, 0, crc));
+                    output.buffer.put(copy);
+                    output.used++;
+                }
+            }
+            for (Segment segment : written) {
+                segment.buffer.force();
+            }
+            forceFolder();
+        } catch (IOException | RuntimeException e) {
+            //nothing's been swapped over, so the copies are just thrown away
+            synchronized (logLock) {
+                for (Segment segment : written) {
+                    segment.buffer = null;
+                    delete(segment.path);
+                }
+            }
+            throw e;
+        }
+
+        HashSet<Segment> replaced = new HashSet<>(compacting);
+        synchronized (logLock) {
+            for (Segment segment : written) {
+                ByteBuffer entries = segment.buffer;
+                segment.buffer = null;
+                for (int i = 0; i < segment.used; i++) {
+                    int record_id = entries.getInt(i * ENTRY_SIZE + 4);
+                    Location location = locations.get(record_id);
+                    //a record changed since it was copied has already moved on to a newer segment
+                    if (location != null && replaced.contains(location.segment) && location.sequence == entries.getLong(i * ENTRY_SIZE + 16)) {
+                        location.segment = segment;
+                        if (!location.deleted) {
+                            segment.live++;
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < droppedTombstones.size(); i++) {
+                Location location = locations.get(droppedTombstones.get(i));
+                if (location != null && replaced.contains(location.segment) && location.sequence == droppedSequences.get(i)) {
+                    locations.remove(droppedTombstones.get(i));
+                }
+            }
+            sealed.removeAll(replaced);
+            sealed.addAll(written);
+            compactions++;
+            //a dropped tombstone is always in a segment with newer entries than any it hid, even after compacting
+            compacting.sort(Comparator.comparingLong(newestSequences::get));
+            for (Segment segment : compacting) {
+                delete(segment.path);
+            }
+        }
+    }
+
+    //makes sure the files just made in the folder will still be in it if the machine stops. Windows can't open a
+    //folder to force it, and doesn't need to
+    private void forceFolder() throws IOException {
+        if (System.getProperty("os.name").startsWith("Windows")) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(folder, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    //deletes a file that's no longer needed, or if it can't be, empties it and tries again at the next compaction
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+            leftovers.remove(path);
+        } catch (IOException e) {
+            try {
+                if (!leftovers.contains(path)) {
+                    wipe(path, 0, 1);
+                    leftovers.add(path);
+                }
+            } catch (IOException wipeFailed) {
+                //its entries are all older copies of ones kept elsewhere, so it's only a waste of space
+                System.err.println("Couldn't delete or empty " + path + ": " + wipeFailed);
+            }
+        }
+    }
+
+    private List<LocalDatabase.FishingUser> readUsers() throws IOException {
+        ArrayList<LocalDatabase.FishingUser> users = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(folder.resolve(USERS_FILE)))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int user_id = in.readInt();
+                LocalDatabase.FishingUser user = new LocalDatabase.FishingUser(in.readUTF(), in.readUTF(), user_id);
+                user.setPasswordHash(in.readUTF());
+                users.add(user);
+            }
+        } catch (NoSuchFileException e) {
+            //no users have been added yet
+        }
+        return users;
+    }
+
+    //written in full to a new file that then replaces the old one, so there's always one complete copy
+    private void writeUsers(List<LocalDatabase.FishingUser> users) throws IOException {
+        Path file = folder.resolve(USERS_FILE);
+        Path written = folder.resolve(USERS_FILE + ".new");
+        try (FileChannel channel = FileChannel.open(written, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeInt(users.size());
+            for (LocalDatabase.FishingUser user : users) {
+                out.writeInt(user.getUser_id());
+                out.writeUTF(user.getUsername());
+                out.writeUTF(user.getEmail());
+                out.writeUTF(user.getPasswordHash());
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(written, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Class: Segment
+     *
+     * Description: One segment file, and how many of its entries are written and still needed. Only the segment
+     * being appended to, and those being written by a compaction, are mapped.
+     *
+     * Date: 17/10/2026
+     */
+    private static final class Segment {
+        private final int number;
+        private final Path path;
+        private MappedByteBuffer buffer;
+        private int used = 0;
+        //slots read when it was opened, damaged ones included, which are wiped along with any unfinished batch
+        private int length = 0;
+        private int live = 0;
+
+        private Segment(int number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+    }
+
+    //where a record's newest entry is
+    private static final class Location {
+        private Segment segment;
+        private long sequence;
+        private boolean deleted;
+    }
+}
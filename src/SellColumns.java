@@ -0,0 +1,85 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Class: SellColumns
+ *
+ * Description: A snapshot of a user's selling records as parallel arrays, returned by
+ * LocalDatabase.getSellColumns(). Adds the revenue of each sale to the columns every snapshot has.
+ *
+ * Date: 17/10/2026
+ */
+public class SellColumns extends RecordColumns {
+
+    private double[] revenue;
+
+    SellColumns(int capacity) {
+        super(capacity);
+        revenue = new double[capacity];
+    }
+
+    @Override
+    void readColumns(ResultSet results, int index) throws SQLException {
+        revenue[index] = results.getDouble(4);
+    }
+
+    //adds a sale after the last one, for snapshots that aren't read from the database
+    void add(int record_id, long epoch, double weight, double revenue) {
+        int index = append(record_id, epoch, weight);
+        this.revenue[index] = revenue;
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        super.resize(capacity);
+        revenue = Arrays.copyOf(revenue, capacity);
+    }
+
+    public double[] getRevenues() {
+        return revenue;
+    }
+
+    public double getTotalRevenue() {
+        return sum(revenue, 0, size);
+    }
+
+    /**
+     * Method: getTotalRevenue(LocalDateTime from, LocalDateTime to)
+     *
+     * Description: Returns the total revenue of the sales made from the given date time up to (but not including)
+     * the to date time. Either end may be null to leave it open.
+     *
+     * Date: 17/10/2026
+     */
+    public double getTotalRevenue(LocalDateTime from, LocalDateTime to) {
+        return sum(revenue, indexFrom(from, 0), indexFrom(to, size));
+    }
+
+    //the revenue per kg over every sale, weighted by how much each sale weighed, or 0 if nothing has been sold
+    public double getAveragePricePerKg() {
+        double totalWeight = getTotalWeight();
+        return totalWeight == 0 ? 0 : getTotalRevenue() / totalWeight;
+    }
+
+    /**
+     * Method: countPricedBetween(double minPrice, double maxPrice)
+     *
+     * Description: Returns how many sales had a revenue per kg between minPrice and maxPrice inclusive, scanning
+     * the columns in parallel when there are enough of them. Sales with no weight have no price and aren't counted.
+     *
+     * Date: 17/10/2026
+     */
+    public long countPricedBetween(double minPrice, double maxPrice) {
+        double[] weight = this.weight;
+        double[] revenue = this.revenue;
+        return indexes(0, size).filter(i -> {
+            if (weight[i] == 0) {
+                return false;
+            }
+            double price = revenue[i] / weight[i];
+            return price >= minPrice && price <= maxPrice;
+        }).count();
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Class: StockTotals
+ *
+ * Description: A user's total weight caught and sold and how many catch and selling records they have, as read
+ * from the user_stock table by LocalDatabase.getStockTotals(). Also used by verifyStockTotals() for the
+ * difference between two sets of totals.
+ *
+ * Date: 17/10/2026
+ */
+public class StockTotals {
+
+    private final double caught;
+    private final double sold;
+    private final int catchCount;
+    private final int sellCount;
+
+    public StockTotals(double caught, double sold, int catchCount, int sellCount) {
+        this.caught = caught;
+        this.sold = sold;
+        this.catchCount = catchCount;
+        this.sellCount = sellCount;
+    }
+
+    public double getCaught() {
+        return caught;
+    }
+
+    public double getSold() {
+        return sold;
+    }
+
+    //the weight of fish currently in stock
+    public double getStock() {
+        return caught - sold;
+    }
+
+    public int getCatchCount() {
+        return catchCount;
+    }
+
+    public int getSellCount() {
+        return sellCount;
+    }
+
+    public StockTotals minus(StockTotals other) {
+        return new StockTotals(caught - other.caught, sold - other.sold, catchCount - other.catchCount, sellCount - other.sellCount);
+    }
+
+    //whether the weights are within the given tolerance of zero and the counts are exactly zero
+    public boolean isWithin(double tolerance) {
+        return Math.abs(caught) <= tolerance && Math.abs(sold) <= tolerance && catchCount == 0 && sellCount == 0;
+    }
+
+    public String toString() {
+        return String.format("caught %skg in %d catches, sold %skg in %d sales", caught, catchCount, sold, sellCount);
+    }
+}
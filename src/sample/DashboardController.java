@@ -0,0 +1,112 @@
+import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class DashboardController {
+
+    private static RecordStore db;
+    //runs the database calls in the background so the window keeps responding
+    private AsyncDatabase async;
+
+    //load in the fxml elements
+    @FXML ComboBox<String> periodBox;
+    @FXML Label summary;
+    @FXML Label errorMessage;
+    @FXML ProgressIndicator busyIndicator;
+    @FXML BarChart<String, Number> weightChart;
+
+    @FXML private TableView<PeriodTotals> tableView;
+    @FXML private TableColumn<PeriodTotals, LocalDate> periodColumn;
+    @FXML private TableColumn<PeriodTotals, Double> caughtColumn;
+    @FXML private TableColumn<PeriodTotals, Integer> catchCountColumn;
+    @FXML private TableColumn<PeriodTotals, Double> soldColumn;
+    @FXML private TableColumn<PeriodTotals, Double> revenueColumn;
+    @FXML private TableColumn<PeriodTotals, Double> priceColumn;
+
+    //the chart only has room for the most recent periods, the table shows them all
+    private static final int CHART_PERIODS = 12;
+
+    //method to receive a database object
+    public static void receiveDB(RecordStore database){
+        db = database;
+    }
+
+    //method to go back to the home page
+    public void goToHome(ActionEvent e){
+        HomeController.receiveDB(db);
+        WindowSwitcher.goToPage(e, "HomeView", 600, 400);
+    }
+
+    //method that shows the totals for each day, week or month, whichever is chosen
+    public void showTotals() {
+        PeriodTotals.Period period = PeriodTotals.Period.valueOf(periodBox.getValue().toUpperCase());
+        AsyncDatabase.onFxThread(async.submitCommitted(db -> db.getTotalsByPeriod(period)), totals -> {
+            double caught = 0;
+            double sold = 0;
+            double revenue = 0;
+            for (PeriodTotals total : totals) {
+                caught += total.getCaught();
+                sold += total.getSold();
+                revenue += total.getRevenue();
+            }
+            summary.setText(String.format("All time: caught %.2fkg, sold %.2fkg for $%.2f in %d %ss",
+                    caught, sold, revenue, totals.size(), periodBox.getValue().toLowerCase()));
+
+            //most recent first in the table, in time order on the chart
+            List<PeriodTotals> recentFirst = new ArrayList<>(totals);
+            Collections.reverse(recentFirst);
+            tableView.setItems(FXCollections.observableArrayList(recentFirst));
+
+            XYChart.Series<String, Number> caughtSeries = new XYChart.Series<>();
+            caughtSeries.setName("Caught");
+            XYChart.Series<String, Number> soldSeries = new XYChart.Series<>();
+            soldSeries.setName("Sold");
+            for (PeriodTotals total : totals.subList(Math.max(0, totals.size() - CHART_PERIODS), totals.size())) {
+                caughtSeries.getData().add(new XYChart.Data<>(total.getStart().toString(), total.getCaught()));
+                soldSeries.getData().add(new XYChart.Data<>(total.getStart().toString(), total.getSold()));
+            }
+            weightChart.getData().setAll(List.of(caughtSeries, soldSeries));
+            errorMessage.setText("");
+        }, error -> errorMessage.setText("The totals couldn't be calculated"));
+    }
+
+    //method to show a column of numbers to two decimal places
+    private static void showTwoDecimals(TableColumn<PeriodTotals, Double> column) {
+        column.setCellFactory(c -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double value, boolean empty) {
+                super.updateItem(value, empty);
+                setText(empty || value == null ? null : String.format("%.2f", value));
+            }
+        });
+    }
+
+    //method for initializing the table and showing the monthly totals
+    public void initialize() {
+        if (async == null) {
+            async = new AsyncDatabase(db);
+            busyIndicator.visibleProperty().bind(async.busyProperty());
+        }
+        periodColumn.setCellValueFactory(new PropertyValueFactory<>("start"));
+        caughtColumn.setCellValueFactory(new PropertyValueFactory<>("caught"));
+        catchCountColumn.setCellValueFactory(new PropertyValueFactory<>("catchCount"));
+        soldColumn.setCellValueFactory(new PropertyValueFactory<>("sold"));
+        revenueColumn.setCellValueFactory(new PropertyValueFactory<>("revenue"));
+        priceColumn.setCellValueFactory(new PropertyValueFactory<>("revenuePerKg"));
+        showTwoDecimals(caughtColumn);
+        showTwoDecimals(soldColumn);
+        showTwoDecimals(revenueColumn);
+        showTwoDecimals(priceColumn);
+
+        //choosing a period shows its totals
+        periodBox.setValue("Month");
+    }
+}
@@ -0,0 +1,98 @@
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.*;
+import javafx.scene.paint.Color;
+
+public class HeatmapController {
+
+    private static RecordStore db;
+    //runs the database calls in the background so the window keeps responding
+    private AsyncDatabase async;
+
+    //load in the fxml elements
+    @FXML ComboBox<String> zoomBox;
+    @FXML Label summary;
+    @FXML Label errorMessage;
+    @FXML ProgressIndicator busyIndicator;
+    @FXML Canvas canvas;
+
+    //the background, and the colour of the cells with the least and the most caught in them
+    private static final Color SEA = Color.rgb(18, 32, 58);
+    private static final double LIGHTEST_HUE = 240;
+    private static final double HEAVIEST_HUE = 0;
+
+    //method to receive a database object
+    public static void receiveDB(RecordStore database){
+        db = database;
+    }
+
+    //method to go back to the home page
+    public void goToHome(ActionEvent e){
+        HomeController.receiveDB(db);
+        WindowSwitcher.goToPage(e, "HomeView", 600, 400);
+    }
+
+    //method that shows the heatmap at the chosen zoom level
+    public void showHeatmap() {
+        int zoom = Integer.parseInt(zoomBox.getValue());
+        AsyncDatabase.onFxThread(async.submitCommitted(db -> db.getCatchHeatmap(zoom)), heatmap -> {
+            draw(heatmap);
+            double total = heatmap.getTotalWeight();
+            summary.setText(String.format("%.2fkg caught in %d cells of %.3f by %.3f degrees, at most %.2fkg in one",
+                    total, heatmap.size(), heatmap.getCellHeight(), heatmap.getCellWidth(), heatmap.getMaxWeight()));
+            errorMessage.setText("");
+        }, error -> errorMessage.setText("The heatmap couldn't be worked out"));
+    }
+
+    //method to draw the cells, scaled to fit the area the catches are in, coloured by how much was caught in them
+    private void draw(CatchHeatmap heatmap) {
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        graphics.setFill(SEA);
+        graphics.fillRect(0, 0, width, height);
+        if (heatmap.size() == 0) {
+            return;
+        }
+
+        double minLatitude = Double.MAX_VALUE;
+        double maxLatitude = -Double.MAX_VALUE;
+        double minLongitude = Double.MAX_VALUE;
+        double maxLongitude = -Double.MAX_VALUE;
+        for (int i = 0; i < heatmap.size(); i++) {
+            minLatitude = Math.min(minLatitude, heatmap.getMinLatitude(i));
+            maxLatitude = Math.max(maxLatitude, heatmap.getMinLatitude(i) + heatmap.getCellHeight());
+            minLongitude = Math.min(minLongitude, heatmap.getMinLongitude(i));
+            maxLongitude = Math.max(maxLongitude, heatmap.getMinLongitude(i) + heatmap.getCellWidth());
+        }
+        //the same scale both ways, centred, so the map isn't stretched
+        double scale = Math.min(width / (maxLongitude - minLongitude), height / (maxLatitude - minLatitude));
+        double left = (width - (maxLongitude - minLongitude) * scale) / 2;
+        double top = (height - (maxLatitude - minLatitude) * scale) / 2;
+        double cellWidth = Math.max(1, heatmap.getCellWidth() * scale);
+        double cellHeight = Math.max(1, heatmap.getCellHeight() * scale);
+
+        //on a log scale, otherwise a few favourite spots would leave every other cell looking empty
+        double heaviest = Math.log1p(heatmap.getMaxWeight());
+        for (int i = 0; i < heatmap.size(); i++) {
+            double heat = heaviest == 0 ? 1 : Math.log1p(heatmap.getWeight(i)) / heaviest;
+            graphics.setFill(Color.hsb(LIGHTEST_HUE + (HEAVIEST_HUE - LIGHTEST_HUE) * heat, 0.9, 0.5 + 0.5 * heat));
+            double x = left + (heatmap.getMinLongitude(i) - minLongitude) * scale;
+            //north is at the top
+            double y = top + (maxLatitude - heatmap.getMinLatitude(i) - heatmap.getCellHeight()) * scale;
+            graphics.fillRect(x, y, cellWidth, cellHeight);
+        }
+    }
+
+    //method for showing the heatmap at a middling zoom level
+    public void initialize() {
+        if (async == null) {
+            async = new AsyncDatabase(db);
+            busyIndicator.visibleProperty().bind(async.busyProperty());
+        }
+        //choosing a zoom level shows its heatmap
+        zoomBox.setValue("8");
+    }
+}
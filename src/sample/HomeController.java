@@ -6,22 +6,27 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.util.converter.DoubleStringConverter;
-import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 public class HomeController  {
 
-    private static LocalDatabase db;
+    private static RecordStore db;
+    //runs the database calls in the background so the window keeps responding
+    private AsyncDatabase async;
 
     //load in the fxml elements
     @FXML Label stockTotal;
     @FXML Label errorMessage;
     @FXML ComboBox choiceBox;
     @FXML TextField searchField;
+    @FXML ProgressIndicator busyIndicator;
 
     @FXML private TableView<LocalDatabase.CatchRecord> tableView;
     @FXML private TableColumn<LocalDatabase.CatchRecord, String> dateTimeColumn;
@@ -29,39 +34,71 @@ public class HomeController  {
     @FXML private TableColumn<LocalDatabase.CatchRecord, Double> longitudeColumn;
     @FXML private TableColumn<LocalDatabase.CatchRecord, Double> latitudeColumn;
 
+    //the most records a search will show at once
+    private static final int SEARCH_LIMIT = 1000;
+
     //creates a new string to double converter
     private static final DoubleStringConverter converter = new DoubleStringConverter();
 
+    //method to read a search for either a single number, or a range of numbers written as "min-max"
+    static double[] parseRange(String text) throws NumberFormatException {
+        int dash = text.indexOf('-', 1);
+        if (dash < 0) {
+            double value = Double.parseDouble(text);
+            return new double[] {value, value};
+        }
+        double min = Double.parseDouble(text.substring(0, dash));
+        double max = Double.parseDouble(text.substring(dash + 1));
+        return new double[] {Math.min(min, max), Math.max(min, max)};
+    }
     //method to receive a database object
-    public static void receiveDB(LocalDatabase database){
+    public static void receiveDB(RecordStore database){
         db = database;
     }
 
     //method to go back to the login page
     public void Logout(ActionEvent e){
+        async.close();
         WindowSwitcher.goToPage(e, "LoginView", 600, 400);
     }
 
     //method to switch to the sale data page
     public void switchDataTables(ActionEvent e){
+        async.flushEdits();
         HomeSellController.receiveDB(db);
         WindowSwitcher.goToPage(e, "HomeSellView", 600, 400);
     }
 
+    //method to go to the dashboard page
+    public void goToDashboard(ActionEvent e){
+        async.flushEdits();
+        DashboardController.receiveDB(db);
+        WindowSwitcher.goToPage(e, "DashboardView", 800, 500);
+    }
+
+    //method to go to the catch heatmap page
+    public void goToHeatmap(ActionEvent e){
+        async.flushEdits();
+        HeatmapController.receiveDB(db);
+        WindowSwitcher.goToPage(e, "HeatmapView", 600, 400);
+    }
+
     //method to go to the import export page
     public void goToImportExport(ActionEvent e){
+        async.flushEdits();
         ImportExportController.receiveDB(db);
         WindowSwitcher.goToPage(e, "ImportExportView", 600, 400);
     }
 
     //method to go to the input page
     public void goToInput(ActionEvent e){
+        async.flushEdits();
         InputController.receiveDB(db);
         WindowSwitcher.goToPage(e, "InputView", 600, 400);
     }
 
     //method that clears the current search
-    public void clear() throws SQLException {
+    public void clear() {
         searchField.clear();
         initialize();
     }
@@ -69,74 +106,83 @@ public class HomeController  {
     public void search(){
         try {
             switch (choiceBox.getValue().toString()) {
+                case "Query":
+                    //any number of searches at once, e.g. "weight>10 date:2021-06", run as a single statement
+                    try {
+                        RecordQuery query = RecordQuery.parse(searchField.getText(), RecordQuery.Kind.CATCHES);
+                        AsyncDatabase.onFxThread(async.submitCommitted(db -> db.searchCatchRecords(query, SEARCH_LIMIT, null)), page -> {
+                            tableView.setItems(FXCollections.observableArrayList(page.getRecords()));
+                            errorMessage.setText(page.hasMore() ? "Showing the first " + SEARCH_LIMIT + " matches" : "");
+                        }, error -> errorMessage.setText("The search couldn't be run"));
+                    } catch (IllegalArgumentException e) {
+                        errorMessage.setText(e.getMessage());
+                    }
+                    break;
                 case "DateTime":
                     try {
-                        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
-                        LocalDateTime dateTime = LocalDateTime.parse(searchField.getText(), formatter);
-                        ArrayList<LocalDatabase.Record> recordsArrayList = db.getRecordsByDate(dateTime);
-                        ObservableList<LocalDatabase.CatchRecord> catchRecords = FXCollections.observableArrayList();
-                        for(LocalDatabase.Record Record: recordsArrayList) {
-                            if (Record instanceof LocalDatabase.CatchRecord) {
-                                    catchRecords.add((LocalDatabase.CatchRecord) Record);
-                            }
+                        //a date on its own searches that whole day, a date and time searches that minute
+                        LocalDateTime from;
+                        LocalDateTime to;
+                        if (searchField.getText().contains("T")) {
+                            from = LocalDateTime.parse(searchField.getText(), DateTimeFormatter.ISO_LOCAL_DATE_TIME).truncatedTo(ChronoUnit.MINUTES);
+                            to = from.plusMinutes(1);
+                        } else {
+                            from = LocalDate.parse(searchField.getText(), DateTimeFormatter.ISO_LOCAL_DATE).atStartOfDay();
+                            to = from.plusDays(1);
                         }
-                        tableView.setItems(catchRecords);
-                        errorMessage.setText("");
-                    } catch (DateTimeParseException | SQLException e) {
-                        errorMessage.setText("Please enter a valid date time");
-                        searchField.clear();
+                        AsyncDatabase.onFxThread(async.submitCommitted(db -> db.getCatchRecordsBetween(from, to, SEARCH_LIMIT, null)), page -> {
+                            tableView.setItems(FXCollections.observableArrayList(page.getRecords()));
+                            errorMessage.setText(page.hasMore() ? "Showing the first " + SEARCH_LIMIT + " matches" : "");
+                        }, error -> searchFailed("Please enter a valid date or date time"));
+                    } catch (DateTimeParseException e) {
+                        searchFailed("Please enter a valid date or date time");
                     }
                     break;
                 case "Weight":
                     try{
-                        double Weight = Double.parseDouble(searchField.getText());
-                        ArrayList<LocalDatabase.Record> recordsArrayList = db.getRecordsByWeight(Weight);
-                        ObservableList<LocalDatabase.CatchRecord> catchRecords = FXCollections.observableArrayList();
-                        for(LocalDatabase.Record Record: recordsArrayList) {
-                            if (Record instanceof LocalDatabase.CatchRecord) {
-                                catchRecords.add((LocalDatabase.CatchRecord) Record);
-                            }
-                        }
-                        tableView.setItems(catchRecords);
-                        errorMessage.setText("");
-                    } catch (NumberFormatException | SQLException e) {
-                        errorMessage.setText("Please enter a valid numeric weight");
-                        searchField.clear();
+                        double[] Weight = parseRange(searchField.getText());
+                        showResults(async.submitCommitted(db -> {
+                            ObservableList<LocalDatabase.CatchRecord> catchRecords = FXCollections.observableArrayList();
+                            db.streamCatchRecordsByWeight(Weight[0], Weight[1], catchRecords::add);
+                            return catchRecords;
+                        }), "Please enter a valid numeric weight");
+                    } catch (NumberFormatException e) {
+                        searchFailed("Please enter a valid numeric weight");
                     }
 
                     break;
                 case "Longitude":
                     try{
                         double Longitude = Double.parseDouble(searchField.getText());
-                        ArrayList<LocalDatabase.CatchRecord> recordsArrayList = db.getAllCatchRecords();
-                        ObservableList<LocalDatabase.CatchRecord> catchRecords = FXCollections.observableArrayList();
-                        for(LocalDatabase.CatchRecord Record: recordsArrayList) {
-                            if (Record.longitude == Longitude) {
-                                catchRecords.add(Record);
-                            }
-                        }
-                        tableView.setItems(catchRecords);
-                        errorMessage.setText("");
-                    } catch (NumberFormatException | SQLException e) {
-                        errorMessage.setText("Please enter a valid numeric longitude");
-                        searchField.clear();
+                        showResults(async.submitCommitted(db -> FXCollections.observableArrayList(db.getCatchRecordsInArea(-90, 90, Longitude, Longitude))),
+                                "Please enter a valid numeric longitude");
+                    } catch (NumberFormatException e) {
+                        searchFailed("Please enter a valid numeric longitude");
                     }
                     break;
                 case "Latitude":
                     try{
                         double Latitude = Double.parseDouble(searchField.getText());
-                        ArrayList<LocalDatabase.CatchRecord> recordsArrayList = db.getAllCatchRecords();
-                        ObservableList<LocalDatabase.CatchRecord> catchRecords = FXCollections.observableArrayList();
-                        for(LocalDatabase.CatchRecord Record: recordsArrayList) {
-                            if (Record.latitude == Latitude) {
-                                catchRecords.add(Record);
-                            }
+                        showResults(async.submitCommitted(db -> FXCollections.observableArrayList(db.getCatchRecordsInArea(Latitude, Latitude, -180, 180))),
+                                "Please enter a valid numeric latitude");
+                    } catch (NumberFormatException e) {
+                        searchFailed("Please enter a valid numeric latitude");
+                    }
+                    break;
+                case "Nearby":
+                    //searches for catches within a distance of a point, entered as "latitude, longitude, kilometres"
+                    try{
+                        String[] point = searchField.getText().split(",");
+                        if (point.length != 3) {
+                            throw new NumberFormatException();
                         }
-                        tableView.setItems(catchRecords);
-                        errorMessage.setText("");
-                    } catch (NumberFormatException | SQLException e) {
-                        errorMessage.setText("Please enter a valid numeric longitude");
-                        searchField.clear();
+                        double Latitude = Double.parseDouble(point[0]);
+                        double Longitude = Double.parseDouble(point[1]);
+                        double Radius = Double.parseDouble(point[2]);
+                        showResults(async.submitCommitted(db -> FXCollections.observableArrayList(db.getCatchRecordsNear(Latitude, Longitude, Radius))),
+                                "Please enter a latitude, longitude and distance in km, e.g. 52.6, 1.2, 5");
+                    } catch (NumberFormatException e) {
+                        errorMessage.setText("Please enter a latitude, longitude and distance in km, e.g. 52.6, 1.2, 5");
                     }
                     break;
             }
@@ -145,31 +191,34 @@ public class HomeController  {
         }
     }
 
+    //method to show the results of a search in the table once it has finished running
+    private void showResults(CompletableFuture<ObservableList<LocalDatabase.CatchRecord>> search, String failureMessage) {
+        AsyncDatabase.onFxThread(search, catchRecords -> {
+            tableView.setItems(catchRecords);
+            errorMessage.setText("");
+        }, error -> searchFailed(failureMessage));
+    }
+
+    //method to show why a search didn't work
+    private void searchFailed(String message) {
+        errorMessage.setText(message);
+        searchField.clear();
+    }
+
     //method that calculates the current weight of fish in stock of the user
-    public void calculateStock() throws SQLException {
-        ArrayList<LocalDatabase.CatchRecord> catchRecordArrayList = db.getAllCatchRecords();
-        Iterator<LocalDatabase.CatchRecord> i = catchRecordArrayList.iterator();
-        ArrayList<LocalDatabase.SellRecord> SellRecordArrayList = db.getAllSellRecords();
-        Iterator<LocalDatabase.SellRecord> x = SellRecordArrayList.iterator();
-        double catchTotal = 0, sellTotal = 0;
-        while (i.hasNext()){
-            catchTotal+=i.next().getWeight();
-        }
-        while (x.hasNext()){
-            sellTotal+=x.next().getWeight();
-        }
-        stockTotal.setText((catchTotal-sellTotal) + "kg");
+    public void calculateStock() {
+        //the total is kept up to date by the database, so this doesn't need to read any records
+        AsyncDatabase.onFxThread(async.submitCommitted(RecordStore::getStockTotal), stock -> stockTotal.setText(stock + "kg"), error -> stockTotal.setText("?"));
     }
 
     //method for editing date time of a record
-    public void changeDateTimeCellEvent(TableColumn.CellEditEvent edditedCell) throws SQLException {
+    public void changeDateTimeCellEvent(TableColumn.CellEditEvent edditedCell) {
         LocalDatabase.CatchRecord recordSelected = tableView.getSelectionModel().getSelectedItem();
         //check if the new value in eddited cell is in correct local date time format
         DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
         try{
             LocalDateTime dateTime = LocalDateTime.parse(edditedCell.getNewValue().toString(), formatter);
-            recordSelected.editDate(dateTime);
-            errorMessage.setText("");
+            saveEdit(() -> db.getEditQueue().editDate(recordSelected, dateTime), false);
         } catch (DateTimeParseException e) {
             errorMessage.setText("Please enter a valid date time");
             initialize();
@@ -177,12 +226,11 @@ public class HomeController  {
     }
 
     //method for editing weight of a record
-    public void changeWeightCellEvent(TableColumn.CellEditEvent edditedCell) throws SQLException {
+    public void changeWeightCellEvent(TableColumn.CellEditEvent edditedCell) {
         try{
             LocalDatabase.CatchRecord recordSelected = tableView.getSelectionModel().getSelectedItem();
-            recordSelected.editWeight((Double) edditedCell.getNewValue());
-            calculateStock();
-            errorMessage.setText("");
+            double weight = (Double) edditedCell.getNewValue();
+            saveEdit(() -> db.getEditQueue().editWeight(recordSelected, weight), true);
         }
       catch(NumberFormatException e){
           errorMessage.setText("thats not a number");
@@ -190,49 +238,72 @@ public class HomeController  {
     }
 
     //method for editing the longitude of a record
-    public void changeLongitudeCellEvent(TableColumn.CellEditEvent edditedCell) throws SQLException {
+    public void changeLongitudeCellEvent(TableColumn.CellEditEvent edditedCell) {
         LocalDatabase.CatchRecord recordSelected = tableView.getSelectionModel().getSelectedItem();
-        recordSelected.editLocation(recordSelected.latitude , Double.parseDouble(edditedCell.getNewValue().toString()));
-        errorMessage.setText("");
+        double longitude = Double.parseDouble(edditedCell.getNewValue().toString());
+        saveEdit(() -> db.getEditQueue().editLocation(recordSelected, recordSelected.latitude, longitude), false);
     }
 
     //method for editing the latitude of a record
-    public void changeLatitudeCellEvent(TableColumn.CellEditEvent edditedCell) throws SQLException {
+    public void changeLatitudeCellEvent(TableColumn.CellEditEvent edditedCell) {
         LocalDatabase.CatchRecord recordSelected = tableView.getSelectionModel().getSelectedItem();
-        recordSelected.editLocation(Double.parseDouble(edditedCell.getNewValue().toString()) , recordSelected.longitude);
-        errorMessage.setText("");
+        double latitude = Double.parseDouble(edditedCell.getNewValue().toString());
+        saveEdit(() -> db.getEditQueue().editLocation(recordSelected, latitude, recordSelected.longitude), false);
     }
 
-    //method for deleting records
-    public void deleteButtonPushed() throws SQLException {
-        ObservableList<LocalDatabase.CatchRecord> selectedRows;
-        selectedRows = tableView.getSelectionModel().getSelectedItems();
+    //method to queue an edit, which is saved along with any others made shortly after it, and show whether it was saved
+    private void saveEdit(Callable<CompletableFuture<Integer>> edit, boolean weightChanged) {
+        try {
+            AsyncDatabase.onFxThread(edit.call(), saved -> {
+                if (weightChanged) {
+                    calculateStock();
+                }
+                errorMessage.setText("");
+            }, error -> errorMessage.setText("The change couldn't be saved"));
+        } catch (Exception e) {
+            errorMessage.setText("The change couldn't be saved");
+        }
+    }
 
-        for (LocalDatabase.CatchRecord catchRecord: selectedRows){
-         db.deleteData(catchRecord.record_id);
+    //method for deleting records. Selected rows that haven't been loaded yet are null, so their record_ids are
+    //read by PagedRecordList before deleting them
+    public void deleteButtonPushed() {
+        CompletableFuture<ArrayList<Integer>> selectedIds;
+        if (tableView.getItems() instanceof PagedRecordList) {
+            selectedIds = ((PagedRecordList<LocalDatabase.CatchRecord>) tableView.getItems()).recordIdsAt(tableView.getSelectionModel().getSelectedIndices());
+        } else {
+            ArrayList<Integer> ids = new ArrayList<>();
+            for (LocalDatabase.CatchRecord catchRecord: tableView.getSelectionModel().getSelectedItems()){
+                if (catchRecord != null) {
+                    ids.add(catchRecord.record_id);
+                }
+            }
+            selectedIds = CompletableFuture.completedFuture(ids);
         }
 
-        initialize();
+        AsyncDatabase.onFxThread(selectedIds.thenCompose(ids -> async.submitWrite(db -> db.deleteRecords(ids))), deleted -> {
+            initialize();
+            errorMessage.setText("Deleted " + deleted + (deleted == 1 ? " record" : " records"));
+        }, error -> errorMessage.setText("The records couldn't be deleted"));
     }
 
     //method for initializing/reset the table
-    public void initialize() throws SQLException {
+    public void initialize() {
+        if (async == null) {
+            async = new AsyncDatabase(db);
+            busyIndicator.visibleProperty().bind(async.busyProperty());
+            //a query is the first search category
+            choiceBox.getSelectionModel().selectFirst();
+        }
         calculateStock();
         dateTimeColumn.setCellValueFactory(new PropertyValueFactory<LocalDatabase.CatchRecord, String>("dateTime"));
         weightColumn.setCellValueFactory(new PropertyValueFactory<LocalDatabase.CatchRecord, Double>("weight"));
         latitudeColumn.setCellValueFactory(new PropertyValueFactory<LocalDatabase.CatchRecord, Double>("latitude"));
         longitudeColumn.setCellValueFactory(new PropertyValueFactory<LocalDatabase.CatchRecord, Double>("longitude"));
 
-        ObservableList<LocalDatabase.CatchRecord> catchRecords = FXCollections.observableArrayList();
-
-        try {
-            ArrayList<LocalDatabase.CatchRecord> catchRecordArrayList = db.getAllCatchRecords();
-            catchRecords.addAll(catchRecordArrayList);
-        } catch (SQLException throwables) {
-            throwables.printStackTrace();
-        }
+        //only the pages of records the table is showing are loaded, and they're counted in the background
+        AsyncDatabase.onFxThread(PagedRecordList.catchRecords(async), tableView::setItems, Throwable::printStackTrace);
 
-        tableView.setItems(catchRecords);
         dateTimeColumn.setCellFactory(TextFieldTableCell.forTableColumn());
         try{
             weightColumn.setCellFactory(TextFieldTableCell.forTableColumn(converter));
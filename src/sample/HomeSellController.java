@@ -6,55 +6,74 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.util.converter.DoubleStringConverter;
-import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 public class HomeSellController  {
 
-    private static LocalDatabase db;
+    private static RecordStore db;
+    //runs the database calls in the background so the window keeps responding
+    private AsyncDatabase async;
 
     //load in the fxml elements
     @FXML Label stockTotal;
     @FXML Label errorMessage;
     @FXML ComboBox choiceBox;
     @FXML TextField searchField;
+    @FXML ProgressIndicator busyIndicator;
 
     @FXML private TableView<LocalDatabase.SellRecord> tableView;
     @FXML private TableColumn<LocalDatabase.SellRecord, String> dateTimeColumn;
     @FXML private TableColumn<LocalDatabase.SellRecord, Double> weightColumn;
     @FXML private TableColumn<LocalDatabase.SellRecord, Double> priceColumn;
 
+    //the most records a search will show at once
+    private static final int SEARCH_LIMIT = 1000;
+
     //creates a new string to double converter
     private static final DoubleStringConverter converter = new DoubleStringConverter();
     //method to receive a database object
-    public static void receiveDB(LocalDatabase database){
+    public static void receiveDB(RecordStore database){
         db = database;
     }
     //method to go back to the login page
     public void Logout(ActionEvent e){
+        async.close();
         WindowSwitcher.goToPage(e, "LoginView", 600, 400);
     }
     //method to switch to the catch data page
     public void switchDataTables(ActionEvent e){
+        async.flushEdits();
         HomeController.receiveDB(db);
         WindowSwitcher.goToPage(e, "HomeView", 600, 400);
     }
+    //method to go to the dashboard page
+    public void goToDashboard(ActionEvent e){
+        async.flushEdits();
+        DashboardController.receiveDB(db);
+        WindowSwitcher.goToPage(e, "DashboardView", 800, 500);
+    }
+
     //method to go to the import export page
     public void goToImportExport(ActionEvent e){
+        async.flushEdits();
         ImportExportController.receiveDB(db);
         WindowSwitcher.goToPage(e, "ImportExportView", 600, 400);
     }
     //method to go to the input page
     public void goToInput(ActionEvent e){
+        async.flushEdits();
         InputController.receiveDB(db);
         WindowSwitcher.goToPage(e, "InputView", 600, 400);
     }
     //method that clears the current search
-    public void clear() throws SQLException {
+    public void clear() {
         searchField.clear();
         initialize();
     }
@@ -62,57 +81,73 @@ public class HomeSellController  {
     public void search() {
         try {
             switch (choiceBox.getValue().toString()) {
+                case "Query":
+                    //any number of searches at once, e.g. "weight>10 date:2021-06", run as a single statement
+                    try {
+                        RecordQuery query = RecordQuery.parse(searchField.getText(), RecordQuery.Kind.SELLS);
+                        AsyncDatabase.onFxThread(async.submitCommitted(db -> db.searchSellRecords(query, SEARCH_LIMIT, null)), page -> {
+                            tableView.setItems(FXCollections.observableArrayList(page.getRecords()));
+                            errorMessage.setText(page.hasMore() ? "Showing the first " + SEARCH_LIMIT + " matches" : "");
+                        }, error -> errorMessage.setText("The search couldn't be run"));
+                    } catch (IllegalArgumentException e) {
+                        errorMessage.setText(e.getMessage());
+                    }
+                    break;
                 case "DateTime":
                     try {
-                        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
-                        LocalDateTime dateTime = LocalDateTime.parse(searchField.getText(), formatter);
-                        ArrayList<LocalDatabase.Record> recordsArrayList = db.getRecordsByDate(dateTime);
-                        ObservableList<LocalDatabase.SellRecord> sellRecords = FXCollections.observableArrayList();
-                        for (LocalDatabase.Record Record : recordsArrayList) {
-                            if (Record instanceof LocalDatabase.SellRecord) {
-                                sellRecords.add((LocalDatabase.SellRecord) Record);
-                            }
+                        //a date on its own searches that whole day, a date and time searches that minute
+                        LocalDateTime from;
+                        LocalDateTime to;
+                        if (searchField.getText().contains("T")) {
+                            from = LocalDateTime.parse(searchField.getText(), DateTimeFormatter.ISO_LOCAL_DATE_TIME).truncatedTo(ChronoUnit.MINUTES);
+                            to = from.plusMinutes(1);
+                        } else {
+                            from = LocalDate.parse(searchField.getText(), DateTimeFormatter.ISO_LOCAL_DATE).atStartOfDay();
+                            to = from.plusDays(1);
                         }
-                        tableView.setItems(sellRecords);
-                        errorMessage.setText("");
-                    } catch (DateTimeParseException | SQLException e) {
-                        errorMessage.setText("Please enter a valid date time");
-                        searchField.clear();
+                        AsyncDatabase.onFxThread(async.submitCommitted(db -> db.getSellRecordsBetween(from, to, SEARCH_LIMIT, null)), page -> {
+                            tableView.setItems(FXCollections.observableArrayList(page.getRecords()));
+                            errorMessage.setText(page.hasMore() ? "Showing the first " + SEARCH_LIMIT + " matches" : "");
+                        }, error -> searchFailed("Please enter a valid date or date time"));
+                    } catch (DateTimeParseException e) {
+                        searchFailed("Please enter a valid date or date time");
                     }
                     break;
                 case "Weight":
                     try {
-                        double Weight = Double.parseDouble(searchField.getText());
-                        ArrayList<LocalDatabase.Record> recordsArrayList = db.getRecordsByWeight(Weight);
-                        ObservableList<LocalDatabase.SellRecord> sellRecords = FXCollections.observableArrayList();
-                        for (LocalDatabase.Record Record : recordsArrayList) {
-                            if (Record instanceof LocalDatabase.SellRecord) {
-                                sellRecords.add((LocalDatabase.SellRecord) Record);
-                            }
-                        }
-                        tableView.setItems(sellRecords);
-                        errorMessage.setText("");
-                    } catch (NumberFormatException | SQLException e) {
-                        errorMessage.setText("Please enter a valid numeric weight");
-                        searchField.clear();
+                        double[] Weight = HomeController.parseRange(searchField.getText());
+                        showResults(async.submitCommitted(db -> {
+                            ObservableList<LocalDatabase.SellRecord> sellRecords = FXCollections.observableArrayList();
+                            db.streamSellRecordsByWeight(Weight[0], Weight[1], sellRecords::add);
+                            return sellRecords;
+                        }), "Please enter a valid numeric weight");
+                    } catch (NumberFormatException e) {
+                        searchFailed("Please enter a valid numeric weight");
                     }
 
                     break;
                 case "Price":
                     try {
-                        double Price = Double.parseDouble(searchField.getText());
-                        ArrayList<LocalDatabase.SellRecord> recordsArrayList = db.getRecordsByRevenue(Price);
-                        ObservableList<LocalDatabase.SellRecord> sellRecords = FXCollections.observableArrayList();
-                        for (LocalDatabase.SellRecord Record : recordsArrayList) {
-                            if (Record.revenue == Price) {
-                                sellRecords.add(Record);
-                            }
-                        }
-                        tableView.setItems(sellRecords);
-                        errorMessage.setText("");
-                    } catch (NumberFormatException | SQLException e) {
-                        errorMessage.setText("Please enter a valid numeric price");
-                        searchField.clear();
+                        double[] Price = HomeController.parseRange(searchField.getText());
+                        showResults(async.submitCommitted(db -> {
+                            ObservableList<LocalDatabase.SellRecord> sellRecords = FXCollections.observableArrayList();
+                            db.streamSellRecordsByRevenue(Price[0], Price[1], sellRecords::add);
+                            return sellRecords;
+                        }), "Please enter a valid numeric price");
+                    } catch (NumberFormatException e) {
+                        searchFailed("Please enter a valid numeric price");
+                    }
+                    break;
+                case "Price per kg":
+                    try {
+                        double[] Price = HomeController.parseRange(searchField.getText());
+                        showResults(async.submitCommitted(db -> {
+                            ObservableList<LocalDatabase.SellRecord> sellRecords = FXCollections.observableArrayList();
+                            db.streamSellRecordsByRevenuePerKg(Price[0], Price[1], sellRecords::add);
+                            return sellRecords;
+                        }), "Please enter a valid numeric price per kg");
+                    } catch (NumberFormatException e) {
+                        searchFailed("Please enter a valid numeric price per kg");
                     }
                     break;
             }
@@ -121,89 +156,110 @@ public class HomeSellController  {
             errorMessage.setText("Please select a search category");
         }
     }
+    //method to show the results of a search in the table once it has finished running
+    private void showResults(CompletableFuture<ObservableList<LocalDatabase.SellRecord>> search, String failureMessage) {
+        AsyncDatabase.onFxThread(search, sellRecords -> {
+            tableView.setItems(sellRecords);
+            errorMessage.setText("");
+        }, error -> searchFailed(failureMessage));
+    }
+    //method to show why a search didn't work
+    private void searchFailed(String message) {
+        errorMessage.setText(message);
+        searchField.clear();
+    }
     //method that calculates the current weight of fish in stock of the user
-        public void calculateStock() throws SQLException {
-        ArrayList<LocalDatabase.CatchRecord> catchRecordArrayList = db.getAllCatchRecords();
-        Iterator<LocalDatabase.CatchRecord> i = catchRecordArrayList.iterator();
-        ArrayList<LocalDatabase.SellRecord> SellRecordArrayList = db.getAllSellRecords();
-        Iterator<LocalDatabase.SellRecord> x = SellRecordArrayList.iterator();
-        double catchTotal = 0, sellTotal = 0;
-        while (i.hasNext()){
-            catchTotal+=i.next().getWeight();
-        }
-        while (x.hasNext()){
-            sellTotal+=x.next().getWeight();
-        }
-        stockTotal.setText((catchTotal-sellTotal) + "kg");
+        public void calculateStock() {
+        //the total is kept up to date by the database, so this doesn't need to read any records
+        AsyncDatabase.onFxThread(async.submitCommitted(RecordStore::getStockTotal), stock -> stockTotal.setText(stock + "kg"), error -> stockTotal.setText("?"));
     }
     //method for editing date time of a record
-    public void changeDateTimeCellEvent(TableColumn.CellEditEvent edditedCell) throws SQLException {
+    public void changeDateTimeCellEvent(TableColumn.CellEditEvent edditedCell) {
         LocalDatabase.SellRecord recordSelected = tableView.getSelectionModel().getSelectedItem();
         //check if the new value in eddited cell is in correct local date time format
         DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
         try{
             LocalDateTime dateTime = LocalDateTime.parse(edditedCell.getNewValue().toString(), formatter);
-            recordSelected.editDate(dateTime);
-            errorMessage.setText("");
+            saveEdit(() -> db.getEditQueue().editDate(recordSelected, dateTime), false);
         } catch (DateTimeParseException e) {
             errorMessage.setText("Please enter a valid date time");
             initialize();
         }
     }
     //method for editing weight of a record
-    public void changeWeightCellEvent(TableColumn.CellEditEvent edditedCell) throws SQLException {
+    public void changeWeightCellEvent(TableColumn.CellEditEvent edditedCell) {
         try{
             LocalDatabase.SellRecord recordSelected = tableView.getSelectionModel().getSelectedItem();
-            recordSelected.editWeight((Double) edditedCell.getNewValue());
-            calculateStock();
-            errorMessage.setText("");
+            double weight = (Double) edditedCell.getNewValue();
+            saveEdit(() -> db.getEditQueue().editWeight(recordSelected, weight), true);
         }
         catch(NumberFormatException e){
             errorMessage.setText("that's not a number");
         }
     }
     //method for editing the latitude of a record
-    public void changePriceCellEvent(TableColumn.CellEditEvent edditedCell) throws SQLException {
+    public void changePriceCellEvent(TableColumn.CellEditEvent edditedCell) {
         try{
             LocalDatabase.SellRecord recordSelected = tableView.getSelectionModel().getSelectedItem();
-            recordSelected.editRevenue(Double.parseDouble(edditedCell.getNewValue().toString()));
-            calculateStock();
-            errorMessage.setText("");
+            double revenue = Double.parseDouble(edditedCell.getNewValue().toString());
+            saveEdit(() -> db.getEditQueue().editRevenue(recordSelected, revenue), false);
         }
         catch(NumberFormatException e){
             errorMessage.setText("that's not a number");
         }
     }
+    //method to queue an edit, which is saved along with any others made shortly after it, and update the stock once it's saved
+    private void saveEdit(Callable<CompletableFuture<Integer>> edit, boolean weightChanged) {
+        try {
+            AsyncDatabase.onFxThread(edit.call(), saved -> {
+                if (weightChanged) {
+                    calculateStock();
+                }
+                errorMessage.setText("");
+            }, error -> errorMessage.setText("The change couldn't be saved"));
+        } catch (Exception e) {
+            errorMessage.setText("The change couldn't be saved");
+        }
+    }
 
-    //method for deleting records
-    public void deleteButtonPushed() throws SQLException {
-        ObservableList<LocalDatabase.SellRecord> selectedRows;
-        selectedRows = tableView.getSelectionModel().getSelectedItems();
-
-        for (LocalDatabase.SellRecord sellRecord: selectedRows){
-            db.deleteData(sellRecord.record_id);
+    //method for deleting records. Selected rows that haven't been loaded yet are null, so their record_ids are
+    //read by PagedRecordList before deleting them
+    public void deleteButtonPushed() {
+        CompletableFuture<ArrayList<Integer>> selectedIds;
+        if (tableView.getItems() instanceof PagedRecordList) {
+            selectedIds = ((PagedRecordList<LocalDatabase.SellRecord>) tableView.getItems()).recordIdsAt(tableView.getSelectionModel().getSelectedIndices());
+        } else {
+            ArrayList<Integer> ids = new ArrayList<>();
+            for (LocalDatabase.SellRecord sellRecord: tableView.getSelectionModel().getSelectedItems()){
+                if (sellRecord != null) {
+                    ids.add(sellRecord.record_id);
+                }
+            }
+            selectedIds = CompletableFuture.completedFuture(ids);
         }
 
-        initialize();
+        AsyncDatabase.onFxThread(selectedIds.thenCompose(ids -> async.submitWrite(db -> db.deleteRecords(ids))), deleted -> {
+            initialize();
+            errorMessage.setText("Deleted " + deleted + (deleted == 1 ? " record" : " records"));
+        }, error -> errorMessage.setText("The records couldn't be deleted"));
     }
     //method for initializing/reset the table
-    public void initialize() throws SQLException {
+    public void initialize() {
+        if (async == null) {
+            async = new AsyncDatabase(db);
+            busyIndicator.visibleProperty().bind(async.busyProperty());
+            //a query is the first search category
+            choiceBox.getSelectionModel().selectFirst();
+        }
         calculateStock();
         dateTimeColumn.setCellValueFactory(new PropertyValueFactory<LocalDatabase.SellRecord, String>("dateTime"));
         weightColumn.setCellValueFactory(new PropertyValueFactory<LocalDatabase.SellRecord, Double>("weight"));
         priceColumn.setCellValueFactory(new PropertyValueFactory<LocalDatabase.SellRecord, Double>("price"));
 
 
-        ObservableList<LocalDatabase.SellRecord> sellRecords = FXCollections.observableArrayList();
-
-        try {
-            ArrayList<LocalDatabase.SellRecord> sellRecordArrayList = db.getAllSellRecords();
-            sellRecords.addAll(sellRecordArrayList);
-        } catch (SQLException throwables) {
-            throwables.printStackTrace();
-        }
+        //only the pages of records the table is showing are loaded, and they're counted in the background
+        AsyncDatabase.onFxThread(PagedRecordList.sellRecords(async), tableView::setItems, Throwable::printStackTrace);
 
-        tableView.setItems(sellRecords);
         dateTimeColumn.setCellFactory(TextFieldTableCell.forTableColumn());
         try{
             weightColumn.setCellFactory(TextFieldTableCell.forTableColumn(converter));
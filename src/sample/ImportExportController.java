@@ -1,14 +1,19 @@
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.paint.Color;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
-import java.time.format.DateTimeParseException;
 
 public class ImportExportController {
 
@@ -16,15 +21,28 @@ public class ImportExportController {
     @FXML Label fileLabel;
     @FXML Label folderLabel;
     @FXML Label errorMessage;
+    @FXML Button importButton;
+    @FXML ProgressBar importProgress;
+    @FXML ListView<String> rejectedLines;
+    @FXML CheckBox compressExport;
+    @FXML Button exportButton;
+    @FXML ProgressIndicator busyIndicator;
 
     private String selectedFile1;
     private String selectedDirectory1;
-    private static LocalDatabase db;
+    private static RecordStore db;
+    //runs the database calls in the background so the window keeps responding
+    private AsyncDatabase async;
     //method to receive a database object
-    public static void receiveDB(LocalDatabase database){
+    public static void receiveDB(RecordStore database){
         db = database;
     }
 
+    public void initialize() {
+        async = new AsyncDatabase(db);
+        busyIndicator.visibleProperty().bind(async.busyProperty());
+    }
+
     //method to go back to homepage
     public void goToHome(ActionEvent event){
         HomeController.receiveDB(db);
@@ -35,7 +53,9 @@ public class ImportExportController {
     public void openFileChooser(ActionEvent e){
         try{
             FileChooser fileChooser = new FileChooser();
-            fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+            fileChooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("Text Files", "*.txt"),
+                    new FileChooser.ExtensionFilter("Compressed Text Files", "*.txt.gz"));
             File selectedFile = fileChooser.showOpenDialog(((Node) e.getSource()).getScene().getWindow());
             fileLabel.setText(selectedFile.getName());
             selectedFile1 = selectedFile.getAbsolutePath();
@@ -52,27 +72,80 @@ public class ImportExportController {
         }catch(NullPointerException ignored){}
     }
 
-    //method for importing data from a text file
+    //method for importing data from a text file, run in the background so the window keeps responding. It's run as
+    //a write, so it waits for the writes before it, and logging out waits for it before closing the database
     public void importData(ActionEvent e){
-        try{
-            db.importData(selectedFile1);
-            errorMessage.setTextFill(Color.GREEN);
-            errorMessage.setText("Successfully imported data");
-        }catch(IOException | DateTimeParseException exception){
+        if (selectedFile1 == null) {
             errorMessage.setTextFill(Color.RED);
-            errorMessage.setText("Error, cannot find file or wrong type of data");
+            errorMessage.setText("Please select a file to import");
+            return;
         }
+
+        Task<CatchLogImporter.ImportResult> importTask = new Task<>() {
+            @Override
+            protected CatchLogImporter.ImportResult call() throws IOException, SQLException {
+                //the edits queued before the import are written first, so they can't be written over what it imports
+                db.getEditQueue().flush();
+                return db.importData(selectedFile1, (linesRead, imported, rejected, fraction) -> {
+                    updateProgress(fraction, 1.0);
+                    updateMessage(String.format("Read %d lines, imported %d records, rejected %d", linesRead, imported, rejected));
+                });
+            }
+        };
+
+        importButton.setDisable(true);
+        rejectedLines.getItems().clear();
+        rejectedLines.setVisible(false);
+        importProgress.setVisible(true);
+        importProgress.progressProperty().bind(importTask.progressProperty());
+        errorMessage.setTextFill(Color.BLACK);
+        errorMessage.textProperty().bind(importTask.messageProperty());
+
+        importTask.setOnSucceeded(event -> {
+            finishImport();
+            CatchLogImporter.ImportResult result = importTask.getValue();
+            if (result.getRejectedCount() == 0) {
+                errorMessage.setTextFill(Color.GREEN);
+                errorMessage.setText("Successfully imported " + result.getImported() + " records");
+            } else {
+                //show the lines that were skipped, so the user can fix them and import them again
+                errorMessage.setTextFill(Color.RED);
+                errorMessage.setText(result.toString());
+                for (CatchLogImporter.RejectedLine rejected : result.getRejections()) {
+                    rejectedLines.getItems().add(rejected.toString());
+                }
+                rejectedLines.setVisible(true);
+            }
+        });
+        importTask.setOnFailed(event -> {
+            finishImport();
+            errorMessage.setTextFill(Color.RED);
+            errorMessage.setText("Error, cannot find file or wrong type of data");
+        });
+
+        async.write(database -> importTask.run());
+    }
+
+    private void finishImport() {
+        importProgress.progressProperty().unbind();
+        importProgress.setVisible(false);
+        errorMessage.textProperty().unbind();
+        importButton.setDisable(false);
     }
     //method for exporting data to a text file
     public void exportData(ActionEvent e){
-        try{
-            db.exportData(selectedDirectory1);
+        String directory = selectedDirectory1;
+        boolean compress = compressExport.isSelected();
+        exportButton.setDisable(true);
+        AsyncDatabase.onFxThread(async.submitCommitted(db -> db.exportData(directory, compress)), exported -> {
+            exportButton.setDisable(false);
             errorMessage.setTextFill(Color.GREEN);
-            errorMessage.setText("Successfully exported data");
-        }catch(IOException | SQLException exception){
+            errorMessage.setText("Successfully exported " + exported + " records");
+        }, exception -> {
+            exportButton.setDisable(false);
             errorMessage.setTextFill(Color.RED);
             errorMessage.setText("Error, cannot find folder");
-        }
+        });
     }
 
 }
@@ -2,8 +2,8 @@ import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
-import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
@@ -11,7 +11,9 @@ public class InputController {
     //if a string matches these regex they are either a numeric (including decimal) or a no decimal numeric
     private static final String numeric_regex = "-?\\d+(\\.\\d+)?";
     private static final String noDecimal_numeric_regex = "^\\d+$";
-    private static LocalDatabase db;
+    private static RecordStore db;
+    //runs the database calls in the background so the window keeps responding
+    private AsyncDatabase async;
 
     //load in the fxml elements
     @FXML DatePicker date;
@@ -28,13 +30,19 @@ public class InputController {
     @FXML Label errorMessage1;
     @FXML TextField hour1;
     @FXML TextField minute1;
+    @FXML ProgressIndicator busyIndicator;
     //method to receive a database object
-    public static void receiveDB(LocalDatabase database){
+    public static void receiveDB(RecordStore database){
         db = database;
     }
 
+    public void initialize() {
+        async = new AsyncDatabase(db);
+        busyIndicator.visibleProperty().bind(async.busyProperty());
+    }
+
     //method for inputting a new catch data record
-    public void inputCatch(ActionEvent e) throws SQLException {
+    public void inputCatch(ActionEvent e) {
 
         if(date.getValue() == null){
             errorMessage.setText("Please enter a date.");
@@ -96,14 +104,14 @@ public class InputController {
         LocalTime time = LocalTime.of(Integer.parseInt(hour.getText()), Integer.parseInt(minute.getText()), 0);
         LocalDateTime  DateTime = LocalDateTime.of(date.getValue(), time);
 
-        db.inputCatchData(DateTime, numericWeight, numericLatitude, numericLongitude);
-
-        HomeController.receiveDB(db);
-        WindowSwitcher.goToPage(e, "HomeView", 600, 400);
+        AsyncDatabase.onFxThread(async.write(db -> db.inputCatchData(DateTime, numericWeight, numericLatitude, numericLongitude)), saved -> {
+            HomeController.receiveDB(db);
+            WindowSwitcher.goToPage(e, "HomeView", 600, 400);
+        }, error -> errorMessage.setText("The catch couldn't be saved."));
     }
 
     //method for inputting sell records
-    public void inputSell(ActionEvent e) throws SQLException {
+    public void inputSell(ActionEvent e) {
 
         if(date1.getValue() == null){
             errorMessage1.setText("Please enter a date.");
@@ -157,10 +165,10 @@ public class InputController {
         LocalTime time = LocalTime.of(Integer.parseInt(hour1.getText()), Integer.parseInt(minute1.getText()), 0);
         LocalDateTime  DateTime = LocalDateTime.of(date1.getValue(), time);
 
-        db.inputSellData(DateTime, numericWeight, numericPrice);
-
-        HomeController.receiveDB(db);
-        WindowSwitcher.goToPage(e, "HomeView", 600, 400);
+        AsyncDatabase.onFxThread(async.write(db -> db.inputSellData(DateTime, numericWeight, numericPrice)), saved -> {
+            HomeController.receiveDB(db);
+            WindowSwitcher.goToPage(e, "HomeView", 600, 400);
+        }, error -> errorMessage1.setText("The sale couldn't be saved."));
     }
 
     //method to go back to the homepage
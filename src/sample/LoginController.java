@@ -1,7 +1,10 @@
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
+import java.io.IOException;
 import java.sql.SQLException;
 
 public class LoginController {
@@ -9,12 +12,14 @@ public class LoginController {
     @FXML TextField username;
     @FXML TextField password;
     @FXML Label errorMessage;
+    @FXML Button loginButton;
+    @FXML ProgressIndicator busyIndicator;
 
     public void GoToSignUp(ActionEvent e){
         WindowSwitcher.goToPage(e, "SignUpView", 600, 400);
     }
 
-    public void Login(ActionEvent e) throws SQLException {
+    public void Login(ActionEvent e) {
         String usernameText = username.getText().trim();
         String passwordText = password.getText().trim();
 
@@ -26,15 +31,56 @@ public class LoginController {
             return;
         }
 
-        LocalDatabase db = new LocalDatabase();
-
-        try{
-            db.changeUser(usernameText, passwordText);
+        //opening the database can mean upgrading it, so it's done in the background
+        setBusy(true);
+        AsyncDatabase.onFxThread(AsyncDatabase.supply(() -> {
+            RecordStore db = openStore();
+            try {
+                db.changeUser(usernameText, passwordText);
+            } catch (Exception exception) {
+                db.close();
+                throw exception;
+            }
+            return db;
+        }), db -> {
             HomeController.receiveDB(db);
             WindowSwitcher.goToPage(e, "HomeView", 600, 400);
+        }, exception -> {
+            setBusy(false);
+            if (exception instanceof LocalDatabase.UserNotFoundException || exception instanceof LocalDatabase.IncorrectPasswordException) {
+                errorMessage.setText("Username or password is incorrect.");
+            } else {
+                errorMessage.setText("The database couldn't be opened.");
+            }
+        });
+    }
 
-        } catch (LocalDatabase.UserNotFoundException | LocalDatabase.IncorrectPasswordException exception) {
-            errorMessage.setText("Username or password is incorrect.");
+    /**
+     * Method: openStore()
+     *
+     * Description: Opens the store the records are kept in, chosen with the fishing.store system property:
+     * "sqlite" (the default) for the SQLite database, "segment" for a SegmentRecordStore, or "memory" for an
+     * InMemoryRecordStore, which starts empty and keeps nothing once the user logs out.
+     * Throws an IllegalArgumentException if the property names any other store.
+     *
+     * Date: 17/10/2026
+     */
+    static RecordStore openStore() throws SQLException, IOException {
+        String store = System.getProperty("fishing.store", "sqlite");
+        switch (store) {
+            case "sqlite":
+                return new LocalDatabase();
+            case "segment":
+                return new SegmentRecordStore();
+            case "memory":
+                return new InMemoryRecordStore();
+            default:
+                throw new IllegalArgumentException("There's no record store called " + store);
         }
     }
+
+    private void setBusy(boolean busy) {
+        busyIndicator.setVisible(busy);
+        loginButton.setDisable(busy);
+    }
 }
@@ -0,0 +1,309 @@
+import javafx.collections.ObservableListBase;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Class: PagedRecordList
+ *
+ * Description: A read only list of a user's records for a TableView, which only loads the pages of records the
+ * table actually shows. The TableView asks for rows by index as they scroll into view, and each page is loaded with
+ * a keyset paged query that starts from the cursor where the previous page ended, along with the next page in the
+ * direction the user is scrolling. Only the most recently used pages are kept, so the list holds at most
+ * pageSize * maxPages records however many the user has. Jumping straight to a page that hasn't been reached by
+ * paging (dragging the scroll bar) finds its starting cursor once, by counting on from the nearest page start it
+ * already knows.
+ *
+ * Pages are read in the background through an AsyncDatabase, so scrolling never waits on the database. Until its
+ * page has arrived a row is null, which the TableView shows as an empty row, and the rows are replaced with their
+ * records once it has. The list is only used on the JavaFX application thread.
+ *
+ * The list is a snapshot of the records when it was created; after records are added or deleted a new list should
+ * be made. Records that are edited in place are the same objects the list holds, so edits show straight away.
+ *
+ * Date: 17/10/2026
+ */
+public class PagedRecordList<T extends LocalDatabase.Record> extends ObservableListBase<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+    public static final int DEFAULT_MAX_PAGES = 5;
+
+    private final AsyncDatabase async;
+    private final PageSource<T> source;
+    private final int size;
+    private final int pageSize;
+    private final LinkedHashMap<Integer, ArrayList<T>> pages;
+    //the cursor each page starts from, for every page that has been reached
+    private final TreeMap<Integer, RecordPage.Cursor> pageStarts = new TreeMap<>();
+    //the pages being read in the background
+    private final HashSet<Integer> loading = new HashSet<>();
+    private int lastPage = 0;
+
+    private long pagesLoaded = 0;
+    private long offsetSeeks = 0;
+
+    public PagedRecordList(AsyncDatabase async, PageSource<T> source, int size, int pageSize, int maxPages) {
+        this.async = async;
+        this.source = source;
+        this.size = size;
+        this.pageSize = pageSize;
+        //access ordered, so the page used longest ago is dropped once there are too many
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ArrayList<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Method: catchRecords(AsyncDatabase async)
+     *
+     * Description: Counts the current user's catch records in the background, and completes with a paged list of
+     * them all in time order. Fails with an SQLException if the records can't be counted.
+     *
+     * Date: 17/10/2026
+     */
+    public static CompletableFuture<PagedRecordList<LocalDatabase.CatchRecord>> catchRecords(AsyncDatabase async) {
+        PageSource<LocalDatabase.CatchRecord> source = new PageSource<>() {
+            public RecordPage<LocalDatabase.CatchRecord> load(RecordStore db, int limit, RecordPage.Cursor cursor) throws SQLException {
+                return db.getCatchRecordsBetween(null, null, limit, cursor);
+            }
+
+            public RecordPage.Cursor cursorAt(RecordStore db, RecordPage.Cursor from, int offset) throws SQLException {
+                return db.getCatchRecordCursorAt(from, offset);
+            }
+        };
+        return async.submitCommitted(RecordStore::countCatchRecords).thenApply(size -> new PagedRecordList<>(async, source, size, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES));
+    }
+
+    /**
+     * Method: sellRecords(AsyncDatabase async)
+     *
+     * Description: Counts the current user's selling records in the background, and completes with a paged list
+     * of them all in time order. Fails with an SQLException if the records can't be counted.
+     *
+     * Date: 17/10/2026
+     */
+    public static CompletableFuture<PagedRecordList<LocalDatabase.SellRecord>> sellRecords(AsyncDatabase async) {
+        PageSource<LocalDatabase.SellRecord> source = new PageSource<>() {
+            public RecordPage<LocalDatabase.SellRecord> load(RecordStore db, int limit, RecordPage.Cursor cursor) throws SQLException {
+                return db.getSellRecordsBetween(null, null, limit, cursor);
+            }
+
+            public RecordPage.Cursor cursorAt(RecordStore db, RecordPage.Cursor from, int offset) throws SQLException {
+                return db.getSellRecordCursorAt(from, offset);
+            }
+        };
+        return async.submitCommitted(RecordStore::countSellRecords).thenApply(size -> new PagedRecordList<>(async, source, size, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES));
+    }
+
+    /**
+     * Method: get(int index)
+     *
+     * Description: Returns the record at the given index if its page is loaded, and otherwise starts loading the
+     * page in the background and returns null until it arrives. Also returns null if the record has been deleted
+     * since the list was made. Either way the TableView shows an empty row.
+     *
+     * Date: 17/10/2026
+     */
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is outside a list of " + size + " records");
+        }
+        int page = index / pageSize;
+        //read ahead in whichever direction the table is scrolling
+        int next = page >= lastPage ? page + 1 : page - 1;
+        lastPage = page;
+        ArrayList<T> records = pages.get(page);
+        if (records == null) {
+            request(page);
+            return null;
+        }
+        if (next >= 0 && next * pageSize < size && (next == 0 || pageStarts.containsKey(next))) {
+            request(next);
+        }
+        int offset = index - page * pageSize;
+        return offset < records.size() ? records.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    //only the loaded pages are searched, a record that isn't loaded can't be on screen or selected
+    @Override
+    public int indexOf(Object o) {
+        for (Map.Entry<Integer, ArrayList<T>> page : pages.entrySet()) {
+            int offset = page.getValue().indexOf(o);
+            if (offset >= 0) {
+                return page.getKey() * pageSize + offset;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Method: recordIdsAt(Collection<Integer> indices)
+     *
+     * Description: Completes with the record_ids of the records at the given indices, such as the rows selected in
+     * the table, including rows whose pages aren't loaded (which the selection model only has as null). Loaded
+     * pages are read from memory, and the others in the background with the same keyset paged queries the pages
+     * are loaded with, each starting from the cursor the page before it ended at, without keeping them. An index
+     * past the end of its page, because records were deleted since the list was made, has no record_id.
+     * Fails with an SQLException if the records can't be read.
+     *
+     * Date: 17/10/2026
+     */
+    public CompletableFuture<ArrayList<Integer>> recordIdsAt(Collection<Integer> indices) {
+        ArrayList<Integer> ids = new ArrayList<>();
+        TreeMap<Integer, ArrayList<Integer>> unloaded = new TreeMap<>();
+        for (int index : indices) {
+            if (index < 0 || index >= size) {
+                continue;
+            }
+            int page = index / pageSize;
+            int offset = index - page * pageSize;
+            ArrayList<T> records = pages.get(page);
+            if (records == null) {
+                unloaded.computeIfAbsent(page, key -> new ArrayList<>()).add(offset);
+            } else if (offset < records.size()) {
+                ids.add(records.get(offset).record_id);
+            }
+        }
+        if (unloaded.isEmpty()) {
+            return CompletableFuture.completedFuture(ids);
+        }
+
+        TreeMap<Integer, RecordPage.Cursor> starts = new TreeMap<>(pageStarts);
+        return async.submit(db -> {
+            for (Map.Entry<Integer, ArrayList<Integer>> wanted : unloaded.entrySet()) {
+                int page = wanted.getKey();
+                RecordPage.Cursor start = starts.get(page);
+                if (page > 0 && start == null) {
+                    Map.Entry<Integer, RecordPage.Cursor> nearest = starts.floorEntry(page);
+                    int nearestPage = nearest == null ? 0 : nearest.getKey();
+                    start = source.cursorAt(db, nearest == null ? null : nearest.getValue(), (page - nearestPage) * pageSize);
+                }
+                RecordPage<T> records = source.load(db, pageSize, start);
+                if (records.hasMore()) {
+                    starts.put(page + 1, records.getNextCursor());
+                }
+                for (int offset : wanted.getValue()) {
+                    if (offset < records.getRecords().size()) {
+                        ids.add(records.getRecords().get(offset).record_id);
+                    }
+                }
+            }
+            return ids;
+        });
+    }
+
+    public int getLoadedPageCount() {
+        return pages.size();
+    }
+
+    public long getPagesLoaded() {
+        return pagesLoaded;
+    }
+
+    public long getOffsetSeeks() {
+        return offsetSeeks;
+    }
+
+    /**
+     * Method: request(int page)
+     *
+     * Description: Starts reading a page in the background, unless it's loaded or already being read. A page that
+     * hasn't been reached by paging first has its starting cursor found by counting on from the nearest page start
+     * already known. If the page can't be read it's left unloaded, to be asked for again the next time the table
+     * wants one of its rows.
+     *
+     * Date: 17/10/2026
+     */
+    private void request(int page) {
+        if (pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+        RecordPage.Cursor knownStart = pageStarts.get(page);
+        Map.Entry<Integer, RecordPage.Cursor> nearest = page == 0 || knownStart != null ? null : pageStarts.floorEntry(page);
+        boolean seek = page > 0 && knownStart == null;
+        AsyncDatabase.onFxThread(async.submit(db -> {
+            RecordPage.Cursor start = knownStart;
+            if (seek) {
+                int nearestPage = nearest == null ? 0 : nearest.getKey();
+                start = source.cursorAt(db, nearest == null ? null : nearest.getValue(), (page - nearestPage) * pageSize);
+            }
+            return new LoadedPage<>(start, seek, source.load(db, pageSize, start));
+        }), loaded -> loaded(page, loaded), error -> {
+            loading.remove(page);
+            System.err.println("Couldn't load records " + page * pageSize + " to " + (page + 1) * pageSize + ": " + error);
+        });
+    }
+
+    //keeps a page that has arrived and replaces its empty rows with its records
+    private void loaded(int page, LoadedPage<T> loaded) {
+        loading.remove(page);
+        if (loaded.seek) {
+            pageStarts.put(page, loaded.start);
+            offsetSeeks++;
+        }
+        if (loaded.records.hasMore()) {
+            pageStarts.put(page + 1, loaded.records.getNextCursor());
+        }
+        pages.put(page, loaded.records.getRecords());
+        pagesLoaded++;
+
+        int from = page * pageSize;
+        int to = Math.min(size, from + pageSize);
+        beginChange();
+        nextReplace(from, to, Collections.nCopies(to - from, null));
+        endChange();
+    }
+
+    //a page read in the background, and the cursor it was read from
+    private static final class LoadedPage<T extends LocalDatabase.Record> {
+        private final RecordPage.Cursor start;
+        private final boolean seek;
+        private final RecordPage<T> records;
+
+        private LoadedPage(RecordPage.Cursor start, boolean seek, RecordPage<T> records) {
+            this.start = start;
+            this.seek = seek;
+            this.records = records;
+        }
+    }
+
+    /**
+     * Class: PageSource
+     *
+     * Description: Where a PagedRecordList reads its pages from; a keyset paged query, and a way to find the
+     * cursor a number of records on from another cursor (or from the start, when it's null). Both are called in
+     * the background.
+     *
+     * Date: 17/10/2026
+     */
+    public interface PageSource<T extends LocalDatabase.Record> {
+        RecordPage<T> load(RecordStore db, int limit, RecordPage.Cursor cursor) throws SQLException;
+
+        RecordPage.Cursor cursorAt(RecordStore db, RecordPage.Cursor from, int offset) throws SQLException;
+    }
+}
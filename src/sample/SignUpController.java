@@ -1,8 +1,9 @@
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
-import java.sql.SQLException;
 import java.awt.*;
 
 public class SignUpController {
@@ -14,12 +15,14 @@ public class SignUpController {
     @FXML TextField password;
     @FXML TextField confirmPassword;
     @FXML Label errorMessage;
+    @FXML Button signUpButton;
+    @FXML ProgressIndicator busyIndicator;
     //method to go to the login page
     public void GoToLogin(ActionEvent e){
         WindowSwitcher.goToPage(e, "LoginView", 600, 400);
     }
     //method to sign up a new user using the details entered, and then login the user
-    public void SignUp(ActionEvent e) throws SQLException, LocalDatabase.UserNotFoundException, LocalDatabase.IncorrectPasswordException {
+    public void SignUp(ActionEvent e) {
         String usernameText = username.getText().trim();
         String emailText = email.getText().trim();
         String passwordText = password.getText().trim();
@@ -46,18 +49,39 @@ public class SignUpController {
             return;
         }
 
-        LocalDatabase db = new LocalDatabase();
-
-        try{
-            if (db.searchForUser(usernameText) != null){
+        //opening the database can mean upgrading it, so it's done in the background
+        setBusy(true);
+        AsyncDatabase.onFxThread(AsyncDatabase.supply(() -> {
+            RecordStore db = LoginController.openStore();
+            try{
+                db.searchForUser(usernameText);
+                //the username is taken
+                db.close();
+                return null;
+            } catch (LocalDatabase.UserNotFoundException exception) {
+                db.addUser(usernameText, emailText, passwordText);
+                db.changeUser(usernameText, passwordText);
+                return db;
+            } catch (Exception exception) {
+                db.close();
+                throw exception;
+            }
+        }), db -> {
+            if (db == null) {
+                setBusy(false);
                 errorMessage.setText("A user with that username already exists");
+                return;
             }
-
-        } catch (LocalDatabase.UserNotFoundException exception) {
-            db.addUser(usernameText, emailText, passwordText);
-            db.changeUser(usernameText, passwordText);
             HomeController.receiveDB(db);
             WindowSwitcher.goToPage(e, "HomeView", 600, 400);
-        }
+        }, exception -> {
+            setBusy(false);
+            errorMessage.setText("The account couldn't be created.");
+        });
+    }
+
+    private void setBusy(boolean busy) {
+        busyIndicator.setVisible(busy);
+        signUpButton.setDisable(busy);
     }
 }
@@ -13,10 +13,11 @@ public class WindowSwitcher {
         goToPage((Stage) ((Node) event.getSource()).getScene().getWindow(), filename, width, height);
     }
 
-    //method for switching pages
+    //method for switching pages, timed from loading the page (and so its controller) to showing it
+    @SuppressWarnings("try")
     public static void goToPage(Stage stage, String filename, double width, double height)
     {
-        try {
+        try (Instrumentation.Timer timer = Instrumentation.page(filename)) {
             FXMLLoader loader = new FXMLLoader(new File( "src/sample/" + filename + ".fxml").toURI().toURL());
             Parent root = loader.load();
             Scene scene = new Scene(root, width, height);